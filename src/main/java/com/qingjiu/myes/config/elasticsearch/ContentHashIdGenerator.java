@@ -0,0 +1,51 @@
+package com.qingjiu.myes.config.elasticsearch;
+
+import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.BytesRefIterator;
+import org.elasticsearch.common.bytes.BytesReference;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Base64;
+
+/**
+ * 按文档内容生成 id：序列化结果的 SHA-256 取前 128 位，url 安全的 base64 编码（22 位）
+ * <p>
+ * 内容相同的文档得到相同 id，重复写入只会覆盖为同样的内容，适合需要去重或重放的数据；
+ * 同样内容在不同字段顺序下序列化结果不同，id 也不同。哈希 id 是随机分布的，写入时倒排词典局部性不如 FLAKE。
+ *
+ * @author tjy
+ * @date 2026/10/18
+ **/
+public class ContentHashIdGenerator implements EsIdGenerator {
+
+    private static final ThreadLocal<MessageDigest> DIGEST = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    });
+
+    @Override
+    public String generate(BytesReference source) {
+        if (source == null) {
+            throw new IllegalArgumentException("按内容生成 id 时文档不能为空");
+        }
+        MessageDigest digest = DIGEST.get();
+        digest.reset();
+        try {
+            BytesRefIterator iterator = source.iterator();
+            BytesRef ref;
+            while ((ref = iterator.next()) != null) {
+                digest.update(ref.bytes, ref.offset, ref.length);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(Arrays.copyOf(digest.digest(), 16));
+    }
+}
@@ -2,32 +2,97 @@ package com.qingjiu.myes.config.elasticsearch;
 
 
 import com.qingjiu.myes.entity.es.ElasticSearchEntity;
+import lombok.extern.slf4j.Slf4j;
 import org.apache.http.HttpHost;
 import org.apache.http.auth.AuthScope;
 import org.apache.http.auth.UsernamePasswordCredentials;
 import org.apache.http.client.CredentialsProvider;
+import org.apache.http.config.RegistryBuilder;
 import org.apache.http.impl.client.BasicCredentialsProvider;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
+import org.apache.http.impl.nio.client.HttpAsyncClientBuilder;
+import org.apache.http.impl.nio.conn.PoolingNHttpClientConnectionManager;
+import org.apache.http.impl.nio.reactor.DefaultConnectingIOReactor;
+import org.apache.http.impl.nio.reactor.IOReactorConfig;
+import org.apache.http.nio.conn.NoopIOSessionStrategy;
+import org.apache.http.nio.conn.SchemeIOSessionStrategy;
+import org.apache.http.nio.conn.ssl.SSLIOSessionStrategy;
+import org.apache.http.nio.reactor.IOReactorException;
+import org.elasticsearch.client.NodeSelector;
 import org.elasticsearch.client.RestClient;
 import org.elasticsearch.client.RestClientBuilder;
 import org.elasticsearch.client.RestHighLevelClient;
+import org.elasticsearch.client.sniff.ElasticsearchNodesSniffer;
+import org.elasticsearch.client.sniff.SniffOnFailureListener;
+import org.elasticsearch.client.sniff.Sniffer;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
 /**
+ * es 客户端配置
+ * <p>
+ * 可配置多个节点（hosts），请求在可用节点间轮询；请求失败的节点会被标记为不可用，
+ * 按失败次数指数退避（1 分钟起，最长 30 分钟）后再重试，期间流量分散到其他节点。
+ * 开启嗅探（nodes.sniff）后定时从集群获取节点列表，节点失败时也会提前嗅探一次；
+ * 开启角色选择（nodes.role-aware）后，查询优先发往协调节点，bulk 写入优先发往 data / ingest 节点。
+ *
  * @author lenovo
  */
+@Slf4j
 @Configuration
 public class ElasticSearchClientConfig {
 
 
     private final ElasticSearchEntity elasticSearchEntity;
 
+    /**
+     * 节点失败时触发嗅探（嗅探开启时才会关联 Sniffer）
+     */
+    private final SniffOnFailureListener searchFailureListener = new SniffOnFailureListener();
+    private final SniffOnFailureListener bulkFailureListener = new SniffOnFailureListener();
+
     public ElasticSearchClientConfig(ElasticSearchEntity elasticSearchEntity) {
         this.elasticSearchEntity = elasticSearchEntity;
     }
 
+    /**
+     * 通用客户端（查询、单文档读写、索引管理），INTERACTIVE 负载使用
+     */
     @Bean
     public RestHighLevelClient restHighLevelClient() {
+        return buildClient("restHighLevelClient", EsNodeSelectors.COORDINATING, searchFailureListener);
+    }
+
+    /**
+     * 批量任务客户端（bulk、导出），BATCH 负载使用；独立连接池，批量任务占满连接也不影响查询
+     * bulk 请求优先发往 data / ingest 节点
+     */
+    @Bean
+    public RestHighLevelClient bulkRestHighLevelClient() {
+        return buildClient("bulkRestHighLevelClient", EsNodeSelectors.DATA_OR_INGEST, bulkFailureListener);
+    }
+
+    @Bean(destroyMethod = "close")
+    @ConditionalOnProperty(prefix = "elasticsearch.security.nodes", name = "sniff", havingValue = "true")
+    public Sniffer restSniffer() {
+        return buildSniffer(restHighLevelClient(), searchFailureListener);
+    }
+
+    @Bean(destroyMethod = "close")
+    @ConditionalOnProperty(prefix = "elasticsearch.security.nodes", name = "sniff", havingValue = "true")
+    public Sniffer bulkRestSniffer() {
+        return buildSniffer(bulkRestHighLevelClient(), bulkFailureListener);
+    }
+
+    private RestHighLevelClient buildClient(String name, NodeSelector roleSelector, SniffOnFailureListener failureListener) {
+        ElasticSearchEntity.Nodes nodes = elasticSearchEntity.getNodes();
+        ElasticSearchEntity.Http http = elasticSearchEntity.getHttp();
+        EsHttpCompression compression = esHttpCompression();
 
         // 创建设置安全验证请求
         final CredentialsProvider credentialsProvider = new BasicCredentialsProvider();
@@ -35,11 +100,116 @@ public class ElasticSearchClientConfig {
                 // 设置账号 密码
                 new UsernamePasswordCredentials(elasticSearchEntity.getUserName(), elasticSearchEntity.getPassword()));
 
-        RestClientBuilder builder = RestClient.builder(new HttpHost(elasticSearchEntity.getHost(), elasticSearchEntity.getPort()))
-                .setHttpClientConfigCallback(httpClientBuilder -> httpClientBuilder.setDefaultCredentialsProvider(credentialsProvider));
+        RestClientBuilder builder = RestClient.builder(httpHosts())
+                .setRequestConfigCallback(requestConfigBuilder -> requestConfigBuilder
+                        .setConnectTimeout(http.getConnectTimeoutMillis())
+                        .setSocketTimeout(http.getSocketTimeoutMillis())
+                        .setConnectionRequestTimeout(http.getConnectionRequestTimeoutMillis()))
+                .setHttpClientConfigCallback(httpClientBuilder -> compression.wrap(configureHttpClient(
+                        httpClientBuilder.setDefaultCredentialsProvider(credentialsProvider), http)));
+        if (nodes.isRoleAware()) {
+            builder.setNodeSelector(roleSelector);
+        }
+        if (nodes.isSniff()) {
+            builder.setFailureListener(failureListener);
+        }
 
+        log.info("es 客户端 [{}] ==> maxConnTotal [{}] maxConnPerRoute [{}] ioThreads [{}] connectTimeout [{}ms] "
+                        + "socketTimeout [{}ms] connectionRequestTimeout [{}ms] keepAlive [{}s] connectionTtl [{}s] gzip [{}]",
+                name, http.getMaxConnTotal(), http.getMaxConnPerRoute(), ioThreads(http),
+                http.getConnectTimeoutMillis(), http.getSocketTimeoutMillis(), http.getConnectionRequestTimeoutMillis(),
+                http.getKeepAliveSeconds(), http.getConnectionTtlSeconds(), compression.isEnabled());
         return new RestHighLevelClient(builder);
     }
 
+    /**
+     * 连接池、io 线程、keep-alive 配置
+     */
+    private HttpAsyncClientBuilder configureHttpClient(HttpAsyncClientBuilder httpClientBuilder, ElasticSearchEntity.Http http) {
+        IOReactorConfig ioReactorConfig = IOReactorConfig.custom()
+                .setIoThreadCount(ioThreads(http))
+                .setConnectTimeout(http.getConnectTimeoutMillis())
+                .setSoTimeout(http.getSocketTimeoutMillis())
+                .setSoKeepAlive(true)
+                .build();
+        long keepAliveMillis = TimeUnit.SECONDS.toMillis(http.getKeepAliveSeconds());
+        // 服务端 Keep-Alive 头优先，但不超过配置值；服务端没给时使用配置值（默认策略是永久保持）
+        httpClientBuilder.setKeepAliveStrategy((response, context) -> {
+            long server = DefaultConnectionKeepAliveStrategy.INSTANCE.getKeepAliveDuration(response, context);
+            return server > 0 ? Math.min(server, keepAliveMillis) : keepAliveMillis;
+        });
+
+        if (http.getConnectionTtlSeconds() <= 0) {
+            return httpClientBuilder
+                    .setDefaultIOReactorConfig(ioReactorConfig)
+                    .setMaxConnTotal(http.getMaxConnTotal())
+                    .setMaxConnPerRoute(http.getMaxConnPerRoute());
+        }
+
+        // HttpAsyncClientBuilder 不能直接设置连接存活时间，需要自己创建连接池
+        try {
+            PoolingNHttpClientConnectionManager connectionManager = new PoolingNHttpClientConnectionManager(
+                    new DefaultConnectingIOReactor(ioReactorConfig), null,
+                    RegistryBuilder.<SchemeIOSessionStrategy>create()
+                            .register("http", NoopIOSessionStrategy.INSTANCE)
+                            .register("https", SSLIOSessionStrategy.getDefaultStrategy())
+                            .build(),
+                    null, null, http.getConnectionTtlSeconds(), TimeUnit.SECONDS);
+            connectionManager.setMaxTotal(http.getMaxConnTotal());
+            connectionManager.setDefaultMaxPerRoute(http.getMaxConnPerRoute());
+            return httpClientBuilder.setConnectionManager(connectionManager);
+        } catch (IOReactorException e) {
+            throw new IllegalStateException("创建 es 连接池失败", e);
+        }
+    }
+
+    private int ioThreads(ElasticSearchEntity.Http http) {
+        return http.getIoThreads() > 0 ? http.getIoThreads() : Runtime.getRuntime().availableProcessors();
+    }
+
+    private Sniffer buildSniffer(RestHighLevelClient client, SniffOnFailureListener failureListener) {
+        ElasticSearchEntity.Nodes nodes = elasticSearchEntity.getNodes();
+        ElasticsearchNodesSniffer nodesSniffer = new ElasticsearchNodesSniffer(client.getLowLevelClient(),
+                ElasticsearchNodesSniffer.DEFAULT_SNIFF_REQUEST_TIMEOUT,
+                "https".equalsIgnoreCase(nodes.getScheme())
+                        ? ElasticsearchNodesSniffer.Scheme.HTTPS : ElasticsearchNodesSniffer.Scheme.HTTP);
+        Sniffer sniffer = Sniffer.builder(client.getLowLevelClient())
+                .setNodesSniffer(nodesSniffer)
+                .setSniffIntervalMillis(nodes.getSniffIntervalSeconds() * 1000)
+                .setSniffAfterFailureDelayMillis(nodes.getSniffAfterFailureDelaySeconds() * 1000)
+                .build();
+        failureListener.setSniffer(sniffer);
+        return sniffer;
+    }
+
+    /**
+     * 配置的节点地址（hosts 为空时使用 host / port）
+     */
+    private HttpHost[] httpHosts() {
+        String scheme = elasticSearchEntity.getNodes().getScheme();
+        List<HttpHost> httpHosts = new ArrayList<>();
+        for (String host : elasticSearchEntity.getHosts()) {
+            if (host == null || host.trim().isEmpty()) {
+                continue;
+            }
+            host = host.trim();
+            httpHosts.add(host.contains("://") ? HttpHost.create(host)
+                    : HttpHost.create(scheme + "://" + (host.contains(":") ? host : host + ":" + elasticSearchEntity.getPort())));
+        }
+        if (httpHosts.isEmpty()) {
+            httpHosts.add(new HttpHost(elasticSearchEntity.getHost(), elasticSearchEntity.getPort(), scheme));
+        }
+        log.info("es 节点 ==> {}", httpHosts);
+        return httpHosts.toArray(new HttpHost[0]);
+    }
+
+    /**
+     * http gzip 压缩（两个客户端共用，统计合并计算）
+     */
+    @Bean
+    public EsHttpCompression esHttpCompression() {
+        return new EsHttpCompression(elasticSearchEntity.getCompression());
+    }
+
 
 }
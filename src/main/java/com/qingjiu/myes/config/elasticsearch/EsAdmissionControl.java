@@ -0,0 +1,186 @@
+package com.qingjiu.myes.config.elasticsearch;
+
+import com.qingjiu.myes.entity.es.ElasticSearchEntity;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.io.IOException;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 按负载类型限制同时在途的 es 请求数
+ * <p>
+ * 每种负载类型一个信号量：有空闲许可直接执行；没有时排队等待，排队数超过上限或等待超时立即拒绝
+ * （抛出 RejectedExecutionException）。批量任务占满自己的许可也不会影响交互请求的许可。
+ * <pre>
+ * try (EsAdmissionControl.Permit permit = admissionControl.acquire(EsWorkload.BATCH)) {
+ *     bulkClient.bulk(...);
+ * }
+ * </pre>
+ *
+ * @author tjy
+ * @date 2026/10/18
+ **/
+@Slf4j
+@Component
+public class EsAdmissionControl {
+
+    @Autowired
+    private ElasticSearchEntity elasticSearchEntity;
+
+    private final Map<EsWorkload, Limiter> limiters = new EnumMap<>(EsWorkload.class);
+
+    @PostConstruct
+    public void init() {
+        ElasticSearchEntity.Workloads conf = elasticSearchEntity.getWorkloads();
+        limiters.put(EsWorkload.INTERACTIVE, new Limiter(EsWorkload.INTERACTIVE, conf.getInteractive()));
+        limiters.put(EsWorkload.BATCH, new Limiter(EsWorkload.BATCH, conf.getBatch()));
+        log.info("es 并发限制 ==> {}", limiters.values());
+    }
+
+    /**
+     * 获取许可，没有空闲许可时排队等待
+     *
+     * @param workload 负载类型
+     * @return com.qingjiu.myes.config.elasticsearch.EsAdmissionControl.Permit 用完必须 close
+     * @throws RejectedExecutionException 排队已满或等待超时
+     */
+    public Permit acquire(EsWorkload workload) {
+        return limiters.get(workload).acquire(true);
+    }
+
+    /**
+     * 获取许可，不等待（异步调用使用，避免阻塞调用线程）
+     *
+     * @param workload 负载类型
+     * @return com.qingjiu.myes.config.elasticsearch.EsAdmissionControl.Permit 用完必须 close
+     * @throws RejectedExecutionException 没有空闲许可
+     */
+    public Permit tryAcquire(EsWorkload workload) {
+        return limiters.get(workload).acquire(false);
+    }
+
+    /**
+     * 获取许可后执行（执行完归还许可）
+     *
+     * @param workload 负载类型
+     * @param call     es 调用
+     * @return T 调用结果
+     * @throws RejectedExecutionException 排队已满或等待超时
+     */
+    public <T> T call(EsWorkload workload, Call<T> call) throws IOException {
+        try (Permit permit = acquire(workload)) {
+            return call.call();
+        }
+    }
+
+    /**
+     * 同步的 es 调用
+     */
+    @FunctionalInterface
+    public interface Call<T> {
+        T call() throws IOException;
+    }
+
+    public int getAvailable(EsWorkload workload) {
+        return limiters.get(workload).permits.availablePermits();
+    }
+
+    public int getWaiting(EsWorkload workload) {
+        return limiters.get(workload).waiting.get();
+    }
+
+    public long getRejected(EsWorkload workload) {
+        return limiters.get(workload).rejected.get();
+    }
+
+    /**
+     * 许可（close 时归还，重复 close 只归还一次）
+     */
+    public static class Permit implements AutoCloseable {
+
+        private final Semaphore permits;
+
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        Permit(Semaphore permits) {
+            this.permits = permits;
+        }
+
+        @Override
+        public void close() {
+            if (released.compareAndSet(false, true)) {
+                permits.release();
+            }
+        }
+    }
+
+    private static class Limiter {
+
+        private final EsWorkload workload;
+
+        private final Semaphore permits;
+
+        private final int maxConcurrent;
+
+        private final int maxQueue;
+
+        private final long queueTimeoutMillis;
+
+        private final AtomicInteger waiting = new AtomicInteger();
+
+        private final AtomicLong rejected = new AtomicLong();
+
+        Limiter(EsWorkload workload, ElasticSearchEntity.Workload conf) {
+            this.workload = workload;
+            this.maxConcurrent = conf.getMaxConcurrent();
+            this.maxQueue = conf.getMaxQueue();
+            this.queueTimeoutMillis = conf.getQueueTimeoutMillis();
+            this.permits = new Semaphore(maxConcurrent, true);
+        }
+
+        Permit acquire(boolean wait) {
+            if (permits.tryAcquire()) {
+                return new Permit(permits);
+            }
+            if (!wait) {
+                throw reject("没有空闲许可");
+            }
+            if (waiting.incrementAndGet() > maxQueue) {
+                waiting.decrementAndGet();
+                throw reject("排队已满 [" + maxQueue + "]");
+            }
+            try {
+                if (permits.tryAcquire(queueTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                    return new Permit(permits);
+                }
+                throw reject("排队超时 [" + queueTimeoutMillis + "ms]");
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw reject("排队被中断");
+            } finally {
+                waiting.decrementAndGet();
+            }
+        }
+
+        private RejectedExecutionException reject(String reason) {
+            rejected.incrementAndGet();
+            return new RejectedExecutionException("es [" + workload + "] 请求被拒绝 ==> " + reason);
+        }
+
+        @Override
+        public String toString() {
+            return workload + "[maxConcurrent=" + maxConcurrent + ", maxQueue=" + maxQueue
+                    + ", queueTimeout=" + queueTimeoutMillis + "ms]";
+        }
+    }
+}
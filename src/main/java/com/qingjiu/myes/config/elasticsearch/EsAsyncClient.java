@@ -0,0 +1,418 @@
+package com.qingjiu.myes.config.elasticsearch;
+
+import com.qingjiu.myes.entity.es.EsReturnData;
+import com.qingjiu.myes.entity.es.EsSearchOption;
+import lombok.extern.slf4j.Slf4j;
+import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.action.bulk.BulkRequest;
+import org.elasticsearch.action.bulk.BulkResponse;
+import org.elasticsearch.action.delete.DeleteRequest;
+import org.elasticsearch.action.delete.DeleteResponse;
+import org.elasticsearch.action.get.GetRequest;
+import org.elasticsearch.action.get.GetResponse;
+import org.elasticsearch.action.index.IndexRequest;
+import org.elasticsearch.action.index.IndexResponse;
+import org.elasticsearch.action.search.SearchRequest;
+import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.action.update.UpdateRequest;
+import org.elasticsearch.action.update.UpdateResponse;
+import org.elasticsearch.client.RequestOptions;
+import org.elasticsearch.client.RestHighLevelClient;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.index.query.QueryBuilder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
+
+/**
+ * ElasticSearch 异步调用
+ * <p>
+ * 每个方法只提交一次请求（client 的 *Async 方法），立即返回 CompletableFuture，不占用调用线程；
+ * 结果在 esCallbackExecutor 线程池上完成，后续 thenApply / thenCompose 等回调也在该线程池执行。
+ * 并发受 EsAdmissionControl 限制，但不排队：没有空闲许可时返回的 future 直接以 RejectedExecutionException 失败。
+ * 熔断打开时（EsCircuitBreaker）以 EsCircuitOpenException 失败。
+ * 需要并行调用多个 es 接口时用 {@link #allOf(List)} / {@link #allOf(Map)} 合并结果：
+ * <pre>
+ * CompletableFuture&lt;EsReturnData&gt; users = esAsyncClient.search(query1, option, "user");
+ * CompletableFuture&lt;EsReturnData&gt; orders = esAsyncClient.search(query2, option, "order");
+ * CompletableFuture.allOf(users, orders).thenRun(...);
+ * </pre>
+ *
+ * @author tjy
+ * @date 2026/10/18
+ **/
+@Slf4j
+@Component
+public class EsAsyncClient {
+
+    /**
+     * 超时计时线程（只负责触发超时，不执行业务回调）
+     */
+    private static final ScheduledExecutorService TIMER = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "es-async-timer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @Autowired
+    @Qualifier("restHighLevelClient")
+    private RestHighLevelClient client;
+
+    /**
+     * bulk 专用客户端（优先发往 data / ingest 节点）
+     */
+    @Autowired
+    @Qualifier("bulkRestHighLevelClient")
+    private RestHighLevelClient bulkClient;
+
+    @Autowired
+    @Qualifier("esCallbackExecutor")
+    private Executor callbackExecutor;
+
+    @Autowired
+    private EsClientUtil esClientUtils;
+
+    @Autowired
+    private EsDocumentSerializer serializer;
+
+    @Autowired
+    private EsIdGenerator idGenerator;
+
+    @Autowired
+    private EsQueryCache queryCache;
+
+    @Autowired
+    private EsAdmissionControl admissionControl;
+
+    @Autowired
+    private EsCircuitBreaker circuitBreaker;
+
+    @Autowired
+    private EsSingleFlight singleFlight;
+
+    @Autowired
+    private EsIdFilter idFilter;
+
+    /***********************************************************************************************
+     ***                                 请   求   级                                           ***
+     ***********************************************************************************************
+     *                                date     :   2026-10-18 14:05:12                             *
+     *                                author  :   tjy                                              *
+     * ------------------------------------------------------------------------------------------- *
+     * Methods:                                                                                    *
+     *      index / get / update / delete / bulk / search -- 直接提交 es 请求                      *
+     * - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - */
+
+    public CompletableFuture<IndexResponse> index(IndexRequest request) {
+        idFilter.add(request);
+        CompletableFuture<IndexResponse> future = execute(EsEndpoint.BULK, EsWorkload.INTERACTIVE,
+                listener -> client.indexAsync(request, RequestOptions.DEFAULT, listener));
+        return future.thenApply(response -> {
+            queryCache.invalidate(response.getIndex());
+            idFilter.added(response);
+            return response;
+        });
+    }
+
+    public CompletableFuture<GetResponse> get(GetRequest request) {
+        CompletableFuture<GetResponse> future = execute(EsEndpoint.GET, EsWorkload.INTERACTIVE,
+                listener -> client.getAsync(request, RequestOptions.DEFAULT, listener));
+        return future;
+    }
+
+    public CompletableFuture<UpdateResponse> update(UpdateRequest request) {
+        idFilter.add(request);
+        CompletableFuture<UpdateResponse> future = execute(EsEndpoint.BULK, EsWorkload.INTERACTIVE,
+                listener -> client.updateAsync(request, RequestOptions.DEFAULT, listener));
+        return future.thenApply(response -> {
+            queryCache.invalidate(response.getIndex());
+            return response;
+        });
+    }
+
+    public CompletableFuture<DeleteResponse> delete(DeleteRequest request) {
+        CompletableFuture<DeleteResponse> future = execute(EsEndpoint.BULK, EsWorkload.INTERACTIVE,
+                listener -> client.deleteAsync(request, RequestOptions.DEFAULT, listener));
+        return future.thenApply(response -> {
+            queryCache.invalidate(response.getIndex());
+            return response;
+        });
+    }
+
+    public CompletableFuture<BulkResponse> bulk(BulkRequest request) {
+        idFilter.add(request);
+        CompletableFuture<BulkResponse> future = execute(EsEndpoint.BULK, EsWorkload.BATCH,
+                listener -> bulkClient.bulkAsync(request, RequestOptions.DEFAULT, listener));
+        return future.thenApply(response -> {
+            queryCache.invalidate(EsClientUtil.indices(request));
+            idFilter.added(response);
+            return response;
+        });
+    }
+
+    public CompletableFuture<SearchResponse> search(SearchRequest request) {
+        CompletableFuture<SearchResponse> future = execute(EsEndpoint.SEARCH, EsWorkload.INTERACTIVE,
+                listener -> client.searchAsync(request, RequestOptions.DEFAULT, listener));
+        return future;
+    }
+
+    /***********************************************************************************************
+     ***                                 文   档   级                                           ***
+     ***********************************************************************************************
+     *                                date     :   2026-10-18 14:05:12                             *
+     *                                author  :   tjy                                              *
+     * ------------------------------------------------------------------------------------------- *
+     * Methods:                                                                                    *
+     *      addDocument / getDocumentToMap / updateDocument / deleteDocument / bulkAddDocument     *
+     *      search -- 与 EsClientUtil 同样的查询选项                                               *
+     * - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - */
+
+    /**
+     * 添加文档
+     *
+     * @param indexName 索引名称
+     * @param sourceObj 要存储的文档资源对象
+     * @param id        文档id（为空时取 @EsId 字段，没有则按 id-generation 策略生成）
+     * @return java.util.concurrent.CompletableFuture 文档id
+     * @author tjy
+     * @date 2026/10/18
+     **/
+    public CompletableFuture<String> addDocument(String indexName, Object sourceObj, String id) {
+        BytesReference source = serializer.serialize(sourceObj);
+        IndexRequest request = new IndexRequest(indexName)
+                .id(StringUtils.isEmpty(id) ? idGenerator.idFor(sourceObj, source) : id)
+                .source(source, serializer.contentType());
+        return index(request).thenApply(IndexResponse::getId);
+    }
+
+    /**
+     * 根据文档id 获得对应数据
+     *
+     * @param indexName 索引名称
+     * @param id        文档id
+     * @return java.util.concurrent.CompletableFuture 文档内容（不存在时为 null）
+     * @author tjy
+     * @date 2026/10/18
+     **/
+    public CompletableFuture<Map<String, Object>> getDocumentToMap(String indexName, String id) {
+        GetRequest request = new GetRequest(indexName, id);
+        return singleFlight.executeAsync(EsSingleFlight.getKey(request), () -> get(request))
+                .thenApply(response -> response.isExists() ? EsSingleFlight.sourceAsMap(response) : null);
+    }
+
+    /**
+     * 修改对应id 文档内容（只修改 obj 中有的字段）
+     *
+     * @param indexName 索引名称
+     * @param id        文档id
+     * @param obj       要改变的对象
+     * @return java.util.concurrent.CompletableFuture
+     * @author tjy
+     * @date 2026/10/18
+     **/
+    public CompletableFuture<UpdateResponse> updateDocument(String indexName, String id, Object obj) {
+        UpdateRequest request = new UpdateRequest(indexName, id);
+        request.doc(BytesReference.toBytes(serializer.serialize(obj)), serializer.contentType());
+        return update(request);
+    }
+
+    /**
+     * 删除对应id的文档
+     *
+     * @param indexName 索引名称
+     * @param id        文档id
+     * @return java.util.concurrent.CompletableFuture
+     * @author tjy
+     * @date 2026/10/18
+     **/
+    public CompletableFuture<DeleteResponse> deleteDocument(String indexName, String id) {
+        return delete(new DeleteRequest(indexName, id));
+    }
+
+    /**
+     * 批量添加文档
+     *
+     * @param indexName 索引名称
+     * @param list      要添加的内容集合
+     * @return java.util.concurrent.CompletableFuture 是否全部成功
+     * @author tjy
+     * @date 2026/10/18
+     **/
+    public CompletableFuture<Boolean> bulkAddDocument(String indexName, List<?> list) {
+        BulkRequest request = new BulkRequest();
+        for (Object obj : list) {
+            BytesReference source = serializer.serialize(obj);
+            request.add(new IndexRequest(indexName).id(idGenerator.idFor(obj, source))
+                    .source(source, serializer.contentType()));
+        }
+        return bulk(request).thenApply(response -> !response.hasFailures());
+    }
+
+    /**
+     * 通用查询（查询选项同 EsClientUtil.search）
+     *
+     * @param query     查询条件
+     * @param option    查询选项（可为空）
+     * @param indexName 多个索引名称 （不填为全部）
+     * @return java.util.concurrent.CompletableFuture
+     * @author tjy
+     * @date 2026/10/18
+     **/
+    public CompletableFuture<EsReturnData> search(QueryBuilder query, EsSearchOption option, String... indexName) {
+        SearchRequest request = new SearchRequest(indexName);
+        request.source(esClientUtils.buildSearchSource(query, option));
+        return singleFlight.executeAsync(EsSingleFlight.searchKey(request), () -> search(request))
+                .thenApply(response -> esClientUtils.toEsReturnData(response, option));
+    }
+
+    /***********************************************************************************************
+     ***                                 组   合                                               ***
+     ***********************************************************************************************
+     *                                date     :   2026-10-18 14:05:12                             *
+     *                                author  :   tjy                                              *
+     * ------------------------------------------------------------------------------------------- *
+     * Methods:                                                                                    *
+     *      allOf -- 等待全部完成并按顺序 / key 收集结果（任意一个失败则整体失败）                 *
+     *      withTimeout -- 超时未完成时以 TimeoutException 失败                                     *
+     * - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - */
+
+    /**
+     * 等待全部完成，结果按传入顺序返回
+     *
+     * @param futures 多个异步调用
+     * @return java.util.concurrent.CompletableFuture
+     * @author tjy
+     * @date 2026/10/18
+     **/
+    public static <T> CompletableFuture<List<T>> allOf(List<CompletableFuture<T>> futures) {
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]))
+                .thenApply(v -> {
+                    List<T> results = new ArrayList<>(futures.size());
+                    for (CompletableFuture<T> future : futures) {
+                        results.add(future.join());
+                    }
+                    return results;
+                });
+    }
+
+    /**
+     * 等待全部完成，结果按 key 返回
+     *
+     * @param futures key -> 异步调用
+     * @return java.util.concurrent.CompletableFuture
+     * @author tjy
+     * @date 2026/10/18
+     **/
+    public static <K, V> CompletableFuture<Map<K, V>> allOf(Map<K, CompletableFuture<V>> futures) {
+        return CompletableFuture.allOf(futures.values().toArray(new CompletableFuture[0]))
+                .thenApply(v -> {
+                    Map<K, V> results = new LinkedHashMap<>(futures.size() * 2);
+                    for (Map.Entry<K, CompletableFuture<V>> entry : futures.entrySet()) {
+                        results.put(entry.getKey(), entry.getValue().join());
+                    }
+                    return results;
+                });
+    }
+
+    /**
+     * 超时未完成时以 TimeoutException 失败（es 请求本身不会被取消）
+     *
+     * @param future  异步调用
+     * @param timeout 超时时间
+     * @param unit    时间单位
+     * @return java.util.concurrent.CompletableFuture
+     * @author tjy
+     * @date 2026/10/18
+     **/
+    public static <T> CompletableFuture<T> withTimeout(CompletableFuture<T> future, long timeout, TimeUnit unit) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        ScheduledFuture<?> timer = TIMER.schedule(() -> result.completeExceptionally(
+                new TimeoutException("es 请求超时 [" + timeout + " " + unit + "]")), timeout, unit);
+        future.whenComplete((value, e) -> {
+            timer.cancel(false);
+            if (e != null) {
+                result.completeExceptionally(e);
+            } else {
+                result.complete(value);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * 熔断检查、获取并发许可（不等待，熔断或没有许可时直接返回失败的 future）后提交请求，响应后归还许可并记录结果
+     */
+    private <T> CompletableFuture<T> execute(EsEndpoint endpoint, EsWorkload workload,
+                                             Consumer<ActionListener<T>> submit) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        EsCircuitBreaker.Attempt attempt;
+        EsAdmissionControl.Permit permit;
+        try {
+            attempt = circuitBreaker.acquire(endpoint);
+        } catch (RejectedExecutionException e) {
+            future.completeExceptionally(e);
+            return future;
+        }
+        try {
+            permit = admissionControl.tryAcquire(workload);
+        } catch (RejectedExecutionException e) {
+            attempt.complete(null, e);
+            future.completeExceptionally(e);
+            return future;
+        }
+        try {
+            submit.accept(listener(future, permit, attempt));
+        } catch (RuntimeException e) {
+            permit.close();
+            attempt.complete(null, e);
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
+    /**
+     * es 回调转为 future，在回调线程池上完成
+     */
+    private <T> ActionListener<T> listener(CompletableFuture<T> future, EsAdmissionControl.Permit permit,
+                                           EsCircuitBreaker.Attempt attempt) {
+        return new ActionListener<T>() {
+            @Override
+            public void onResponse(T response) {
+                permit.close();
+                attempt.complete(response, null);
+                complete(() -> future.complete(response));
+            }
+
+            @Override
+            public void onFailure(Exception e) {
+                permit.close();
+                attempt.complete(null, e);
+                complete(() -> future.completeExceptionally(e));
+            }
+        };
+    }
+
+    private void complete(Runnable runnable) {
+        try {
+            callbackExecutor.execute(runnable);
+        } catch (RejectedExecutionException e) {
+            // 线程池已关闭，直接在当前线程完成，避免调用方永远等待
+            runnable.run();
+        }
+    }
+}
@@ -0,0 +1,249 @@
+package com.qingjiu.myes.config.elasticsearch;
+
+import com.qingjiu.myes.entity.es.ElasticSearchEntity;
+import lombok.extern.slf4j.Slf4j;
+import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.action.bulk.BackoffPolicy;
+import org.elasticsearch.action.bulk.BulkItemResponse;
+import org.elasticsearch.action.bulk.BulkProcessor;
+import org.elasticsearch.action.bulk.BulkRequest;
+import org.elasticsearch.action.bulk.BulkResponse;
+import org.elasticsearch.action.index.IndexRequest;
+import org.elasticsearch.client.RequestOptions;
+import org.elasticsearch.client.RestHighLevelClient;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.unit.ByteSizeUnit;
+import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.common.unit.TimeValue;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 流式批量写入组件（基于 BulkProcessor）
+ * <p>
+ * 文档逐条 add 进来，按 条数 / 大小 / 时间间隔 自动切分成多个 bulk 提交，
+ * 大批量导入时内存占用保持平稳，不会像 bulkAddDocument 一样一次性把整个集合放进一个 BulkRequest。
+ *
+ * @author tjy
+ * @date 2026/10/18
+ **/
+@Slf4j
+@Component
+public class EsBulkIndexer {
+
+    @Autowired
+    @Qualifier("bulkRestHighLevelClient")
+    private RestHighLevelClient client;
+
+    @Autowired
+    private ElasticSearchEntity elasticSearchEntity;
+
+    @Autowired
+    private EsDocumentSerializer serializer;
+
+    @Autowired
+    private EsIdGenerator idGenerator;
+
+    @Autowired
+    private EsQueryCache queryCache;
+
+    @Autowired
+    private EsAdmissionControl admissionControl;
+
+    @Autowired
+    private EsIdFilter idFilter;
+
+    private BulkProcessor processor;
+
+    /**
+     * 获取 BATCH 并发许可的线程
+     */
+    private final ExecutorService admissionExecutor = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "es-bulk-indexer-admission");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private volatile boolean closed = false;
+
+    private volatile boolean admissionStopped = false;
+
+    /**
+     * 已提交 / 成功 / 失败 的文档数量统计
+     */
+    private final AtomicLong submitted = new AtomicLong();
+    private final AtomicLong succeeded = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+
+    @PostConstruct
+    public void init() {
+        ElasticSearchEntity.Bulk conf = elasticSearchEntity.getBulk();
+        processor = BulkProcessor.builder(
+                // 许可在单独的线程上获取，不阻塞 BulkProcessor 的 flush 线程
+                (request, bulkListener) -> admissionExecutor.execute(() -> submit(request, bulkListener)),
+                new BulkProcessor.Listener() {
+                    @Override
+                    public void beforeBulk(long executionId, BulkRequest request) {
+                        log.debug("bulk [{}] 开始提交 ==> [{}] 条", executionId, request.numberOfActions());
+                        idFilter.add(request);
+                    }
+
+                    @Override
+                    public void afterBulk(long executionId, BulkRequest request, BulkResponse response) {
+                        int failures = 0;
+                        if (response.hasFailures()) {
+                            for (BulkItemResponse item : response.getItems()) {
+                                if (item.isFailed()) {
+                                    failures++;
+                                    log.error("bulk [{}] 文档写入失败 [{}/{}] ==> [{}]", executionId,
+                                            item.getIndex(), item.getId(), item.getFailureMessage());
+                                }
+                            }
+                        }
+                        queryCache.invalidate(EsClientUtil.indices(request));
+                        idFilter.added(response);
+                        succeeded.addAndGet(request.numberOfActions() - failures);
+                        failed.addAndGet(failures);
+                        log.debug("bulk [{}] 提交完成 ==> 耗时 [{}]", executionId, response.getTook());
+                    }
+
+                    @Override
+                    public void afterBulk(long executionId, BulkRequest request, Throwable failure) {
+                        failed.addAndGet(request.numberOfActions());
+                        log.error("bulk [" + executionId + "] 提交失败", failure);
+                    }
+                })
+                .setBulkActions(conf.getActions())
+                .setBulkSize(new ByteSizeValue(conf.getSizeMb(), ByteSizeUnit.MB))
+                .setFlushInterval(TimeValue.timeValueSeconds(conf.getFlushIntervalSeconds()))
+                .setConcurrentRequests(conf.getConcurrentRequests())
+                .setBackoffPolicy(BackoffPolicy.exponentialBackoff(
+                        TimeValue.timeValueMillis(conf.getInitialBackoffMillis()), conf.getMaxRetries()))
+                .build();
+        log.info("EsBulkIndexer 启动 ==> actions [{}] sizeMb [{}] flushInterval [{}s] concurrentRequests [{}]",
+                conf.getActions(), conf.getSizeMb(), conf.getFlushIntervalSeconds(), conf.getConcurrentRequests());
+    }
+
+    /**
+     * 与其他批量任务共用 BATCH 并发许可，响应后归还；
+     * 许可被拒绝（排队已满或等待超时）时退避后重试，整个 bulk 不会因为并发限制被丢弃
+     */
+    private void submit(BulkRequest request, ActionListener<BulkResponse> bulkListener) {
+        long backoff = elasticSearchEntity.getBulk().getInitialBackoffMillis();
+        EsAdmissionControl.Permit permit;
+        while (true) {
+            if (admissionStopped) {
+                bulkListener.onFailure(new RejectedExecutionException("EsBulkIndexer 已关闭，bulk 未获得并发许可"));
+                return;
+            }
+            try {
+                permit = admissionControl.acquire(EsWorkload.BATCH);
+                break;
+            } catch (RejectedExecutionException e) {
+                log.warn("bulk 获取并发许可被拒绝，{}ms 后重试 ==> [{}] 条", backoff, request.numberOfActions());
+            }
+            try {
+                Thread.sleep(backoff);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                bulkListener.onFailure(new RejectedExecutionException("bulk 等待并发许可时被中断", e));
+                return;
+            }
+            backoff = Math.min(backoff * 2, elasticSearchEntity.getBulk().getMaxBackoffMillis());
+        }
+        EsAdmissionControl.Permit acquired = permit;
+        try {
+            client.bulkAsync(request, RequestOptions.DEFAULT, ActionListener.wrap(
+                    response -> {
+                        acquired.close();
+                        bulkListener.onResponse(response);
+                    },
+                    e -> {
+                        acquired.close();
+                        bulkListener.onFailure(e);
+                    }));
+        } catch (RuntimeException e) {
+            acquired.close();
+            bulkListener.onFailure(e);
+        }
+    }
+
+    /**
+     * 添加一条文档，满足条件后自动提交
+     *
+     * @param indexName 索引名称
+     * @param id        文档id（不填时取 @EsId 字段，没有则按 id-generation 策略生成）
+     * @param obj       要存储的文档资源对象
+     * @author tjy
+     * @date 2026/10/18
+     **/
+    public void add(String indexName, String id, Object obj) {
+        BytesReference source = serializer.serialize(obj);
+        IndexRequest request = new IndexRequest(indexName)
+                .id(StringUtils.isEmpty(id) ? idGenerator.idFor(obj, source) : id)
+                .source(source, serializer.contentType());
+        processor.add(request);
+        submitted.incrementAndGet();
+    }
+
+    /**
+     * 立即提交当前缓冲区内的文档
+     *
+     * @author tjy
+     * @date 2026/10/18
+     **/
+    public void flush() {
+        processor.flush();
+    }
+
+    /**
+     * 提交剩余文档并关闭，等待在途的 bulk 完成（关闭后不能再 add）
+     *
+     * @param timeout 等待时间
+     * @param unit    时间单位
+     * @return boolean 是否在超时前全部完成
+     * @author tjy
+     * @date 2026/10/18
+     **/
+    public boolean awaitClose(long timeout, TimeUnit unit) throws InterruptedException {
+        closed = true;
+        boolean done = processor.awaitClose(timeout, unit);
+        // 仍在等待许可的 bulk 不再提交，通过 onFailure 计入失败统计
+        admissionStopped = true;
+        for (Runnable pending : admissionExecutor.shutdownNow()) {
+            pending.run();
+        }
+        return done;
+    }
+
+    @PreDestroy
+    public void destroy() throws InterruptedException {
+        if (!closed) {
+            boolean done = awaitClose(elasticSearchEntity.getBulk().getCloseTimeoutSeconds(), TimeUnit.SECONDS);
+            log.info("EsBulkIndexer 关闭 ==> 是否完成 [{}] 提交 [{}] 成功 [{}] 失败 [{}]",
+                    done, submitted.get(), succeeded.get(), failed.get());
+        }
+    }
+
+    public long getSubmitted() {
+        return submitted.get();
+    }
+
+    public long getSucceeded() {
+        return succeeded.get();
+    }
+
+    public long getFailed() {
+        return failed.get();
+    }
+}
@@ -0,0 +1,128 @@
+package com.qingjiu.myes.config.elasticsearch;
+
+import lombok.extern.slf4j.Slf4j;
+import org.elasticsearch.action.admin.cluster.health.ClusterHealthRequest;
+import org.elasticsearch.action.admin.cluster.health.ClusterHealthResponse;
+import org.elasticsearch.action.admin.indices.refresh.RefreshRequest;
+import org.elasticsearch.action.admin.indices.settings.get.GetSettingsRequest;
+import org.elasticsearch.action.admin.indices.settings.get.GetSettingsResponse;
+import org.elasticsearch.action.admin.indices.settings.put.UpdateSettingsRequest;
+import org.elasticsearch.client.RequestOptions;
+import org.elasticsearch.client.RestHighLevelClient;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.unit.TimeValue;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 大批量导入会话
+ * <p>
+ * 开始时记录索引原有的 refresh_interval / number_of_replicas，并设置为 -1 / 0（关闭刷新和副本复制）；
+ * close 时恢复原有配置，强制 refresh 并等待索引变为 green。配合 try-with-resources 使用，导入失败也会恢复：
+ * <pre>
+ * try (EsBulkLoadSession session = esClientUtil.beginBulkLoad("name3")) {
+ *     ... 导入数据 ...
+ * }
+ * </pre>
+ * 这两个配置都是动态配置，不需要先关闭索引。
+ *
+ * @author tjy
+ * @date 2026/10/18
+ **/
+@Slf4j
+public class EsBulkLoadSession implements Closeable {
+
+    static final String REFRESH_INTERVAL = "index.refresh_interval";
+    static final String NUMBER_OF_REPLICAS = "index.number_of_replicas";
+
+    private final RestHighLevelClient client;
+
+    private final EsQueryCache queryCache;
+
+    private final String indexName;
+
+    private final TimeValue healthTimeout;
+
+    /**
+     * 导入前的配置（value 为 null 表示原来没有显式设置，恢复时重置为默认值）
+     */
+    private final Map<String, String> original = new LinkedHashMap<>();
+
+    private boolean closed = false;
+
+    EsBulkLoadSession(RestHighLevelClient client, EsQueryCache queryCache, String indexName, TimeValue healthTimeout) {
+        this.client = client;
+        this.queryCache = queryCache;
+        this.indexName = indexName;
+        this.healthTimeout = healthTimeout;
+    }
+
+    /**
+     * 记录原配置并关闭刷新、副本
+     */
+    void start() throws IOException {
+        GetSettingsRequest getRequest = new GetSettingsRequest()
+                .indices(indexName)
+                .names(REFRESH_INTERVAL, NUMBER_OF_REPLICAS);
+        GetSettingsResponse response = client.indices().getSettings(getRequest, RequestOptions.DEFAULT);
+        original.put(REFRESH_INTERVAL, response.getSetting(indexName, REFRESH_INTERVAL));
+        original.put(NUMBER_OF_REPLICAS, response.getSetting(indexName, NUMBER_OF_REPLICAS));
+
+        UpdateSettingsRequest request = new UpdateSettingsRequest(indexName);
+        request.settings(Settings.builder()
+                .put(REFRESH_INTERVAL, "-1")
+                .put(NUMBER_OF_REPLICAS, 0));
+        client.indices().putSettings(request, RequestOptions.DEFAULT);
+        log.info("索引 [{}] 进入批量导入模式 ==> 原配置 [{}]", indexName, original);
+    }
+
+    /**
+     * 恢复原配置、强制 refresh 并等待索引 green
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+
+        Settings.Builder settings = Settings.builder();
+        for (Map.Entry<String, String> entry : original.entrySet()) {
+            if (entry.getValue() == null) {
+                settings.putNull(entry.getKey());
+            } else {
+                settings.put(entry.getKey(), entry.getValue());
+            }
+        }
+        UpdateSettingsRequest request = new UpdateSettingsRequest(indexName);
+        request.settings(settings);
+        client.indices().putSettings(request, RequestOptions.DEFAULT);
+        // 配置恢复成功后才算关闭，失败时可以再次调用 close 重试
+        closed = true;
+
+        client.indices().refresh(new RefreshRequest(indexName), RequestOptions.DEFAULT);
+        // 导入期间 refresh 关闭，写入后失效的缓存可能又被旧数据填上，refresh 后再清一次
+        queryCache.invalidate(indexName);
+
+        ClusterHealthRequest healthRequest = new ClusterHealthRequest(indexName)
+                .waitForGreenStatus()
+                .timeout(healthTimeout);
+        ClusterHealthResponse health = client.cluster().health(healthRequest, RequestOptions.DEFAULT);
+        if (health.isTimedOut()) {
+            log.warn("索引 [{}] 已恢复配置，但在 [{}] 内未变为 green ==> 当前 [{}]", indexName, healthTimeout, health.getStatus());
+        } else {
+            log.info("索引 [{}] 退出批量导入模式 ==> 状态 [{}]", indexName, health.getStatus());
+        }
+    }
+
+    public String getIndexName() {
+        return indexName;
+    }
+
+    public Map<String, String> getOriginalSettings() {
+        return Collections.unmodifiableMap(original);
+    }
+}
@@ -0,0 +1,349 @@
+package com.qingjiu.myes.config.elasticsearch;
+
+import com.qingjiu.myes.entity.es.ElasticSearchEntity;
+import lombok.extern.slf4j.Slf4j;
+import org.elasticsearch.ElasticsearchException;
+import org.elasticsearch.action.bulk.BulkItemResponse;
+import org.elasticsearch.action.bulk.BulkResponse;
+import org.elasticsearch.client.ResponseException;
+import org.elasticsearch.rest.RestStatus;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.io.IOException;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 客户端熔断
+ * <p>
+ * 集群过载（429 / 502 / 503 / 504、超时、连接失败）时，各个调用方各自重试只会让过载更严重。
+ * 按请求类型（EsEndpoint）统计最近 N 次请求的失败率，超过阈值后熔断打开：
+ * 请求不再发送，直接抛出 EsCircuitOpenException（查询可以退回到过期的本地缓存）；
+ * 打开 openMillis 后进入半开状态，放行少量探测请求，全部成功则关闭，任一失败则重新打开。
+ * <p>
+ * 404、400 等业务错误说明集群能正常响应，不算失败。
+ *
+ * @author tjy
+ * @date 2026/10/18
+ **/
+@Slf4j
+@Component
+public class EsCircuitBreaker {
+
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    @Autowired
+    private ElasticSearchEntity elasticSearchEntity;
+
+    private final Map<EsEndpoint, Breaker> breakers = new EnumMap<>(EsEndpoint.class);
+
+    public EsCircuitBreaker() {
+    }
+
+    /**
+     * 不依赖 Spring 直接创建
+     */
+    EsCircuitBreaker(ElasticSearchEntity elasticSearchEntity) {
+        this.elasticSearchEntity = elasticSearchEntity;
+        init();
+    }
+
+    @PostConstruct
+    public void init() {
+        ElasticSearchEntity.Breaker conf = elasticSearchEntity.getBreaker();
+        for (EsEndpoint endpoint : EsEndpoint.values()) {
+            breakers.put(endpoint, new Breaker(endpoint, conf));
+        }
+        log.info("es 熔断 ==> enabled={}, window={}, minimumCalls={}, failureRate={}%, open={}ms, halfOpenProbes={}",
+                conf.isEnabled(), conf.getWindowSize(), conf.getMinimumCalls(), conf.getFailureRatePercent(),
+                conf.getOpenMillis(), conf.getHalfOpenProbes());
+    }
+
+    /**
+     * 熔断保护下执行（熔断打开时不执行）
+     *
+     * @param endpoint 请求类型
+     * @param call     es 调用
+     * @return T 调用结果
+     * @throws EsCircuitOpenException 熔断打开
+     */
+    public <T> T call(EsEndpoint endpoint, EsAdmissionControl.Call<T> call) throws IOException {
+        Attempt attempt = acquire(endpoint);
+        T result;
+        try {
+            result = call.call();
+        } catch (Throwable e) {
+            // 包括 Error：必须结束本次请求，否则半开状态的探测名额不会归还，熔断一直停在半开
+            attempt.complete(null, e);
+            throw e;
+        }
+        attempt.complete(result, null);
+        return result;
+    }
+
+    /**
+     * 申请发送一次请求（异步调用使用，响应后必须调用 Attempt.complete）
+     *
+     * @param endpoint 请求类型
+     * @return com.qingjiu.myes.config.elasticsearch.EsCircuitBreaker.Attempt
+     * @throws EsCircuitOpenException 熔断打开
+     */
+    public Attempt acquire(EsEndpoint endpoint) {
+        Breaker breaker = breakers.get(endpoint);
+        if (!elasticSearchEntity.getBreaker().isEnabled()) {
+            return new Attempt(breaker, false, false);
+        }
+        return new Attempt(breaker, true, breaker.acquire());
+    }
+
+    /**
+     * 是否为集群过载 / 不可用导致的失败
+     *
+     * @param e 异常
+     * @return boolean
+     */
+    public static boolean isFailure(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof EsCircuitOpenException) {
+                return false;
+            }
+            if (cause instanceof ElasticsearchException) {
+                return isOverloaded(((ElasticsearchException) cause).status());
+            }
+            if (cause instanceof ResponseException) {
+                int code = ((ResponseException) cause).getResponse().getStatusLine().getStatusCode();
+                return isOverloaded(RestStatus.fromCode(code));
+            }
+            if (cause instanceof IOException) {
+                // 超时、连接失败等
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * bulk 整体成功但有条目被拒绝（es_rejected_execution_exception）也算失败
+     */
+    private static boolean isRejected(Object response) {
+        if (!(response instanceof BulkResponse) || !((BulkResponse) response).hasFailures()) {
+            return false;
+        }
+        for (BulkItemResponse item : (BulkResponse) response) {
+            if (item.isFailed() && item.status() == RestStatus.TOO_MANY_REQUESTS) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isOverloaded(RestStatus status) {
+        return status == RestStatus.TOO_MANY_REQUESTS || status == RestStatus.BAD_GATEWAY
+                || status == RestStatus.SERVICE_UNAVAILABLE || status == RestStatus.GATEWAY_TIMEOUT;
+    }
+
+    public State getState(EsEndpoint endpoint) {
+        return breakers.get(endpoint).state();
+    }
+
+    /**
+     * 熔断打开的次数
+     */
+    public long getOpened(EsEndpoint endpoint) {
+        return breakers.get(endpoint).opened.get();
+    }
+
+    /**
+     * 因熔断直接失败的请求数
+     */
+    public long getRejected(EsEndpoint endpoint) {
+        return breakers.get(endpoint).rejected.get();
+    }
+
+    /**
+     * 手动关闭熔断（集群恢复后不想等半开探测时使用）
+     */
+    public void reset(EsEndpoint endpoint) {
+        breakers.get(endpoint).close();
+    }
+
+    @Override
+    public String toString() {
+        return "EsCircuitBreaker" + breakers.values();
+    }
+
+    /**
+     * 一次请求（记录结果用）
+     */
+    public static class Attempt {
+
+        private final Breaker breaker;
+
+        private final boolean enabled;
+
+        private final boolean probe;
+
+        private boolean completed;
+
+        Attempt(Breaker breaker, boolean enabled, boolean probe) {
+            this.breaker = breaker;
+            this.enabled = enabled;
+            this.probe = probe;
+        }
+
+        /**
+         * 记录请求结果（重复调用只记录一次）
+         *
+         * @param response 响应（失败时为空）
+         * @param error    异常（成功时为空）
+         */
+        public synchronized void complete(Object response, Throwable error) {
+            if (completed || !enabled) {
+                return;
+            }
+            completed = true;
+            if (error instanceof RejectedExecutionException || error instanceof Error) {
+                // 被本地并发限制拒绝（请求没有发到 es），或本地 Error（与集群状态无关），不统计
+                breaker.release(probe);
+                return;
+            }
+            boolean failure = error != null ? isFailure(error) : isRejected(response);
+            breaker.record(probe, !failure);
+        }
+    }
+
+    /**
+     * 单个请求类型的熔断状态
+     */
+    private static class Breaker {
+
+        private final EsEndpoint endpoint;
+
+        private final ElasticSearchEntity.Breaker conf;
+
+        /**
+         * 最近 N 次请求是否失败（环形）
+         */
+        private final boolean[] window;
+
+        private int next;
+
+        private int count;
+
+        private int failures;
+
+        private State state = State.CLOSED;
+
+        private long openUntil;
+
+        private int probesInFlight;
+
+        private int probeSuccesses;
+
+        private final AtomicLong opened = new AtomicLong();
+
+        private final AtomicLong rejected = new AtomicLong();
+
+        Breaker(EsEndpoint endpoint, ElasticSearchEntity.Breaker conf) {
+            this.endpoint = endpoint;
+            this.conf = conf;
+            this.window = new boolean[Math.max(conf.getWindowSize(), 1)];
+        }
+
+        /**
+         * @return 是否为半开状态下的探测请求
+         */
+        synchronized boolean acquire() {
+            if (state == State.OPEN) {
+                long now = System.currentTimeMillis();
+                if (now < openUntil) {
+                    throw reject(openUntil - now);
+                }
+                state = State.HALF_OPEN;
+                probesInFlight = 0;
+                probeSuccesses = 0;
+                log.info("es [{}] 熔断半开，开始探测", endpoint);
+            }
+            if (state == State.HALF_OPEN) {
+                if (probesInFlight >= conf.getHalfOpenProbes()) {
+                    throw reject(0);
+                }
+                probesInFlight++;
+                return true;
+            }
+            return false;
+        }
+
+        synchronized void record(boolean probe, boolean success) {
+            if (probe) {
+                if (state != State.HALF_OPEN) {
+                    return;
+                }
+                if (!success) {
+                    open("探测失败");
+                } else if (++probeSuccesses >= conf.getHalfOpenProbes()) {
+                    close();
+                    log.info("es [{}] 熔断关闭", endpoint);
+                }
+                return;
+            }
+            if (state != State.CLOSED) {
+                // 熔断前发出的请求，结果不再统计
+                return;
+            }
+            if (count == window.length && window[next]) {
+                failures--;
+            }
+            window[next] = !success;
+            if (!success) {
+                failures++;
+            }
+            next = (next + 1) % window.length;
+            count = Math.min(count + 1, window.length);
+            if (count >= conf.getMinimumCalls() && failures * 100.0 / count >= conf.getFailureRatePercent()) {
+                open("失败率 " + failures + "/" + count);
+            }
+        }
+
+        synchronized void release(boolean probe) {
+            if (probe && state == State.HALF_OPEN) {
+                probesInFlight--;
+            }
+        }
+
+        private void open(String reason) {
+            state = State.OPEN;
+            openUntil = System.currentTimeMillis() + conf.getOpenMillis();
+            opened.incrementAndGet();
+            log.warn("es [{}] 熔断打开 ==> {}，{}ms 后半开探测", endpoint, reason, conf.getOpenMillis());
+        }
+
+        synchronized void close() {
+            state = State.CLOSED;
+            next = 0;
+            count = 0;
+            failures = 0;
+        }
+
+        synchronized State state() {
+            return state;
+        }
+
+        private EsCircuitOpenException reject(long retryAfterMillis) {
+            rejected.incrementAndGet();
+            return new EsCircuitOpenException(endpoint, retryAfterMillis);
+        }
+
+        @Override
+        public synchronized String toString() {
+            return endpoint + "[" + state + ", failures=" + failures + "/" + count + ", opened=" + opened
+                    + ", rejected=" + rejected + "]";
+        }
+    }
+}
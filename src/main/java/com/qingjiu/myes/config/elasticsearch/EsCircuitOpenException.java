@@ -0,0 +1,35 @@
+package com.qingjiu.myes.config.elasticsearch;
+
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * 熔断打开，请求未发送直接失败
+ * <p>
+ * 继承 RejectedExecutionException，与并发限制的拒绝一样可以统一按“请求被拒绝”处理。
+ *
+ * @author tjy
+ * @date 2026/10/18
+ **/
+public class EsCircuitOpenException extends RejectedExecutionException {
+
+    private final EsEndpoint endpoint;
+
+    private final long retryAfterMillis;
+
+    public EsCircuitOpenException(EsEndpoint endpoint, long retryAfterMillis) {
+        super("es [" + endpoint + "] 熔断中，" + retryAfterMillis + "ms 后重试");
+        this.endpoint = endpoint;
+        this.retryAfterMillis = retryAfterMillis;
+    }
+
+    public EsEndpoint getEndpoint() {
+        return endpoint;
+    }
+
+    /**
+     * 距离下一次半开探测的时间（毫秒）
+     */
+    public long getRetryAfterMillis() {
+        return retryAfterMillis;
+    }
+}
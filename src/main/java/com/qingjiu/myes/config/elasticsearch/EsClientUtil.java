@@ -1,22 +1,34 @@
 package com.qingjiu.myes.config.elasticsearch;
 
-import com.alibaba.fastjson.JSON;
+import com.qingjiu.myes.entity.es.ElasticSearchEntity;
+import com.qingjiu.myes.entity.es.EsBulkItem;
+import com.qingjiu.myes.entity.es.EsBulkResult;
 import com.qingjiu.myes.entity.es.EsData;
 import com.qingjiu.myes.entity.es.EsReturnData;
+import com.qingjiu.myes.entity.es.EsSearchOption;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.lucene.search.TotalHits;
+import com.alibaba.fastjson.JSON;
+import com.alibaba.fastjson.JSONArray;
 import org.elasticsearch.ElasticsearchException;
+import org.elasticsearch.ElasticsearchStatusException;
+import org.elasticsearch.action.DocWriteRequest;
 import org.elasticsearch.action.DocWriteResponse;
+import org.elasticsearch.action.admin.indices.alias.get.GetAliasesRequest;
 import org.elasticsearch.action.admin.indices.delete.DeleteIndexRequest;
 import org.elasticsearch.action.admin.indices.open.OpenIndexRequest;
 import org.elasticsearch.action.admin.indices.open.OpenIndexResponse;
 import org.elasticsearch.action.admin.indices.settings.put.UpdateSettingsRequest;
+import org.elasticsearch.action.bulk.BulkItemResponse;
 import org.elasticsearch.action.bulk.BulkRequest;
 import org.elasticsearch.action.bulk.BulkResponse;
 import org.elasticsearch.action.delete.DeleteRequest;
 import org.elasticsearch.action.delete.DeleteResponse;
 import org.elasticsearch.action.get.GetRequest;
 import org.elasticsearch.action.get.GetResponse;
+import org.elasticsearch.action.get.MultiGetItemResponse;
+import org.elasticsearch.action.get.MultiGetRequest;
+import org.elasticsearch.action.get.MultiGetResponse;
 import org.elasticsearch.action.index.IndexRequest;
 import org.elasticsearch.action.index.IndexResponse;
 import org.elasticsearch.action.search.SearchRequest;
@@ -24,29 +36,60 @@ import org.elasticsearch.action.search.SearchResponse;
 import org.elasticsearch.action.support.master.AcknowledgedResponse;
 import org.elasticsearch.action.update.UpdateRequest;
 import org.elasticsearch.action.update.UpdateResponse;
+import org.elasticsearch.client.GetAliasesResponse;
 import org.elasticsearch.client.RequestOptions;
 import org.elasticsearch.client.RestHighLevelClient;
 import org.elasticsearch.client.indices.*;
 import org.elasticsearch.common.settings.Settings;
-import org.elasticsearch.common.xcontent.XContentType;
+import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.regex.Regex;
+import org.elasticsearch.common.xcontent.XContentHelper;
 import org.elasticsearch.index.query.Operator;
+import org.elasticsearch.index.query.QueryBuilder;
 import org.elasticsearch.index.query.QueryBuilders;
 import org.elasticsearch.index.query.RangeQueryBuilder;
 import org.elasticsearch.index.query.TermQueryBuilder;
 import org.elasticsearch.rest.RestStatus;
+import org.elasticsearch.script.Script;
+import org.elasticsearch.script.ScriptType;
 import org.elasticsearch.search.SearchHit;
 import org.elasticsearch.search.SearchHits;
 import org.elasticsearch.search.builder.SearchSourceBuilder;
+import org.elasticsearch.search.fetch.subphase.FetchSourceContext;
 import org.elasticsearch.search.sort.SortOrder;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Component;
+import org.springframework.util.ObjectUtils;
 import org.springframework.util.StringUtils;
 
+import javax.annotation.PostConstruct;
 import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.UnaryOperator;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * ElasticSearch [Java-Rest-Client-High-Level] Util
@@ -55,13 +98,65 @@ import java.util.Map;
  * @date 2020/7/13
  **/
 @Slf4j
-@Component
+@Component("esClientUtils")
 public class EsClientUtil {
 
     @Autowired
     @Qualifier("restHighLevelClient")
     private RestHighLevelClient client;
 
+    /**
+     * bulk 专用客户端（优先发往 data / ingest 节点）
+     */
+    @Autowired
+    @Qualifier("bulkRestHighLevelClient")
+    private RestHighLevelClient bulkClient;
+
+    @Autowired
+    private ElasticSearchEntity elasticSearchEntity;
+
+    @Autowired
+    private EsDocumentSerializer serializer;
+
+    @Autowired
+    private EsIdGenerator idGenerator;
+
+    @Autowired
+    private EsSearchBatcher searchBatcher;
+
+    @Autowired
+    private EsQueryCache queryCache;
+
+    @Autowired
+    private EsAdmissionControl admissionControl;
+
+    @Autowired
+    private EsHedgedSearch hedgedSearch;
+
+    @Autowired
+    private EsCircuitBreaker circuitBreaker;
+
+    @Autowired
+    private EsSingleFlight singleFlight;
+
+    @Autowired
+    private EsGetBatcher getBatcher;
+
+    @Autowired
+    private EsIdFilter idFilter;
+
+    @Autowired
+    private EsWriteJournal journal;
+
+    /**
+     * await 的最长等待时间（毫秒）
+     */
+    private static volatile long awaitTimeoutMillis = 120000L;
+
+    @PostConstruct
+    public void init() {
+        awaitTimeoutMillis = elasticSearchEntity.getHttp().getAwaitTimeoutMillis();
+    }
 
     /***********************************************************************************************
      ***                                 操 作 索 引 方 法                                        ***
@@ -76,6 +171,7 @@ public class EsClientUtil {
      *   deleteIndex                                                                               *
      *   existsIndex                                                                               *
      *   updateIndexSettings                                                                       *
+     *   beginBulkLoad                                                                             *
      * - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - */
 
 
@@ -97,6 +193,8 @@ public class EsClientUtil {
         // 设置索引mapping类型映射
         // request.mapping(json, XContentType.JSON);
         CreateIndexResponse response = client.indices().create(request, RequestOptions.DEFAULT);
+        // 新建的索引为空，清除同名旧索引留下的 id
+        idFilter.clear(indexName);
         // 是否在超时之前为索引中的每个碎片启动了所需数量的碎片副本。
         // boolean shardsAcknowledged = response.isShardsAcknowledged();
         // 已确认请求。
@@ -115,6 +213,7 @@ public class EsClientUtil {
     public boolean closeIndex(String indexName) throws IOException {
         CloseIndexRequest request = new CloseIndexRequest(indexName);
         AcknowledgedResponse closeIndexResponse = client.indices().close(request, RequestOptions.DEFAULT);
+        queryCache.invalidate(indexName);
         return closeIndexResponse.isAcknowledged();
     }
 
@@ -129,6 +228,7 @@ public class EsClientUtil {
     public boolean openIndex(String indexName) throws IOException {
         OpenIndexRequest request = new OpenIndexRequest(indexName);
         OpenIndexResponse response = client.indices().open(request, RequestOptions.DEFAULT);
+        queryCache.invalidate(indexName);
         return response.isAcknowledged();
     }
 
@@ -150,6 +250,22 @@ public class EsClientUtil {
         return updateSettingsResponse.isAcknowledged();
     }
 
+    /**
+     * 开始大批量导入：关闭索引刷新（refresh_interval=-1）和副本（number_of_replicas=0），
+     * 返回的会话 close 时恢复原配置、强制 refresh 并等待索引 green（请使用 try-with-resources，导入失败也会恢复）
+     *
+     * @param indexName 索引名称（必须是具体的索引名，不能是别名或通配符）
+     * @return com.qingjiu.myes.config.elasticsearch.EsBulkLoadSession
+     * @author tjy
+     * @date 2026/10/18
+     **/
+    public EsBulkLoadSession beginBulkLoad(String indexName) throws IOException {
+        EsBulkLoadSession session = new EsBulkLoadSession(client, queryCache, indexName,
+                TimeValue.timeValueSeconds(elasticSearchEntity.getBulk().getLoadHealthTimeoutSeconds()));
+        session.start();
+        return session;
+    }
+
     /**
      * 删除索引 （慎用）
      *
@@ -163,6 +279,8 @@ public class EsClientUtil {
             // 创建删除索引请求
             DeleteIndexRequest request = new DeleteIndexRequest(indexName);
             AcknowledgedResponse deleteIndexResponse = client.indices().delete(request, RequestOptions.DEFAULT);
+            queryCache.invalidate(indexName);
+            idFilter.clear(indexName);
             return deleteIndexResponse.isAcknowledged();
         } catch (ElasticsearchException exception) {
             if (exception.status() == RestStatus.NOT_FOUND) {
@@ -201,6 +319,8 @@ public class EsClientUtil {
      *      existsDocument                                                                         *
      *      deleteDocument                                                                         *
      *      updateDocument                                                                         *
+     *      conditionalUpdate -- 乐观锁读-改-写，冲突重试                                          *
+     *      scriptUpdate -- 脚本修改（服务端一次完成）                                             *
      * - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - */
 
 
@@ -209,20 +329,26 @@ public class EsClientUtil {
      *
      * @param indexName 索引名称
      * @param sourceObj 要存储的文档资源对象
-     * @param id        添加文档id（不填默认为系统默认生成id）
-     * @return 操作结果
+     * @param id        添加文档id（不填时取 @EsId 字段，没有则按 id-generation 策略生成）
+     * @return 操作结果（集群不可用暂存到本地日志时为 ACCEPTED）
      * @author tjy
      * @date 2020/7/13
      **/
     public String addDocument(String indexName, Object sourceObj, String id) throws IOException {
 
         IndexRequest request = new IndexRequest(indexName);
-        if (!StringUtils.isEmpty(id)) {
-            request.id(id);
-        }
         try {
-            request.source(JSON.toJSONString(sourceObj), XContentType.JSON);
-            IndexResponse indexResponse = client.index(request, RequestOptions.DEFAULT);
+            BytesReference source = serializer.serialize(sourceObj);
+            request.id(StringUtils.isEmpty(id) ? idGenerator.idFor(sourceObj, source) : id);
+            request.source(source, serializer.contentType());
+            journal.assignId(request);
+            idFilter.add(request);
+            IndexResponse indexResponse = writeOrSpool(request, () -> client.index(request, RequestOptions.DEFAULT));
+            if (indexResponse == null) {
+                return RestStatus.ACCEPTED.toString();
+            }
+            queryCache.invalidate(indexName);
+            idFilter.added(indexResponse);
             if (indexResponse.getResult() == DocWriteResponse.Result.CREATED) {
                 log.info("[{}] ==> 添加成功 ", indexResponse);
             } else if (indexResponse.getResult() == DocWriteResponse.Result.UPDATED) {
@@ -249,9 +375,10 @@ public class EsClientUtil {
     public Map<String, Object> getDocumentToMap(String indexName, String id) throws IOException {
         try {
             GetRequest request = new GetRequest(indexName, id);
-            GetResponse response = client.get(request, RequestOptions.DEFAULT);
+            GetResponse response = singleFlight.execute(EsSingleFlight.getKey(request),
+                    () -> execute(EsEndpoint.GET, EsWorkload.INTERACTIVE, () -> getBatcher.get(request)));
             // 多种形式返回（map）
-            return response.getSourceAsMap();
+            return EsSingleFlight.sourceAsMap(response);
 
         } catch (ElasticsearchException e) {
             // 没有找到文档
@@ -278,7 +405,8 @@ public class EsClientUtil {
     public String getDocumentToString(String indexName, String id) throws IOException {
         try {
             GetRequest request = new GetRequest(indexName, id);
-            GetResponse response = client.get(request, RequestOptions.DEFAULT);
+            GetResponse response = singleFlight.execute(EsSingleFlight.getKey(request),
+                    () -> execute(EsEndpoint.GET, EsWorkload.INTERACTIVE, () -> getBatcher.get(request)));
             // 多种形式返回（String）
             return response.getSourceAsString();
 
@@ -307,7 +435,9 @@ public class EsClientUtil {
      **/
     public boolean existsDocument(String indexName, String id) throws IOException {
         GetRequest request = new GetRequest(indexName, id);
-        return client.exists(request, RequestOptions.DEFAULT);
+        // 本地过滤器判定一定不存在时不请求 es
+        return idFilter.exists(indexName, id, () -> singleFlight.execute(EsSingleFlight.existsKey(request),
+                () -> execute(EsEndpoint.GET, EsWorkload.INTERACTIVE, () -> client.exists(request, RequestOptions.DEFAULT))));
     }
 
     /**
@@ -315,7 +445,7 @@ public class EsClientUtil {
      *
      * @param indexName 索引名称
      * @param id        doc id
-     * @return 是否成功 ok 为成功
+     * @return 是否成功 ok 为成功（集群不可用暂存到本地日志时为 ACCEPTED）
      * @author tjy
      * @date 2020/7/13
      **/
@@ -323,7 +453,11 @@ public class EsClientUtil {
 
         try {
             DeleteRequest request = new DeleteRequest(indexName, id);
-            DeleteResponse response = client.delete(request, RequestOptions.DEFAULT);
+            DeleteResponse response = writeOrSpool(request, () -> client.delete(request, RequestOptions.DEFAULT));
+            if (response == null) {
+                return RestStatus.ACCEPTED.toString();
+            }
+            queryCache.invalidate(indexName);
             // 找不到该文件
             if (response.getResult() == DocWriteResponse.Result.NOT_FOUND) {
                 log.info("=== * 找不到该文档 * ===");
@@ -345,7 +479,7 @@ public class EsClientUtil {
      * @param indexName 索引名称
      * @param id        索引id
      * @param obj       要改变的对象
-     * @return 是否成功 ok 为成功
+     * @return 是否成功 ok 为成功（集群不可用暂存到本地日志时为 ACCEPTED）
      * @author tjy
      * @date 2020/7/13
      **/
@@ -353,8 +487,13 @@ public class EsClientUtil {
 
         try {
             UpdateRequest request = new UpdateRequest(indexName, id);
-            request.doc(JSON.toJSONString(obj), XContentType.JSON);
-            UpdateResponse response = client.update(request, RequestOptions.DEFAULT);
+            request.doc(BytesReference.toBytes(serializer.serialize(obj)), serializer.contentType());
+            idFilter.add(request);
+            UpdateResponse response = writeOrSpool(request, () -> client.update(request, RequestOptions.DEFAULT));
+            if (response == null) {
+                return RestStatus.ACCEPTED.toString();
+            }
+            queryCache.invalidate(indexName);
 
             // 处理第一次创建文档的情况(向上插入)
             if (response.getResult() == DocWriteResponse.Result.CREATED) {
@@ -384,6 +523,83 @@ public class EsClientUtil {
         return null;
     }
 
+    /**
+     * 条件修改（乐观锁）：读取文档及其 _seq_no / _primary_term，由 mutation 计算新文档，
+     * 带 if_seq_no / if_primary_term 写回；期间文档被其他人修改（409）时重新读取，按指数退避重试。
+     * <p>
+     * mutation 可能被调用多次，不能有副作用；返回 null 表示不修改。文档不存在时 mutation 收到 null，
+     * 返回非空则新建文档（同时被其他人新建时同样按冲突重试）。
+     *
+     * @param indexName 索引名称
+     * @param id        文档id
+     * @param type      文档类型
+     * @param mutation  由当前文档计算新文档
+     * @return T 写入的文档（mutation 返回 null 时为 null）
+     * @throws ElasticsearchException 重试 optimistic-update.max-retries 次后仍然冲突
+     * @author tjy
+     * @date 2026/10/18
+     **/
+    public <T> T conditionalUpdate(String indexName, String id, Class<T> type, UnaryOperator<T> mutation) throws IOException {
+        ElasticSearchEntity.OptimisticUpdate conf = elasticSearchEntity.getOptimisticUpdate();
+        for (int retry = 0; ; retry++) {
+            GetRequest get = new GetRequest(indexName, id);
+            GetResponse current = execute(EsEndpoint.GET, EsWorkload.INTERACTIVE, () -> getBatcher.get(get));
+            T before = current.isExists() ? serializer.deserialize(current.getSourceAsBytesRef(), type) : null;
+            T after = mutation.apply(before);
+            if (after == null) {
+                return null;
+            }
+
+            IndexRequest request = new IndexRequest(indexName).id(id)
+                    .source(serializer.serialize(after), serializer.contentType());
+            if (current.isExists()) {
+                request.setIfSeqNo(current.getSeqNo()).setIfPrimaryTerm(current.getPrimaryTerm());
+            } else {
+                request.opType(DocWriteRequest.OpType.CREATE);
+            }
+            idFilter.add(request);
+            try {
+                execute(EsEndpoint.BULK, EsWorkload.INTERACTIVE, () -> client.index(request, RequestOptions.DEFAULT));
+                queryCache.invalidate(indexName);
+                return after;
+            } catch (ElasticsearchException e) {
+                if (e.status() != RestStatus.CONFLICT || retry >= conf.getMaxRetries()) {
+                    throw e;
+                }
+                log.debug("条件修改冲突 [{}/{}]，第 [{}] 次重试", indexName, id, retry + 1);
+                backoff(retry, conf.getInitialBackoffMillis(), conf.getMaxBackoffMillis());
+            }
+        }
+    }
+
+    /**
+     * 脚本修改：修改逻辑在服务端执行，一次请求完成读-改-写，冲突时由服务端重试（retry_on_conflict）
+     *
+     * @param indexName 索引名称
+     * @param id        文档id
+     * @param script    painless 脚本（如 ctx._source.age += params.n），参数请放在 params 中以复用编译结果
+     * @param params    脚本参数（可为空）
+     * @param upsert    文档不存在时新建的内容（为空时文档不存在返回 404）
+     * @return java.lang.String 执行结果 created / updated / noop
+     * @author tjy
+     * @date 2026/10/18
+     **/
+    public String scriptUpdate(String indexName, String id, String script, Map<String, Object> params,
+                               Object upsert) throws IOException {
+        UpdateRequest request = new UpdateRequest(indexName, id)
+                .script(new Script(ScriptType.INLINE, Script.DEFAULT_SCRIPT_LANG, script,
+                        params == null ? Collections.emptyMap() : params))
+                .retryOnConflict(elasticSearchEntity.getOptimisticUpdate().getMaxRetries());
+        if (upsert != null) {
+            request.upsert(BytesReference.toBytes(serializer.serialize(upsert)), serializer.contentType());
+        }
+        idFilter.add(request);
+        UpdateResponse response = execute(EsEndpoint.BULK, EsWorkload.INTERACTIVE,
+                () -> client.update(request, RequestOptions.DEFAULT));
+        queryCache.invalidate(indexName);
+        return response.getResult().getLowercase();
+    }
+
     /***********************************************************************************************
      ***                                 批   量   操   作                                       ***
      ***********************************************************************************************
@@ -392,13 +608,16 @@ public class EsClientUtil {
      * ------------------------------------------------------------------------------------------- *
      * Method:                                                                                     *
      *   bulkAddDocument --                                                                        *
-     *   bulkUpdateDocument --                                                                     *
+     *   bulkUpdateDocument -- 按 @EsId 或 idExtractor 取 id，支持 upsert / 部分字段 / 按大小拆分   *
      *   bulkDelDocument --                                                                        *
+     *   bulkExecute -- 逐条检查结果，可重试条目指数退避重试                                       *
+     *   bulkAddDocumentWithRetry --                                                               *
+     *   bulkDelDocumentWithRetry --                                                               *
      * - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - */
 
 
     /**
-     * 批量添加文档内容
+     * 批量添加文档内容（一次性提交，大批量导入请使用 {@link EsBulkIndexer}）
      *
      * @param indexName 所有名称 （索引名称必须全部小写）
      * @param list      要添加的内容集合
@@ -408,39 +627,101 @@ public class EsClientUtil {
      **/
     public boolean bulkAddDocument(String indexName, List<?> list) throws IOException {
         BulkRequest request = new BulkRequest();
-        for (int i = 0; i < list.size(); i++) {
-
-            request.add(new IndexRequest(indexName)
-                    .source(JSON.toJSONString(list.get(i)), XContentType.JSON));
+        for (Object obj : list) {
+            BytesReference source = serializer.serialize(obj);
+            request.add(new IndexRequest(indexName).id(idGenerator.idFor(obj, source))
+                    .source(source, serializer.contentType()));
         }
-        BulkResponse bulkResponse = client.bulk(request, RequestOptions.DEFAULT);
+        BulkResponse bulkResponse = execute(EsEndpoint.BULK, EsWorkload.BATCH,
+                () -> bulkClient.bulk(request, RequestOptions.DEFAULT));
+        queryCache.invalidate(indexName);
+        idFilter.added(bulkResponse);
         // 是否失败返回false 代表成功
         return !bulkResponse.hasFailures();
     }
 
 
     /**
-     * 批量修改
+     * 批量修改（文档 id 取实体中 {@link com.qingjiu.myes.entity.es.EsId} 标记的字段）
      *
-     * @param indexName
-     * @param list
-     * @return boolean
+     * @param indexName   索引名称
+     * @param list        要修改的内容集合
+     * @param docAsUpsert 文档不存在时是否按修改内容新增
+     * @param fields      只修改的字段（不填为全部非空字段）
+     * @return com.qingjiu.myes.entity.es.EsBulkResult 逐条结果（与提交顺序一致）
      * @author tjy
-     * @date 2020/7/13
+     * @date 2026/10/18
      **/
-    //TODO 这里批量修改需要索引id 不好入参 如果后续需要用到此方法，建议将此方法内容写入业务内自己根据参数循环。
- /*   public boolean bulkUpdateDocument(String indexName, List<?> list) throws IOException {
+    public EsBulkResult bulkUpdateDocument(String indexName, List<?> list, boolean docAsUpsert, String... fields) throws IOException {
+        return bulkUpdateDocument(indexName, list, EsIdExtractor.annotated(), docAsUpsert, fields);
+    }
 
+    /**
+     * 批量修改（按 bulk.actions / bulk.size-mb 拆分成多个 bulk 请求，被拒绝的条目自动重试）
+     * <p>
+     * 指定 fields 时只发送这些字段（值为空的字段会被改为 null），其他字段保持不变。
+     *
+     * @param indexName   索引名称
+     * @param list        要修改的内容集合
+     * @param idExtractor 从内容中取文档 id
+     * @param docAsUpsert 文档不存在时是否按修改内容新增
+     * @param fields      只修改的字段（不填为全部非空字段）
+     * @return com.qingjiu.myes.entity.es.EsBulkResult 逐条结果（与提交顺序一致）
+     * @author tjy
+     * @date 2026/10/18
+     **/
+    public <T> EsBulkResult bulkUpdateDocument(String indexName, List<T> list, Function<? super T, String> idExtractor,
+                                               boolean docAsUpsert, String... fields) throws IOException {
+        ElasticSearchEntity.Bulk conf = elasticSearchEntity.getBulk();
+        long maxBytes = conf.getSizeMb() * 1024L * 1024L;
+        EsBulkResult result = new EsBulkResult();
         BulkRequest request = new BulkRequest();
-        for (Object aList : list) {
+        for (T obj : list) {
+            String id = idExtractor.apply(obj);
+            if (StringUtils.isEmpty(id)) {
+                throw new IllegalArgumentException("文档 id 为空 ==> " + obj);
+            }
+            UpdateRequest update = new UpdateRequest(indexName, id).docAsUpsert(docAsUpsert);
+            if (fields.length == 0) {
+                update.doc(BytesReference.toBytes(serializer.serialize(obj)), serializer.contentType());
+            } else {
+                update.doc(partialDoc(obj, fields));
+            }
+            request.add(update);
+            if (request.numberOfActions() >= conf.getActions() || request.estimatedSizeInBytes() >= maxBytes) {
+                merge(result, bulkExecute(request));
+                request = new BulkRequest();
+            }
+        }
+        if (request.numberOfActions() > 0) {
+            merge(result, bulkExecute(request));
+        }
+        return result;
+    }
 
-            request.add(new UpdateRequest(indexName, "").doc(JSON.toJSONString(aList), XContentType.JSON));
+    /**
+     * 只保留指定字段的修改内容
+     */
+    private Map<String, Object> partialDoc(Object obj, String... fields) {
+        Map<String, Object> source = XContentHelper.convertToMap(serializer.serialize(obj), false,
+                serializer.contentType()).v2();
+        Map<String, Object> doc = new LinkedHashMap<>(fields.length * 2);
+        for (String field : fields) {
+            doc.put(field, source.get(field));
         }
-        BulkResponse bulkResponse = client.bulk(request, RequestOptions.DEFAULT);
-        // 是否失败返回false 代表成功
-        return !bulkResponse.hasFailures();
+        return doc;
+    }
 
-    }*/
+    /**
+     * 合并拆分发送的 bulk 结果
+     */
+    private static void merge(EsBulkResult result, EsBulkResult part) {
+        result.setTotal(result.getTotal() + part.getTotal());
+        result.setSuccessNum(result.getSuccessNum() + part.getSuccessNum());
+        result.setFailedNum(result.getFailedNum() + part.getFailedNum());
+        result.setRetryNum(result.getRetryNum() + part.getRetryNum());
+        result.getItems().addAll(part.getItems());
+    }
 
     /**
      * 批量删除文档
@@ -456,11 +737,164 @@ public class EsClientUtil {
         for (String aList : list) {
             request.add(new DeleteRequest(indexName, aList));
         }
-        BulkResponse bulkResponse = client.bulk(request, RequestOptions.DEFAULT);
+        BulkResponse bulkResponse = execute(EsEndpoint.BULK, EsWorkload.BATCH,
+                () -> bulkClient.bulk(request, RequestOptions.DEFAULT));
+        queryCache.invalidate(indexName);
         // 是否失败返回false 代表成功
         return !bulkResponse.hasFailures();
     }
 
+    /**
+     * 批量添加文档内容（逐条返回结果，被拒绝的条目自动重试）
+     *
+     * @param indexName 索引名称 （索引名称必须全部小写）
+     * @param list      要添加的内容集合
+     * @return com.qingjiu.myes.entity.es.EsBulkResult
+     * @author tjy
+     * @date 2026/10/18
+     **/
+    public EsBulkResult bulkAddDocumentWithRetry(String indexName, List<?> list) throws IOException {
+        BulkRequest request = new BulkRequest();
+        for (Object obj : list) {
+            BytesReference source = serializer.serialize(obj);
+            request.add(new IndexRequest(indexName).id(idGenerator.idFor(obj, source))
+                    .source(source, serializer.contentType()));
+        }
+        return bulkExecute(request);
+    }
+
+    /**
+     * 批量删除文档（逐条返回结果，被拒绝的条目自动重试）
+     *
+     * @param indexName 索引名称
+     * @param list      id 集合
+     * @return com.qingjiu.myes.entity.es.EsBulkResult
+     * @author tjy
+     * @date 2026/10/18
+     **/
+    public EsBulkResult bulkDelDocumentWithRetry(String indexName, List<String> list) throws IOException {
+        BulkRequest request = new BulkRequest();
+        for (String id : list) {
+            request.add(new DeleteRequest(indexName, id));
+        }
+        return bulkExecute(request);
+    }
+
+    /**
+     * 执行 bulk 请求，逐条检查 BulkItemResponse：
+     * 成功和不可重试的失败直接记录结果，被拒绝（429）/ 节点不可用（503）等可重试的条目
+     * 单独组成新的 bulk，按带随机抖动的指数退避时间重试，不会把整批重新发送。
+     *
+     * @param request bulk 请求
+     * @return com.qingjiu.myes.entity.es.EsBulkResult 逐条结果（与提交顺序一致）
+     * @author tjy
+     * @date 2026/10/18
+     **/
+    public EsBulkResult bulkExecute(BulkRequest request) throws IOException {
+        ElasticSearchEntity.Bulk conf = elasticSearchEntity.getBulk();
+        List<DocWriteRequest<?>> requests = request.requests();
+        EsBulkItem[] items = new EsBulkItem[requests.size()];
+        int[] attempts = new int[requests.size()];
+        // 待发送条目在原请求中的下标
+        List<Integer> pending = new ArrayList<>(requests.size());
+        for (int i = 0; i < requests.size(); i++) {
+            pending.add(i);
+        }
+
+        EsBulkResult result = new EsBulkResult();
+        result.setTotal(requests.size());
+        for (int retry = 0; !pending.isEmpty(); retry++) {
+            BulkRequest bulk = new BulkRequest();
+            bulk.timeout(request.timeout());
+            bulk.setRefreshPolicy(request.getRefreshPolicy());
+            for (Integer pos : pending) {
+                bulk.add(requests.get(pos));
+                attempts[pos]++;
+            }
+            boolean canRetry = retry < conf.getMaxRetries();
+
+            BulkResponse response;
+            idFilter.add(bulk);
+            try {
+                response = execute(EsEndpoint.BULK, EsWorkload.BATCH,
+                        () -> bulkClient.bulk(bulk, RequestOptions.DEFAULT));
+                queryCache.invalidate(indices(bulk));
+                idFilter.added(response);
+            } catch (ElasticsearchStatusException e) {
+                // 整个请求被拒绝
+                if (canRetry && isRetryable(e.status())) {
+                    log.warn("bulk 请求被拒绝 [{}]，第 [{}] 次重试 [{}] 条", e.status(), retry + 1, pending.size());
+                    result.setRetryNum(result.getRetryNum() + pending.size());
+                    backoff(retry);
+                    continue;
+                }
+                throw e;
+            }
+
+            List<Integer> retryPending = new ArrayList<>();
+            for (BulkItemResponse item : response.getItems()) {
+                int pos = pending.get(item.getItemId());
+                if (item.isFailed() && canRetry && isRetryable(item.status())) {
+                    retryPending.add(pos);
+                    continue;
+                }
+                items[pos] = new EsBulkItem(item.getIndex(), item.getId(), item.getOpType().getLowercase(),
+                        item.status().getStatus(), item.isFailed(), item.getFailureMessage(), attempts[pos]);
+            }
+            if (!retryPending.isEmpty()) {
+                log.warn("bulk 中 [{}] 条被拒绝，第 [{}] 次重试", retryPending.size(), retry + 1);
+                result.setRetryNum(result.getRetryNum() + retryPending.size());
+                backoff(retry);
+            }
+            pending = retryPending;
+        }
+
+        for (EsBulkItem item : items) {
+            if (item.isFailed()) {
+                result.setFailedNum(result.getFailedNum() + 1);
+            } else {
+                result.setSuccessNum(result.getSuccessNum() + 1);
+            }
+            result.getItems().add(item);
+        }
+        return result;
+    }
+
+    /**
+     * bulk 请求涉及的索引
+     */
+    static String[] indices(BulkRequest request) {
+        return request.requests().stream().map(DocWriteRequest::index).distinct().toArray(String[]::new);
+    }
+
+    /**
+     * 是否为可重试的状态（集群繁忙 / 节点暂不可用）
+     */
+    private boolean isRetryable(RestStatus status) {
+        return status == RestStatus.TOO_MANY_REQUESTS
+                || status == RestStatus.SERVICE_UNAVAILABLE
+                || status == RestStatus.BAD_GATEWAY
+                || status == RestStatus.GATEWAY_TIMEOUT;
+    }
+
+    /**
+     * 带随机抖动的指数退避：在 [0, min(max, initial * 2^retry)] 之间随机等待
+     */
+    private void backoff(int retry) throws IOException {
+        ElasticSearchEntity.Bulk conf = elasticSearchEntity.getBulk();
+        backoff(retry, conf.getInitialBackoffMillis(), conf.getMaxBackoffMillis());
+    }
+
+    private static void backoff(int retry, long initialMillis, long maxMillis) throws IOException {
+        long ceiling = Math.min(maxMillis, initialMillis << Math.min(retry, 20));
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(ceiling + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("重试等待被中断", e);
+        }
+    }
+
 
     /***********************************************************************************************
      ***                                 搜             索                                       ***
@@ -469,6 +903,8 @@ public class EsClientUtil {
      *                                author  :   tjy                                              *
      * ------------------------------------------------------------------------------------------- *
      * Methods:                                                                                    *
+     *      search -- 通用查询方法                                                                 *
+     *      searchBatched -- 并发查询合并为 _msearch                                               *
      *      getDocByIds                                                                            *
      *      termQuery                                                                              *
      *      termsQuery                                                                             *
@@ -507,98 +943,249 @@ public class EsClientUtil {
     }
 
     /**
-     * 根据多个文档id查询，类似Mysql中的where id in（1，2 ....）
+     * 通用查询方法（所有查询方法都由这里执行）
+     * 传入任意 QueryBuilder 以及分页 / 排序 / _source 等查询选项
      *
-     * @param docIds    多个文档id
-     * @param form      从第几个数据开始分页
-     * @param size      从第几个数据结束分页
+     * @param query     查询条件
+     * @param option    查询选项（可为空）
      * @param indexName 多个索引名称 （不填为全部）
-     * @param sort      排序（预留）
-     * @return com.weds.uipdorm.entity.es.EsReturnData
+     * @return com.qingjiu.myes.entity.es.EsReturnData
      * @author tjy
-     * @date 2020/7/14
+     * @date 2026/10/18
      **/
-    public EsReturnData getDocByIds(Integer form, Integer size, String sort, String[] docIds,
-                                    String... indexName) throws IOException {
-
-        // 创建searchRequest
+    public EsReturnData search(QueryBuilder query, EsSearchOption option, String... indexName) throws IOException {
         SearchRequest request = new SearchRequest(indexName);
-        SearchSourceBuilder builder = new SearchSourceBuilder();
-        // 指定多个id进行查询
-        builder.query(QueryBuilders.idsQuery().addIds(docIds));
-
-        /*
-         ******** 分页 ********
-         */
-        if (form != null && form > 0) {
-            builder.from(form);
+        request.source(buildSearchSource(query, option));
+        String cacheKey = cacheKey(request, option);
+        if (cacheKey != null) {
+            EsReturnData cached = queryCache.get(cacheKey);
+            if (cached != null) {
+                return cached;
+            }
         }
-        if (size != null && size > 0) {
-            builder.size(size);
+        SearchResponse response;
+        try {
+            // 相同查询在途时共用结果
+            response = singleFlight.execute(EsSingleFlight.searchKey(request), () -> {
+                if (hedgedSearch.isEnabled() && (option == null || option.isHedge())) {
+                    // 超过延迟阈值未返回时向其他副本再发一次
+                    return execute(EsEndpoint.SEARCH, EsWorkload.INTERACTIVE,
+                            () -> await(hedgedSearch.search(request)));
+                } else if (elasticSearchEntity.getMsearch().isEnabled()) {
+                    // 与其他线程同一时间窗口内的查询合并发送
+                    return execute(EsEndpoint.SEARCH, EsWorkload.INTERACTIVE,
+                            () -> await(searchBatcher.submit(request)));
+                }
+                return execute(EsEndpoint.SEARCH, EsWorkload.INTERACTIVE,
+                        () -> client.search(request, RequestOptions.DEFAULT));
+            });
+        } catch (EsCircuitOpenException e) {
+            // 熔断中：有缓存（即使已过期）时返回缓存
+            EsReturnData stale = staleFallback(cacheKey);
+            if (stale == null) {
+                throw e;
+            }
+            return stale;
         }
-        /*
-         ******** 排序 ********
-         */
-        // buildSort(sort, builder);
-        request.source(builder);
-        SearchResponse searchResponse = client.search(request, RequestOptions.DEFAULT);
-        // 检索searchist
-        SearchHits hits = searchResponse.getHits();
-        TotalHits totalHits = hits.getTotalHits();
-        // 将数据封装
-        EsReturnData esReturnData = new EsReturnData();
-        // 搜索出来的数据下的最大评分
-        esReturnData.setMaxScore(hits.getMaxScore());
-        // 数量统计
-        esReturnData.setNum(totalHits.value);
-        for (SearchHit hit : hits.getHits()) {
-            EsData data = new EsData(hit.getSourceAsMap(), hit.getSourceAsString(), hit.getIndex(),
-                    hit.getScore(), hit.getId());
-            esReturnData.getEsDataList().add(data);
+        EsReturnData esReturnData = toEsReturnData(response, option);
+        if (cacheKey != null) {
+            queryCache.put(cacheKey, esReturnData, indexName);
         }
         return esReturnData;
     }
 
     /**
-     * 精准查询 （一个字段只能等于一个词）
+     * 通用查询方法（合并发送）：同一时间窗口内并发提交的查询合并成一个 _msearch
      *
-     * @param form      从第几个数据开始分页
-     * @param size      从第几个数据结束分页
-     * @param sort      排序（预留）
-     * @param docName   文档字段名称
-     * @param value     搜索值
+     * @param query     查询条件
+     * @param option    查询选项（可为空）
      * @param indexName 多个索引名称 （不填为全部）
-     * @return com.weds.uipdorm.entity.es.EsReturnData
+     * @return java.util.concurrent.CompletableFuture 查询结果
      * @author tjy
-     * @date 2020/7/14
+     * @date 2026/10/18
      **/
-    public EsReturnData termQuery(Integer form, Integer size, String sort,
-                                  String docName, String value, String... indexName) throws IOException {
+    public CompletableFuture<EsReturnData> searchBatched(QueryBuilder query, EsSearchOption option, String... indexName) {
+        SearchRequest request = new SearchRequest(indexName);
+        request.source(buildSearchSource(query, option));
+        String cacheKey = cacheKey(request, option);
+        if (cacheKey != null) {
+            EsReturnData cached = queryCache.get(cacheKey);
+            if (cached != null) {
+                return CompletableFuture.completedFuture(cached);
+            }
+        }
+        EsCircuitBreaker.Attempt attempt;
+        try {
+            attempt = circuitBreaker.acquire(EsEndpoint.SEARCH);
+        } catch (EsCircuitOpenException e) {
+            EsReturnData stale = staleFallback(cacheKey);
+            if (stale == null) {
+                throw e;
+            }
+            return CompletableFuture.completedFuture(stale);
+        }
+        EsAdmissionControl.Permit permit;
+        try {
+            permit = admissionControl.tryAcquire(EsWorkload.INTERACTIVE);
+        } catch (RejectedExecutionException e) {
+            attempt.complete(null, e);
+            throw e;
+        }
+        return searchBatcher.submit(request).whenComplete((response, e) -> {
+            permit.close();
+            attempt.complete(response, e);
+        }).thenApply(response -> {
+            EsReturnData esReturnData = toEsReturnData(response, option);
+            if (cacheKey != null) {
+                queryCache.put(cacheKey, esReturnData, indexName);
+            }
+            return esReturnData;
+        });
+    }
 
-        SearchRequest searchRequest = new SearchRequest(indexName);
-        SearchSourceBuilder searchSourceBuilder = new SearchSourceBuilder();
-        /*
-            termQuery 方法对中文支持不好，只能支持单个中文进行搜索；并且，如果是搜索单词的话
-             也只能支持单个单词，如：不能 elasticSearch 驼峰写法
-         */
-        TermQueryBuilder termQueryBuilder = QueryBuilders.termQuery(docName + ".keyword", value);
-        searchSourceBuilder.query(termQueryBuilder);
+    /**
+     * 查询缓存 key（未开启缓存或本次不使用缓存时返回 null）
+     */
+    private String cacheKey(SearchRequest request, EsSearchOption option) {
+        if (!queryCache.isEnabled() || (option != null && !option.isUseCache())) {
+            return null;
+        }
+        return queryCache.key(request.source(), request.indices());
+    }
+
+    /**
+     * 熔断时的兜底结果（未开启缓存 / 兜底或没有缓存时返回 null）
+     */
+    private EsReturnData staleFallback(String cacheKey) {
+        if (cacheKey == null || !elasticSearchEntity.getBreaker().isStaleCacheFallback()) {
+            return null;
+        }
+        return queryCache.getStale(cacheKey);
+    }
+
+    /**
+     * 熔断保护 + 并发限制下执行 es 调用
+     */
+    private <T> T execute(EsEndpoint endpoint, EsWorkload workload, EsAdmissionControl.Call<T> call) throws IOException {
+        return circuitBreaker.call(endpoint, () -> admissionControl.call(workload, call));
+    }
+
+    /**
+     * 单文档写入：开启本地写入日志时，集群不可用（或日志中还有未重放的写入，保证顺序）则写入日志，由日志稍后重放
+     *
+     * @return 写入响应，暂存到日志时为 null
+     */
+    private <T> T writeOrSpool(DocWriteRequest<?> request, EsAdmissionControl.Call<T> call) throws IOException {
+        if (journal.isSpooling()) {
+            journal.append(request);
+            return null;
+        }
+        try {
+            return execute(EsEndpoint.BULK, EsWorkload.INTERACTIVE, call);
+        } catch (IOException | RuntimeException e) {
+            if (!journal.canSpool(e)) {
+                throw e;
+            }
+            log.warn("es 不可用，写入本地日志 [{}/{}] ==> {}", request.index(), request.id(), e.toString());
+            journal.append(request);
+            return null;
+        }
+    }
+
+    /**
+     * 等待异步结果，异常还原为 IOException / RuntimeException 抛出
+     */
+    static <T> T await(CompletableFuture<T> future) throws IOException {
+        try {
+            return future.get(awaitTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("等待 es 返回被中断", e);
+        } catch (TimeoutException e) {
+            throw new IOException("等待 es 返回超时 [" + awaitTimeoutMillis + "ms]", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IOException(cause);
+        }
+    }
 
+    /**
+     * 根据查询选项构建 SearchSourceBuilder
+     *
+     * @param query  查询条件
+     * @param option 查询选项（可为空）
+     * @return org.elasticsearch.search.builder.SearchSourceBuilder
+     * @author tjy
+     * @date 2026/10/18
+     **/
+    SearchSourceBuilder buildSearchSource(QueryBuilder query, EsSearchOption option) {
+        SearchSourceBuilder builder = new SearchSourceBuilder();
+        builder.query(query);
+        if (option == null) {
+            return builder;
+        }
         /*
          ******** 分页 ********
          */
-        if (form != null && form > 0) {
-            searchSourceBuilder.from(form);
+        if (!option.isUseCursor() && option.getForm() != null && option.getForm() > 0) {
+            builder.from(option.getForm());
         }
-        if (size != null && size > 0) {
-            searchSourceBuilder.size(size);
+        if (option.getSize() != null && option.getSize() > 0) {
+            builder.size(option.getSize());
         }
         /*
          ******** 排序 ********
          */
-        // buildSort(sort, searchSourceBuilder);
-        searchRequest.source(searchSourceBuilder);
-        SearchResponse response = client.search(searchRequest, RequestOptions.DEFAULT);
+        buildSort(option.getSort(), builder);
+        /*
+         ******** 游标分页 ********
+         */
+        if (option.isUseCursor()) {
+            // 追加唯一字段排序，方向与主排序一致，保证排序值唯一
+            SortOrder order = builder.sorts() == null || builder.sorts().isEmpty()
+                    ? SortOrder.ASC : builder.sorts().get(0).order();
+            builder.sort(option.getTiebreaker(), order);
+            if (!StringUtils.isEmpty(option.getCursor())) {
+                builder.searchAfter(decodeCursor(option.getCursor()));
+            }
+        }
+        /*
+         ******** _source ********
+         */
+        if (!option.isFetchSource()) {
+            builder.fetchSource(false);
+        } else if (!ObjectUtils.isEmpty(option.getIncludes()) || !ObjectUtils.isEmpty(option.getExcludes())) {
+            builder.fetchSource(option.getIncludes(), option.getExcludes());
+        }
+        /*
+         ******** 总数统计 ********
+         */
+        if (option.getTrackTotalHits() != null) {
+            if (option.getTrackTotalHits() == EsSearchOption.TOTAL_HITS_OFF) {
+                builder.trackTotalHits(false);
+            } else {
+                builder.trackTotalHitsUpTo(option.getTrackTotalHits());
+            }
+        }
+        return builder;
+    }
+
+    /**
+     * 将查询结果封装为 EsReturnData（_source 不在这里解析，由 EsData 在读取时按需解析）
+     *
+     * @param response 查询结果
+     * @param option   查询选项（可为空）
+     * @return com.qingjiu.myes.entity.es.EsReturnData
+     * @author tjy
+     * @date 2026/10/18
+     **/
+    EsReturnData toEsReturnData(SearchResponse response, EsSearchOption option) {
         // 检索searchist
         SearchHits hits = response.getHits();
         TotalHits totalHits = hits.getTotalHits();
@@ -606,119 +1193,279 @@ public class EsClientUtil {
         EsReturnData esReturnData = new EsReturnData();
         // 搜索出来的数据下的最大评分
         esReturnData.setMaxScore(hits.getMaxScore());
-        // 数量统计
-        esReturnData.setNum(totalHits.value);
+        // 数量统计（不统计总数时为空）
+        if (totalHits != null) {
+            esReturnData.setNum(totalHits.value);
+            esReturnData.setNumRelation(totalHits.relation == TotalHits.Relation.EQUAL_TO ? "eq" : "gte");
+        }
         for (SearchHit hit : hits.getHits()) {
-            EsData data = new EsData(hit.getSourceAsMap(), hit.getSourceAsString(), hit.getIndex(),
-                    hit.getScore(), hit.getId());
+            EsData data = new EsData(hit.getSourceRef(), hit.getIndex(), hit.getScore(), hit.getId());
             esReturnData.getEsDataList().add(data);
         }
+        // 游标分页：取满一页时返回最后一条的排序值作为下一页游标
+        if (option != null && option.isUseCursor()) {
+            SearchHit[] hitArr = hits.getHits();
+            // 未指定 size 时 es 默认返回 10 条
+            int size = option.getSize() != null && option.getSize() > 0 ? option.getSize() : 10;
+            if (hitArr.length > 0 && hitArr.length >= size) {
+                esReturnData.setCursor(encodeCursor(hitArr[hitArr.length - 1].getSortValues()));
+            }
+        }
         return esReturnData;
     }
 
     /**
-     * 精准查询 （一个字段可以等于多个词） 类似于 SQL的 in(1,2,3)
-     *
-     * @param form      从第几个数据开始分页
-     * @param size      从第几个数据结束分页
-     * @param sort      排序（预留）
-     * @param docName   文档字段名称
-     * @param value     搜索值(一个或多个)
+     * 排序值编码为游标（json 数组再 base64url）
+     */
+    private String encodeCursor(Object[] sortValues) {
+        byte[] json = JSON.toJSONBytes(sortValues);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(json);
+    }
+
+    /**
+     * 游标解码为 search_after 排序值
+     */
+    private Object[] decodeCursor(String cursor) {
+        JSONArray values;
+        try {
+            values = JSON.parseArray(new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("无效的游标 [" + cursor + "]", e);
+        }
+        Object[] sortValues = values.toArray();
+        for (int i = 0; i < sortValues.length; i++) {
+            // search_after 不支持 BigDecimal / BigInteger
+            if (sortValues[i] instanceof BigDecimal) {
+                sortValues[i] = ((BigDecimal) sortValues[i]).doubleValue();
+            } else if (sortValues[i] instanceof BigInteger) {
+                sortValues[i] = ((BigInteger) sortValues[i]).longValue();
+            }
+        }
+        return sortValues;
+    }
+
+    /**
+     * 根据多个文档id查询，类似Mysql中的where id in（1，2 ....）
+     *
+     * @param docIds    多个文档id
+     * @param form      从第几个数据开始分页
+     * @param size      从第几个数据结束分页
      * @param indexName 多个索引名称 （不填为全部）
+     * @param sort      排序（预留）
      * @return com.weds.uipdorm.entity.es.EsReturnData
      * @author tjy
      * @date 2020/7/14
      **/
-    public EsReturnData termsQuery(Integer form, Integer size, String sort,
-                                   String docName, String[] value, String... indexName) throws IOException {
-
-        SearchRequest searchRequest = new SearchRequest(indexName);
-        SearchSourceBuilder searchSourceBuilder = new SearchSourceBuilder();
-        /*
-            termQuery 方法对中文支持不好，只能支持单个中文进行搜索；并且，如果是搜索单词的话
-             也只能支持单个单词，如：不能 elasticSearch 驼峰写法
-         */
-        searchSourceBuilder.query(QueryBuilders.termsQuery(docName + ".keyword", value));
+    public EsReturnData getDocByIds(Integer form, Integer size, String sort, String[] docIds,
+                                    String... indexName) throws IOException {
+        // 保持原有语义：ids 查询，未指定 size 时按 es 默认只返回前 10 条
+        return search(QueryBuilders.idsQuery().addIds(docIds), EsSearchOption.page(form, size), indexName);
+    }
 
-        /*
-         ******** 分页 ********
-         */
-        if (form != null && form > 0) {
-            searchSourceBuilder.from(form);
+    /**
+     * 多个文档id查询（可指定分页 / 返回字段 / 总数统计）
+     * 单个索引且不排序时使用 _mget：实时读取（不需要等待 refresh），没有查询和打分的开销，
+     * 结果按传入的 id 顺序返回（不存在的 id 跳过），未指定 size 时返回全部；
+     * 多个索引 / 通配符 / 指向多个索引的别名 / 排序 / 游标分页时仍使用 ids 查询。
+     *
+     * @param option    查询选项（可为空）
+     * @param docIds    多个文档id
+     * @param indexName 多个索引名称 （不填为全部）
+     * @return com.qingjiu.myes.entity.es.EsReturnData
+     * @author tjy
+     * @date 2026/10/18
+     **/
+    public EsReturnData getDocByIds(EsSearchOption option, String[] docIds,
+                                    String... indexName) throws IOException {
+        if (!canMget(option, docIds, indexName)) {
+            // 指定多个id进行查询
+            return search(QueryBuilders.idsQuery().addIds(docIds), option, indexName);
         }
-        if (size != null && size > 0) {
-            searchSourceBuilder.size(size);
+        MultiGetRequest request = new MultiGetRequest();
+        request.realtime(true);
+        FetchSourceContext fetchSource = fetchSourceContext(option);
+        for (String id : new LinkedHashSet<>(Arrays.asList(docIds))) {
+            request.add(new MultiGetRequest.Item(indexName[0], id).fetchSourceContext(fetchSource));
+        }
+        MultiGetResponse response = execute(EsEndpoint.GET, EsWorkload.INTERACTIVE,
+                () -> client.mget(request, RequestOptions.DEFAULT));
+        List<EsData> found = new ArrayList<>();
+        for (MultiGetItemResponse item : response.getResponses()) {
+            if (item.isFailed()) {
+                if (isMultiIndexAlias(indexName[0])) {
+                    // 别名指向多个索引时 _mget 无法执行，改用 ids 查询
+                    return search(QueryBuilders.idsQuery().addIds(docIds), option, indexName);
+                }
+                // 与 ids 查询一致：索引不存在等错误直接抛出
+                Exception failure = item.getFailure().getFailure();
+                if (failure instanceof RuntimeException) {
+                    throw (RuntimeException) failure;
+                }
+                throw new IOException(failure);
+            }
+            GetResponse get = item.getResponse();
+            if (get.isExists()) {
+                found.add(new EsData(get.getSourceAsBytesRef(), get.getIndex(), 1.0f, get.getId()));
+            }
         }
-        /*
-         ******** 排序 ********
-         */
-        // buildSort(sort, searchSourceBuilder);
-        searchRequest.source(searchSourceBuilder);
-        SearchResponse response = client.search(searchRequest, RequestOptions.DEFAULT);
-        // 检索searchist
-        SearchHits hits = response.getHits();
-        TotalHits totalHits = hits.getTotalHits();
-        // 将数据封装
         EsReturnData esReturnData = new EsReturnData();
-        // 搜索出来的数据下的最大评分
-        esReturnData.setMaxScore(hits.getMaxScore());
-        // 数量统计
-        esReturnData.setNum(totalHits.value);
-        for (SearchHit hit : hits.getHits()) {
-            EsData data = new EsData(hit.getSourceAsMap(), hit.getSourceAsString(), hit.getIndex(),
-                    hit.getScore(), hit.getId());
-            esReturnData.getEsDataList().add(data);
+        esReturnData.setMaxScore(found.isEmpty() ? Float.NaN : 1.0f);
+        if (option == null || option.getTrackTotalHits() == null
+                || option.getTrackTotalHits() != EsSearchOption.TOTAL_HITS_OFF) {
+            esReturnData.setNum((long) found.size());
+            esReturnData.setNumRelation("eq");
+        }
+        int from = option != null && option.getForm() != null && option.getForm() > 0 ? option.getForm() : 0;
+        int to = option != null && option.getSize() != null && option.getSize() > 0
+                ? Math.min(found.size(), from + option.getSize()) : found.size();
+        if (from < to) {
+            esReturnData.getEsDataList().addAll(found.subList(from, to));
         }
         return esReturnData;
     }
 
+    /**
+     * 是否可以用 _mget 代替 ids 查询
+     */
+    private boolean canMget(EsSearchOption option, String[] docIds, String... indexName) {
+        if (ObjectUtils.isEmpty(docIds) || indexName == null || indexName.length != 1
+                || StringUtils.isEmpty(indexName[0]) || "_all".equals(indexName[0])
+                || indexName[0].contains(",") || Regex.isSimpleMatchPattern(indexName[0])) {
+            return false;
+        }
+        return option == null || (!option.isUseCursor() && StringUtils.isEmpty(option.getSort()));
+    }
+
+    /**
+     * 是否为指向多个索引的别名（_mget 是单索引操作，这种别名下每个条目都会失败）；
+     * 只在 _mget 有条目失败时查询，正常情况下不多一次请求
+     */
+    private boolean isMultiIndexAlias(String name) throws IOException {
+        GetAliasesResponse response = execute(EsEndpoint.GET, EsWorkload.INTERACTIVE,
+                () -> client.indices().getAlias(new GetAliasesRequest(name), RequestOptions.DEFAULT));
+        return response.getAliases().size() > 1;
+    }
 
     /**
-     * 查询索引下所有文档的数据（注意 因为是搜索全部 所有评分都是1.0）
+     * 查询选项中的 _source 过滤（为空时返回全部 _source）
+     */
+    private FetchSourceContext fetchSourceContext(EsSearchOption option) {
+        if (option == null) {
+            return null;
+        }
+        if (!option.isFetchSource()) {
+            return FetchSourceContext.DO_NOT_FETCH_SOURCE;
+        }
+        if (!ObjectUtils.isEmpty(option.getIncludes()) || !ObjectUtils.isEmpty(option.getExcludes())) {
+            return new FetchSourceContext(true, option.getIncludes(), option.getExcludes());
+        }
+        return null;
+    }
+
+    /**
+     * 精准查询 （一个字段只能等于一个词）
      *
      * @param form      从第几个数据开始分页
      * @param size      从第几个数据结束分页
      * @param sort      排序（预留）
+     * @param docName   文档字段名称
+     * @param value     搜索值
      * @param indexName 多个索引名称 （不填为全部）
      * @return com.weds.uipdorm.entity.es.EsReturnData
      * @author tjy
      * @date 2020/7/14
      **/
-    public EsReturnData matchAllQuery(Integer form, Integer size, String sort, String... indexName) throws IOException {
-        SearchRequest searchRequest = new SearchRequest(indexName);
-        SearchSourceBuilder searchSourceBuilder = new SearchSourceBuilder();
+    public EsReturnData termQuery(Integer form, Integer size, String sort,
+                                  String docName, String value, String... indexName) throws IOException {
+        return termQuery(EsSearchOption.page(form, size), docName, value, indexName);
+    }
 
-        searchSourceBuilder.query(QueryBuilders.matchAllQuery());
+    /**
+     * 精准查询 （一个字段只能等于一个词）（可指定分页 / 排序 / 返回字段 / 总数统计）
+     *
+     * @param option    查询选项（可为空）
+     * @param docName   文档字段名称
+     * @param value     搜索值
+     * @param indexName 多个索引名称 （不填为全部）
+     * @return com.qingjiu.myes.entity.es.EsReturnData
+     * @author tjy
+     * @date 2026/10/18
+     **/
+    public EsReturnData termQuery(EsSearchOption option, String docName, String value,
+                                  String... indexName) throws IOException {
         /*
-         ******** 分页 ********
+            termQuery 方法对中文支持不好，只能支持单个中文进行搜索；并且，如果是搜索单词的话
+             也只能支持单个单词，如：不能 elasticSearch 驼峰写法
          */
-        if (form != null && form > 0) {
-            searchSourceBuilder.from(form);
-        }
-        if (size != null && size > 0) {
-            searchSourceBuilder.size(size);
-        }
+        TermQueryBuilder termQueryBuilder = QueryBuilders.termQuery(docName + ".keyword", value);
+        return search(termQueryBuilder, option, indexName);
+    }
+
+    /**
+     * 精准查询 （一个字段可以等于多个词） 类似于 SQL的 in(1,2,3)
+     *
+     * @param form      从第几个数据开始分页
+     * @param size      从第几个数据结束分页
+     * @param sort      排序（预留）
+     * @param docName   文档字段名称
+     * @param value     搜索值(一个或多个)
+     * @param indexName 多个索引名称 （不填为全部）
+     * @return com.weds.uipdorm.entity.es.EsReturnData
+     * @author tjy
+     * @date 2020/7/14
+     **/
+    public EsReturnData termsQuery(Integer form, Integer size, String sort,
+                                   String docName, String[] value, String... indexName) throws IOException {
+        return termsQuery(EsSearchOption.page(form, size), docName, value, indexName);
+    }
+
+    /**
+     * 精准查询 （一个字段可以等于多个词）（可指定分页 / 排序 / 返回字段 / 总数统计）
+     *
+     * @param option    查询选项（可为空）
+     * @param docName   文档字段名称
+     * @param value     搜索值(一个或多个)
+     * @param indexName 多个索引名称 （不填为全部）
+     * @return com.qingjiu.myes.entity.es.EsReturnData
+     * @author tjy
+     * @date 2026/10/18
+     **/
+    public EsReturnData termsQuery(EsSearchOption option, String docName, String[] value,
+                                   String... indexName) throws IOException {
         /*
-         ******** 排序 ********
+            termQuery 方法对中文支持不好，只能支持单个中文进行搜索；并且，如果是搜索单词的话
+             也只能支持单个单词，如：不能 elasticSearch 驼峰写法
          */
-        // buildSort(sort, searchSourceBuilder);
-        searchRequest.source(searchSourceBuilder);
-        SearchResponse response = client.search(searchRequest, RequestOptions.DEFAULT);
-        // 检索searchist
-        SearchHits hits = response.getHits();
-        TotalHits totalHits = hits.getTotalHits();
-        // 将数据封装
-        EsReturnData esReturnData = new EsReturnData();
-        // 搜索出来的数据下的最大评分
-        esReturnData.setMaxScore(hits.getMaxScore());
-        // 数量统计
-        esReturnData.setNum(totalHits.value);
-        for (SearchHit hit : hits.getHits()) {
-            EsData data = new EsData(hit.getSourceAsMap(), hit.getSourceAsString(), hit.getIndex(),
-                    hit.getScore(), hit.getId());
-            esReturnData.getEsDataList().add(data);
-        }
-        return esReturnData;
+        return search(QueryBuilders.termsQuery(docName + ".keyword", value), option, indexName);
+    }
+
+
+    /**
+     * 查询索引下所有文档的数据（注意 因为是搜索全部 所有评分都是1.0）
+     *
+     * @param form      从第几个数据开始分页
+     * @param size      从第几个数据结束分页
+     * @param sort      排序（预留）
+     * @param indexName 多个索引名称 （不填为全部）
+     * @return com.weds.uipdorm.entity.es.EsReturnData
+     * @author tjy
+     * @date 2020/7/14
+     **/
+    public EsReturnData matchAllQuery(Integer form, Integer size, String sort, String... indexName) throws IOException {
+        return matchAllQuery(EsSearchOption.page(form, size), indexName);
+    }
+
+    /**
+     * 查询索引下所有文档的数据（可指定分页 / 排序 / 返回字段 / 总数统计）
+     *
+     * @param option    查询选项（可为空）
+     * @param indexName 多个索引名称 （不填为全部）
+     * @return com.qingjiu.myes.entity.es.EsReturnData
+     * @author tjy
+     * @date 2026/10/18
+     **/
+    public EsReturnData matchAllQuery(EsSearchOption option, String... indexName) throws IOException {
+        return search(QueryBuilders.matchAllQuery(), option, indexName);
     }
 
 
@@ -738,40 +1485,25 @@ public class EsClientUtil {
      **/
     public EsReturnData matchOperatorQuery(Integer form, Integer size, String sort, String docName,
                                            Operator operator, Object value, String... indexName) throws IOException {
+        return matchOperatorQuery(EsSearchOption.page(form, size), docName, operator, value, indexName);
+    }
 
-        SearchRequest searchRequest = new SearchRequest(indexName);
-        SearchSourceBuilder searchSourceBuilder = new SearchSourceBuilder();
-        searchSourceBuilder.query(QueryBuilders.matchQuery(docName, value).operator(operator));
-        /*
-         ******** 分页 ********
-         */
-        if (form != null && form > 0) {
-            searchSourceBuilder.from(form);
-        }
-        if (size != null && size > 0) {
-            searchSourceBuilder.size(size);
-        }
-        /*
-         ******** 排序 ********
-         */
-        // buildSort(sort, searchSourceBuilder);
-        searchRequest.source(searchSourceBuilder);
-        SearchResponse response = client.search(searchRequest, RequestOptions.DEFAULT);
-        // 检索searchist
-        SearchHits hits = response.getHits();
-        TotalHits totalHits = hits.getTotalHits();
-        // 将数据封装
-        EsReturnData esReturnData = new EsReturnData();
-        // 搜索出来的数据下的最大评分
-        esReturnData.setMaxScore(hits.getMaxScore());
-        // 数量统计
-        esReturnData.setNum(totalHits.value);
-        for (SearchHit hit : hits.getHits()) {
-            EsData data = new EsData(hit.getSourceAsMap(), hit.getSourceAsString(), hit.getIndex(),
-                    hit.getScore(), hit.getId());
-            esReturnData.getEsDataList().add(data);
-        }
-        return esReturnData;
+    /**
+     * 分词检索（指定分词关系 AND/OR）（可指定分页 / 排序 / 返回字段 / 总数统计）
+     *
+     * @param option    查询选项（可为空）
+     * @param docName   文档字段名称
+     * @param operator  每个分词的关系 （AND/OR）
+     * @param value     搜索值(使用空格隔开每一个要搜索的value分词)
+     * @param indexName 多个索引名称 （不填为全部）
+     * @return com.qingjiu.myes.entity.es.EsReturnData
+     * @author tjy
+     * @date 2026/10/18
+     **/
+    public EsReturnData matchOperatorQuery(EsSearchOption option, String docName, Operator operator, Object value,
+                                           String... indexName) throws IOException {
+        return search(QueryBuilders.matchQuery(docName, value).operator(operator), option,
+                indexName);
     }
 
 
@@ -790,40 +1522,23 @@ public class EsClientUtil {
      **/
     public EsReturnData matchQuery(Integer form, Integer size, String sort, String docName,
                                    Object value, String... indexName) throws IOException {
+        return matchQuery(EsSearchOption.page(form, size), docName, value, indexName);
+    }
 
-        SearchRequest searchRequest = new SearchRequest(indexName);
-        SearchSourceBuilder searchSourceBuilder = new SearchSourceBuilder();
-        searchSourceBuilder.query(QueryBuilders.matchQuery(docName, value));
-        /*
-         ******** 分页 ********
-         */
-        if (form != null && form > 0) {
-            searchSourceBuilder.from(form);
-        }
-        if (size != null && size > 0) {
-            searchSourceBuilder.size(size);
-        }
-        /*
-         ******** 排序 ********
-         */
-        // buildSort(sort, searchSourceBuilder);
-        searchRequest.source(searchSourceBuilder);
-        SearchResponse response = client.search(searchRequest, RequestOptions.DEFAULT);
-        // 检索searchist
-        SearchHits hits = response.getHits();
-        TotalHits totalHits = hits.getTotalHits();
-        // 将数据封装
-        EsReturnData esReturnData = new EsReturnData();
-        // 搜索出来的数据下的最大评分
-        esReturnData.setMaxScore(hits.getMaxScore());
-        // 数量统计
-        esReturnData.setNum(totalHits.value);
-        for (SearchHit hit : hits.getHits()) {
-            EsData data = new EsData(hit.getSourceAsMap(), hit.getSourceAsString(), hit.getIndex(),
-                    hit.getScore(), hit.getId());
-            esReturnData.getEsDataList().add(data);
-        }
-        return esReturnData;
+    /**
+     * 分词查询（可指定分页 / 排序 / 返回字段 / 总数统计）
+     *
+     * @param option    查询选项（可为空）
+     * @param docName   文档字段名称
+     * @param value     搜索值
+     * @param indexName 多个索引名称 （不填为全部）
+     * @return com.qingjiu.myes.entity.es.EsReturnData
+     * @author tjy
+     * @date 2026/10/18
+     **/
+    public EsReturnData matchQuery(EsSearchOption option, String docName, Object value,
+                                   String... indexName) throws IOException {
+        return search(QueryBuilders.matchQuery(docName, value), option, indexName);
     }
 
     /**
@@ -841,40 +1556,23 @@ public class EsClientUtil {
      **/
     public EsReturnData multiMatchQuery(Integer form, Integer size, String sort, String[] docNames,
                                         Object value, String... indexName) throws IOException {
+        return multiMatchQuery(EsSearchOption.page(form, size), docNames, value, indexName);
+    }
 
-        SearchRequest searchRequest = new SearchRequest(indexName);
-        SearchSourceBuilder searchSourceBuilder = new SearchSourceBuilder();
-        searchSourceBuilder.query(QueryBuilders.multiMatchQuery(value, docNames));
-        /*
-         ******** 分页 ********
-         */
-        if (form != null && form > 0) {
-            searchSourceBuilder.from(form);
-        }
-        if (size != null && size > 0) {
-            searchSourceBuilder.size(size);
-        }
-        /*
-         ******** 排序 ********
-         */
-        // buildSort(sort, searchSourceBuilder);
-        searchRequest.source(searchSourceBuilder);
-        SearchResponse response = client.search(searchRequest, RequestOptions.DEFAULT);
-        // 检索searchist
-        SearchHits hits = response.getHits();
-        TotalHits totalHits = hits.getTotalHits();
-        // 将数据封装
-        EsReturnData esReturnData = new EsReturnData();
-        // 搜索出来的数据下的最大评分
-        esReturnData.setMaxScore(hits.getMaxScore());
-        // 数量统计
-        esReturnData.setNum(totalHits.value);
-        for (SearchHit hit : hits.getHits()) {
-            EsData data = new EsData(hit.getSourceAsMap(), hit.getSourceAsString(), hit.getIndex(),
-                    hit.getScore(), hit.getId());
-            esReturnData.getEsDataList().add(data);
-        }
-        return esReturnData;
+    /**
+     * 查询索引下多个文档同一个value数据（可指定分页 / 排序 / 返回字段 / 总数统计）
+     *
+     * @param option    查询选项（可为空）
+     * @param docNames  文档名称（一个/多个）
+     * @param value     搜索值
+     * @param indexName 多个索引名称 （不填为全部）
+     * @return com.qingjiu.myes.entity.es.EsReturnData
+     * @author tjy
+     * @date 2026/10/18
+     **/
+    public EsReturnData multiMatchQuery(EsSearchOption option, String[] docNames, Object value,
+                                        String... indexName) throws IOException {
+        return search(QueryBuilders.multiMatchQuery(value, docNames), option, indexName);
     }
 
 
@@ -894,46 +1592,28 @@ public class EsClientUtil {
      **/
     public EsReturnData rangeFormQuery(Integer form, Integer size, String sort, String docName, String begin,
                                        String end, String... indexName) throws IOException {
-        // 创建请求
-        SearchRequest request = new SearchRequest(indexName);
+        return rangeFormQuery(EsSearchOption.page(form, size), docName, begin, end, indexName);
+    }
+
+    /**
+     * 区间范围搜索（可指定分页 / 排序 / 返回字段 / 总数统计）
+     *
+     * @param option    查询选项（可为空）
+     * @param docName   文档字段名称
+     * @param begin     区间字段 开始
+     * @param end       区间字段 结束
+     * @param indexName 多个索引名称 （不填为全部）
+     * @return com.qingjiu.myes.entity.es.EsReturnData
+     * @author tjy
+     * @date 2026/10/18
+     **/
+    public EsReturnData rangeFormQuery(EsSearchOption option, String docName, String begin, String end,
+                                       String... indexName) throws IOException {
         // 时间范围的设定
         RangeQueryBuilder rangequerybuilder = QueryBuilders
                 .rangeQuery(docName)
                 .from(begin).to(end);
-
-        SearchSourceBuilder sourceBuilder = new SearchSourceBuilder();
-        sourceBuilder.query(rangequerybuilder);
-        request.source(sourceBuilder);
-        /*
-         ******** 分页 ********
-         */
-        if (form != null && form > 0) {
-            sourceBuilder.from(form);
-        }
-        if (size != null && size > 0) {
-            sourceBuilder.size(size);
-        }
-        /*
-         ******** 排序 ********
-         */
-        // buildSort(sort, searchSourceBuilder);
-        request.source(sourceBuilder);
-        SearchResponse response = client.search(request, RequestOptions.DEFAULT);
-        // 检索searchist
-        SearchHits hits = response.getHits();
-        TotalHits totalHits = hits.getTotalHits();
-        // 将数据封装
-        EsReturnData esReturnData = new EsReturnData();
-        // 搜索出来的数据下的最大评分
-        esReturnData.setMaxScore(hits.getMaxScore());
-        // 数量统计
-        esReturnData.setNum(totalHits.value);
-        for (SearchHit hit : hits.getHits()) {
-            EsData data = new EsData(hit.getSourceAsMap(), hit.getSourceAsString(), hit.getIndex(),
-                    hit.getScore(), hit.getId());
-            esReturnData.getEsDataList().add(data);
-        }
-        return esReturnData;
+        return search(rangequerybuilder, option, indexName);
     }
 
     /**
@@ -953,49 +1633,111 @@ public class EsClientUtil {
      **/
     public EsReturnData rangeNumQuery(Integer form, Integer size, String sort, String docName, String lt,
                                     String gt, boolean isLte, boolean isGte, String... indexName) throws IOException {
-        // 创建请求
-        SearchRequest request = new SearchRequest(indexName);
-        SearchSourceBuilder builder = new SearchSourceBuilder();
+        return rangeNumQuery(EsSearchOption.page(form, size), docName, lt, gt, isLte, isGte, indexName);
+    }
+
+    /**
+     * 数值区间查询（可指定分页 / 排序 / 返回字段 / 总数统计）
+     *
+     * @param option    查询选项（可为空）
+     * @param docName   文档字段名称
+     * @param lt        小于某值
+     * @param gt        大于某值
+     * @param isLte     是否小于等于
+     * @param isGte     是否大于等于
+     * @param indexName 多个索引名称 （不填为全部）
+     * @return com.qingjiu.myes.entity.es.EsReturnData
+     * @author tjy
+     * @date 2026/10/18
+     **/
+    public EsReturnData rangeNumQuery(EsSearchOption option, String docName, String lt, String gt,
+                                      boolean isLte, boolean isGte, String... indexName) throws IOException {
+        RangeQueryBuilder query;
         if (isLte && isGte) {
-            builder.query(QueryBuilders.rangeQuery(docName).lte(lt).gte(gt));
+            query = QueryBuilders.rangeQuery(docName).lte(lt).gte(gt);
         } else if (isGte) {
-            builder.query(QueryBuilders.rangeQuery(docName).lt(lt).gte(gt));
+            query = QueryBuilders.rangeQuery(docName).lt(lt).gte(gt);
         } else if (isLte) {
-            builder.query(QueryBuilders.rangeQuery(docName).lte(lt).gt(gt));
+            query = QueryBuilders.rangeQuery(docName).lte(lt).gt(gt);
         } else {
-            builder.query(QueryBuilders.rangeQuery(docName).lt(lt).gt(gt));
+            query = QueryBuilders.rangeQuery(docName).lt(lt).gt(gt);
         }
+        return search(query, option, indexName);
+    }
 
-        /*
-         ******** 分页 ********
-         */
-        if (form != null && form > 0) {
-            builder.from(form);
-        }
-        if (size != null && size > 0) {
-            builder.size(size);
+    /***********************************************************************************************
+     ***                                 导             出                                       ***
+     ***********************************************************************************************
+     *                                date     :   2026-10-18 10:12:30                             *
+     *                                author  :   tjy                                              *
+     * ------------------------------------------------------------------------------------------- *
+     * Methods:                                                                                    *
+     *      exportIterator -- 并行 sliced scroll 逐条读取                                          *
+     *      exportStream                                                                           *
+     *      export -- 回调方式                                                                     *
+     * - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - */
+
+    /**
+     * 全量导出（迭代器），多个 slice 并行 scroll，内存占用固定；提前结束遍历时必须 close
+     *
+     * @param query     查询条件（导出全部使用 QueryBuilders.matchAllQuery()）
+     * @param slices    并行 slice 数（为空或小于1时使用配置值）
+     * @param indexName 多个索引名称 （不填为全部）
+     * @return com.qingjiu.myes.config.elasticsearch.EsExportIterator
+     * @author tjy
+     * @date 2026/10/18
+     **/
+    public EsExportIterator exportIterator(QueryBuilder query, Integer slices, String... indexName) {
+        ElasticSearchEntity.Export conf = elasticSearchEntity.getExport();
+        int n = slices != null && slices > 0 ? slices
+                : conf.getSlices() > 0 ? conf.getSlices() : Runtime.getRuntime().availableProcessors();
+        // 导出与批量写入共用 BATCH 并发许可，迭代器 close 时归还
+        EsAdmissionControl.Permit permit = admissionControl.acquire(EsWorkload.BATCH);
+        try {
+            return new EsExportIterator(bulkClient, permit, query, n, conf.getBatchSize(),
+                    TimeValue.timeValueSeconds(conf.getKeepAliveSeconds()), conf.getQueueCapacity(), true, indexName);
+        } catch (RuntimeException e) {
+            permit.close();
+            throw e;
         }
-        /*
-         ******** 排序 ********
-         */
-        // buildSort(sort, searchSourceBuilder);
-        request.source(builder);
-        SearchResponse response = client.search(request, RequestOptions.DEFAULT);
-        // 检索searchist
-        SearchHits hits = response.getHits();
-        TotalHits totalHits = hits.getTotalHits();
-        // 将数据封装
-        EsReturnData esReturnData = new EsReturnData();
-        // 搜索出来的数据下的最大评分
-        esReturnData.setMaxScore(hits.getMaxScore());
-        // 数量统计
-        esReturnData.setNum(totalHits.value);
-        for (SearchHit hit : hits.getHits()) {
-            EsData data = new EsData(hit.getSourceAsMap(), hit.getSourceAsString(), hit.getIndex(),
-                    hit.getScore(), hit.getId());
-            esReturnData.getEsDataList().add(data);
+    }
+
+    /**
+     * 全量导出（Stream），使用完请 close（try-with-resources）
+     *
+     * @param query     查询条件
+     * @param slices    并行 slice 数（为空或小于1时使用配置值）
+     * @param indexName 多个索引名称 （不填为全部）
+     * @return java.util.stream.Stream
+     * @author tjy
+     * @date 2026/10/18
+     **/
+    public Stream<EsData> exportStream(QueryBuilder query, Integer slices, String... indexName) {
+        EsExportIterator iterator = exportIterator(query, slices, indexName);
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator, Spliterator.NONNULL), false)
+                .onClose(iterator::close);
+    }
+
+    /**
+     * 全量导出（回调），每条数据交给 sink 处理
+     *
+     * @param query     查询条件
+     * @param slices    并行 slice 数（为空或小于1时使用配置值）
+     * @param sink      数据处理回调（在调用方线程中执行）
+     * @param indexName 多个索引名称 （不填为全部）
+     * @return long 导出条数
+     * @author tjy
+     * @date 2026/10/18
+     **/
+    public long export(QueryBuilder query, Integer slices, Consumer<EsData> sink, String... indexName) {
+        long count = 0;
+        try (EsExportIterator iterator = exportIterator(query, slices, indexName)) {
+            while (iterator.hasNext()) {
+                sink.accept(iterator.next());
+                count++;
+            }
         }
-        return esReturnData;
+        return count;
     }
 
     /***********************************************************************************************
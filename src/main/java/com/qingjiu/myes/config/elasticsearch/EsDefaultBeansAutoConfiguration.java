@@ -0,0 +1,71 @@
+package com.qingjiu.myes.config.elasticsearch;
+
+import com.qingjiu.myes.entity.es.ElasticSearchEntity;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 可被覆盖的默认 Bean（文档序列化、id 生成、异步回调线程池）
+ * <p>
+ * 通过 META-INF/spring.factories 注册为自动配置，在所有用户配置之后处理，
+ * {@link ConditionalOnMissingBean} 才能可靠地看到用户自己声明的 Bean；不要放进组件扫描的普通配置类。
+ *
+ * @author tjy
+ * @date 2026/10/18
+ **/
+@Configuration
+public class EsDefaultBeansAutoConfiguration {
+
+    private final ElasticSearchEntity elasticSearchEntity;
+
+    public EsDefaultBeansAutoConfiguration(ElasticSearchEntity elasticSearchEntity) {
+        this.elasticSearchEntity = elasticSearchEntity;
+    }
+
+    /**
+     * 文档序列化（可自行声明 EsDocumentSerializer Bean 覆盖）
+     */
+    @Bean
+    @ConditionalOnMissingBean(EsDocumentSerializer.class)
+    public EsDocumentSerializer esDocumentSerializer() {
+        return new FastJsonDocumentSerializer();
+    }
+
+    /**
+     * 文档 id 生成（按 id-generation.strategy，可自行声明 EsIdGenerator Bean 覆盖）
+     */
+    @Bean
+    @ConditionalOnMissingBean(EsIdGenerator.class)
+    public EsIdGenerator esIdGenerator() {
+        ElasticSearchEntity.IdGeneration conf = elasticSearchEntity.getIdGeneration();
+        return EsIdGenerator.of(conf.getStrategy(), conf.getNodeId());
+    }
+
+    /**
+     * EsAsyncClient 的回调线程池（可自行声明名为 esCallbackExecutor 的 Bean 覆盖）
+     * 回调不在 es 的 io 线程上执行，避免业务回调阻塞网络读写
+     */
+    @Bean(name = "esCallbackExecutor", destroyMethod = "shutdown")
+    @ConditionalOnMissingBean(name = "esCallbackExecutor")
+    public ExecutorService esCallbackExecutor() {
+        ElasticSearchEntity.Async conf = elasticSearchEntity.getAsync();
+        int threads = conf.getCallbackThreads() > 0 ? conf.getCallbackThreads() : Runtime.getRuntime().availableProcessors();
+        AtomicInteger seq = new AtomicInteger();
+        return new ThreadPoolExecutor(threads, threads, 60L, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(conf.getCallbackQueueCapacity()),
+                r -> {
+                    Thread thread = new Thread(r, "es-callback-" + seq.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                // 队列满时由提交回调的线程（es io 线程）直接执行
+                new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+}
@@ -0,0 +1,40 @@
+package com.qingjiu.myes.config.elasticsearch;
+
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.xcontent.XContentType;
+
+/**
+ * 文档序列化接口
+ * <p>
+ * 所有写入方法（addDocument / updateDocument / bulk）都通过它把对象转为请求体字节，读-改-写（conditionalUpdate）通过它把 _source 转回对象，
+ * 需要替换实现时自己声明一个该类型的 Bean 即可覆盖默认的 {@link FastJsonDocumentSerializer}。
+ *
+ * @author tjy
+ * @date 2026/10/18
+ **/
+public interface EsDocumentSerializer {
+
+    /**
+     * 序列化结果的内容类型
+     *
+     * @return org.elasticsearch.common.xcontent.XContentType
+     */
+    XContentType contentType();
+
+    /**
+     * 将文档对象序列化为字节
+     *
+     * @param source 文档对象
+     * @return org.elasticsearch.common.bytes.BytesReference
+     */
+    BytesReference serialize(Object source);
+
+    /**
+     * 将 _source 字节反序列化为文档对象
+     *
+     * @param source _source 字节
+     * @param type   文档类型
+     * @return T
+     */
+    <T> T deserialize(BytesReference source, Class<T> type);
+}
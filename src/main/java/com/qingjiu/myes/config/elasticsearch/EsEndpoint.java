@@ -0,0 +1,25 @@
+package com.qingjiu.myes.config.elasticsearch;
+
+/**
+ * 请求类型（熔断按类型分别统计，某一类请求出问题不影响其他类型）
+ *
+ * @author tjy
+ * @date 2026/10/18
+ **/
+public enum EsEndpoint {
+
+    /**
+     * 查询（_search / _msearch）
+     */
+    SEARCH,
+
+    /**
+     * 按 id 读取（get / exists / mget）
+     */
+    GET,
+
+    /**
+     * 写入（bulk 以及单文档 index / update / delete，es 端同样由 write 线程池处理）
+     */
+    BULK
+}
@@ -0,0 +1,246 @@
+package com.qingjiu.myes.config.elasticsearch;
+
+import com.qingjiu.myes.entity.es.EsData;
+import lombok.extern.slf4j.Slf4j;
+import org.elasticsearch.action.search.ClearScrollRequest;
+import org.elasticsearch.action.search.SearchRequest;
+import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.action.search.SearchScrollRequest;
+import org.elasticsearch.client.RequestOptions;
+import org.elasticsearch.client.RestHighLevelClient;
+import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.index.query.QueryBuilder;
+import org.elasticsearch.search.SearchHit;
+import org.elasticsearch.search.builder.SearchSourceBuilder;
+import org.elasticsearch.search.slice.SliceBuilder;
+import org.elasticsearch.search.sort.FieldSortBuilder;
+import org.elasticsearch.search.sort.SortOrder;
+
+import java.io.Closeable;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 全索引导出迭代器（sliced scroll）
+ * <p>
+ * 每个 slice 一个线程并行 scroll，读到的数据放入有界队列交给调用方逐条消费，
+ * 队列满时 scroll 线程等待，内存占用与索引大小无关。
+ * 读完、出错或调用 close 后都会清除 scroll 上下文；提前结束遍历时必须调用 close。
+ * 导出期间占用一个 BATCH 并发许可，所有 slice 线程结束（包括 close 后处理完当前批次）时归还。
+ *
+ * @author tjy
+ * @date 2026/10/18
+ **/
+@Slf4j
+public class EsExportIterator implements Iterator<EsData>, Closeable {
+
+    /**
+     * slice 结束标记
+     */
+    private static final EsData END = new EsData();
+
+    private static final AtomicInteger EXPORT_SEQ = new AtomicInteger();
+
+    private final RestHighLevelClient client;
+
+    private final BlockingQueue<EsData> queue;
+
+    private final ExecutorService executor;
+
+    private final AtomicReference<Throwable> failure = new AtomicReference<>();
+
+    private final TimeValue keepAlive;
+
+    private final int slices;
+
+    /**
+     * BATCH 并发许可（最后一个 slice 线程结束时归还）
+     */
+    private final EsAdmissionControl.Permit permit;
+
+    /**
+     * 还在运行的 slice 线程数
+     */
+    private final AtomicInteger runningSlices;
+
+    /**
+     * 已结束的 slice 数量（只在调用方线程读写）
+     */
+    private int finishedSlices;
+
+    private EsData next;
+
+    private volatile boolean closed;
+
+    EsExportIterator(RestHighLevelClient client, EsAdmissionControl.Permit permit, QueryBuilder query, int slices,
+                     int batchSize, TimeValue keepAlive, int queueCapacity, boolean fetchSource, String... indexName) {
+        this.client = client;
+        this.permit = permit;
+        this.slices = slices;
+        this.runningSlices = new AtomicInteger(slices);
+        this.keepAlive = keepAlive;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        int seq = EXPORT_SEQ.incrementAndGet();
+        AtomicInteger threadSeq = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(slices, r -> {
+            Thread thread = new Thread(r, "es-export-" + seq + "-" + threadSeq.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        for (int i = 0; i < slices; i++) {
+            final int sliceId = i;
+            executor.execute(() -> {
+                try {
+                    runSlice(query, sliceId, batchSize, fetchSource, indexName);
+                } finally {
+                    if (runningSlices.decrementAndGet() == 0) {
+                        permit.close();
+                    }
+                }
+            });
+        }
+        executor.shutdown();
+    }
+
+    /**
+     * 单个 slice 的 scroll 循环
+     */
+    private void runSlice(QueryBuilder query, int sliceId, int batchSize, boolean fetchSource, String... indexName) {
+        String scrollId = null;
+        try {
+            SearchSourceBuilder builder = new SearchSourceBuilder()
+                    .query(query)
+                    .size(batchSize)
+                    // 按 _doc 排序，scroll 最快
+                    .sort(FieldSortBuilder.DOC_FIELD_NAME, SortOrder.ASC);
+            if (slices > 1) {
+                builder.slice(new SliceBuilder(sliceId, slices));
+            }
+            if (!fetchSource) {
+                // 只需要 _id 时不取 _source
+                builder.fetchSource(false);
+            }
+            SearchRequest request = new SearchRequest(indexName).source(builder).scroll(keepAlive);
+            SearchResponse response = client.search(request, RequestOptions.DEFAULT);
+            scrollId = response.getScrollId();
+            while (!closed) {
+                SearchHit[] hits = response.getHits().getHits();
+                if (hits.length == 0) {
+                    break;
+                }
+                for (SearchHit hit : hits) {
+                    put(new EsData(hit.getSourceRef(), hit.getIndex(), hit.getScore(), hit.getId()));
+                }
+                response = client.scroll(new SearchScrollRequest(scrollId).scroll(keepAlive), RequestOptions.DEFAULT);
+                scrollId = response.getScrollId();
+            }
+        } catch (Exception e) {
+            log.error("导出 slice [" + sliceId + "] 失败", e);
+            failure.compareAndSet(null, e);
+        } finally {
+            clearScroll(scrollId);
+            try {
+                put(END);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * 放入队列，队列满时等待；调用方已关闭则直接丢弃
+     */
+    private void put(EsData data) throws InterruptedException {
+        while (!closed) {
+            if (queue.offer(data, 100, TimeUnit.MILLISECONDS)) {
+                return;
+            }
+        }
+    }
+
+    private void clearScroll(String scrollId) {
+        if (scrollId == null) {
+            return;
+        }
+        try {
+            ClearScrollRequest request = new ClearScrollRequest();
+            request.addScrollId(scrollId);
+            client.clearScroll(request, RequestOptions.DEFAULT);
+        } catch (Exception e) {
+            log.warn("清除 scroll 失败（将在 keepAlive 到期后自动释放） ==> [{}]", e.getMessage());
+        }
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (next != null) {
+            return true;
+        }
+        while (finishedSlices < slices) {
+            checkFailure();
+            if (closed) {
+                // 已被关闭（可能是其他线程），队列已清空，slice 的结束标记不会再放入
+                return false;
+            }
+            EsData data;
+            try {
+                data = queue.poll(100, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                close();
+                throw new IllegalStateException("导出被中断", e);
+            }
+            if (data == null) {
+                continue;
+            }
+            if (data == END) {
+                finishedSlices++;
+                continue;
+            }
+            next = data;
+            return true;
+        }
+        checkFailure();
+        close();
+        return false;
+    }
+
+    @Override
+    public EsData next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        EsData data = next;
+        next = null;
+        return data;
+    }
+
+    private void checkFailure() {
+        Throwable e = failure.get();
+        if (e != null) {
+            close();
+            throw new IllegalStateException("导出失败", e);
+        }
+    }
+
+    /**
+     * 停止导出，scroll 线程处理完当前批次后退出并清除 scroll 上下文
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        queue.clear();
+        // slice 线程处理完当前的 scroll 请求后退出，最后一个退出时归还许可
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,162 @@
+package com.qingjiu.myes.config.elasticsearch;
+
+import com.qingjiu.myes.entity.es.ElasticSearchEntity;
+import lombok.extern.slf4j.Slf4j;
+import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.action.get.GetRequest;
+import org.elasticsearch.action.get.GetResponse;
+import org.elasticsearch.action.get.MultiGetItemResponse;
+import org.elasticsearch.action.get.MultiGetRequest;
+import org.elasticsearch.action.get.MultiGetResponse;
+import org.elasticsearch.client.RequestOptions;
+import org.elasticsearch.client.RestHighLevelClient;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 单文档读取合并（_mget）
+ * <p>
+ * 短时间窗口内并发提交的按 id 读取合并成一个 _mget 发送；窗口内只有一个请求时直接走 get。
+ * _mget 与 get 一样是实时读取（realtime），不需要等待 refresh。
+ *
+ * @author tjy
+ * @date 2026/10/18
+ **/
+@Slf4j
+@Component
+public class EsGetBatcher {
+
+    @Autowired
+    @Qualifier("restHighLevelClient")
+    private RestHighLevelClient client;
+
+    @Autowired
+    private ElasticSearchEntity elasticSearchEntity;
+
+    private EsMicroBatcher<GetRequest, GetResponse> batcher;
+
+    @PostConstruct
+    public void init() {
+        ElasticSearchEntity.Mget conf = elasticSearchEntity.getMget();
+        if (!conf.isEnabled()) {
+            return;
+        }
+        batcher = new EsMicroBatcher<>("es-mget-batcher", conf.getWindowMicros(), conf.getMaxBatch(), this::dispatch);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        if (batcher != null) {
+            batcher.close();
+        }
+    }
+
+    /**
+     * 读取单个文档：开启合并时与同一时间窗口内的其他读取合并发送，否则直接 get
+     *
+     * @param request get 请求
+     * @return org.elasticsearch.action.get.GetResponse
+     * @author tjy
+     * @date 2026/10/18
+     **/
+    public GetResponse get(GetRequest request) throws IOException {
+        if (batcher == null) {
+            return client.get(request, RequestOptions.DEFAULT);
+        }
+        return EsClientUtil.await(submit(request));
+    }
+
+    /**
+     * 提交一个读取，与同一时间窗口内的其他读取合并发送（未开启合并时直接异步 get）
+     *
+     * @param request get 请求
+     * @return java.util.concurrent.CompletableFuture 读取结果
+     * @author tjy
+     * @date 2026/10/18
+     **/
+    public CompletableFuture<GetResponse> submit(GetRequest request) {
+        if (batcher == null) {
+            CompletableFuture<GetResponse> future = new CompletableFuture<>();
+            client.getAsync(request, RequestOptions.DEFAULT, new ActionListener<GetResponse>() {
+                @Override
+                public void onResponse(GetResponse getResponse) {
+                    future.complete(getResponse);
+                }
+
+                @Override
+                public void onFailure(Exception e) {
+                    future.completeExceptionally(e);
+                }
+            });
+            return future;
+        }
+        return batcher.submit(request);
+    }
+
+    private void dispatch(List<EsMicroBatcher.Pending<GetRequest, GetResponse>> batch) {
+        if (batch.size() == 1) {
+            EsMicroBatcher.Pending<GetRequest, GetResponse> pending = batch.get(0);
+            client.getAsync(pending.getRequest(), RequestOptions.DEFAULT, new ActionListener<GetResponse>() {
+                @Override
+                public void onResponse(GetResponse getResponse) {
+                    pending.getFuture().complete(getResponse);
+                }
+
+                @Override
+                public void onFailure(Exception e) {
+                    pending.getFuture().completeExceptionally(e);
+                }
+            });
+            return;
+        }
+
+        MultiGetRequest request = new MultiGetRequest();
+        for (EsMicroBatcher.Pending<GetRequest, GetResponse> pending : batch) {
+            GetRequest get = pending.getRequest();
+            request.add(new MultiGetRequest.Item(get.index(), get.id())
+                    .routing(get.routing())
+                    .fetchSourceContext(get.fetchSourceContext()));
+        }
+        client.mgetAsync(request, RequestOptions.DEFAULT, new ActionListener<MultiGetResponse>() {
+            @Override
+            public void onResponse(MultiGetResponse response) {
+                MultiGetItemResponse[] items = response.getResponses();
+                for (int i = 0; i < batch.size(); i++) {
+                    if (items[i].isFailed()) {
+                        batch.get(i).getFuture().completeExceptionally(items[i].getFailure().getFailure());
+                    } else {
+                        batch.get(i).getFuture().complete(items[i].getResponse());
+                    }
+                }
+            }
+
+            @Override
+            public void onFailure(Exception e) {
+                for (EsMicroBatcher.Pending<GetRequest, GetResponse> pending : batch) {
+                    pending.getFuture().completeExceptionally(e);
+                }
+            }
+        });
+    }
+
+    /**
+     * 提交的读取数
+     */
+    public long getRequests() {
+        return batcher == null ? 0 : batcher.getRequests();
+    }
+
+    /**
+     * 实际发送的请求数（get + _mget）
+     */
+    public long getBatches() {
+        return batcher == null ? 0 : batcher.getBatches();
+    }
+}
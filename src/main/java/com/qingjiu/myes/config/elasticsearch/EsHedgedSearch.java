@@ -0,0 +1,338 @@
+package com.qingjiu.myes.config.elasticsearch;
+
+import com.qingjiu.myes.entity.es.ElasticSearchEntity;
+import lombok.extern.slf4j.Slf4j;
+import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.action.search.SearchRequest;
+import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.client.Cancellable;
+import org.elasticsearch.client.RequestOptions;
+import org.elasticsearch.client.RestHighLevelClient;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 对冲查询（hedged request）：降低长尾延迟
+ * <p>
+ * 先发出查询；超过延迟阈值（最近查询耗时的第 N 百分位）还没返回时，再发一个相同的查询，
+ * 用不同的 preference 让它落到其他分片副本上（RestClient 轮询节点，协调节点一般也不同），
+ * 取先成功返回的结果，取消另一个。只用于只读查询。
+ * <p>
+ * 对冲请求不排队：INTERACTIVE 没有空闲许可或超过对冲比例上限时不发，避免集群已经很忙时雪上加霜。
+ * 调用方已指定 preference（如按用户固定分片副本以保证翻页结果一致）时不对冲。
+ * <p>
+ * 延迟阈值只按第一次请求的耗时统计；对冲先返回时，第一次请求按截至此刻的耗时计入（它至少这么慢），
+ * 否则慢请求都被对冲掉后样本只剩快的，阈值会越来越小。
+ *
+ * @author tjy
+ * @date 2026/10/18
+ **/
+@Slf4j
+@Component
+public class EsHedgedSearch {
+
+    /**
+     * 计时线程（只负责触发对冲，不执行业务回调）
+     */
+    private static final ScheduledExecutorService TIMER = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "es-hedge-timer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @Autowired
+    @Qualifier("restHighLevelClient")
+    private RestHighLevelClient client;
+
+    @Autowired
+    private ElasticSearchEntity elasticSearchEntity;
+
+    @Autowired
+    private EsAdmissionControl admissionControl;
+
+    private ElasticSearchEntity.Hedge conf;
+
+    private LatencyWindow latencies;
+
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong hedged = new AtomicLong();
+    private final AtomicLong hedgeWins = new AtomicLong();
+    private final AtomicLong skipped = new AtomicLong();
+
+    @PostConstruct
+    public void init() {
+        conf = elasticSearchEntity.getHedge();
+        latencies = new LatencyWindow(conf.getWindowSize());
+        log.info("es 对冲查询 ==> enabled={}, percentile={}, delay=[{}ms, {}ms], maxHedgePercent={}",
+                conf.isEnabled(), conf.getPercentile(), conf.getMinDelayMillis(), conf.getMaxDelayMillis(),
+                conf.getMaxHedgePercent());
+    }
+
+    @PreDestroy
+    public void destroy() {
+        log.info("es 对冲查询统计 ==> {}", this);
+    }
+
+    public boolean isEnabled() {
+        return conf.isEnabled();
+    }
+
+    /**
+     * 对冲查询
+     *
+     * @param request 查询请求（只读）
+     * @return java.util.concurrent.CompletableFuture 先成功返回的查询结果（两个都失败时为后失败的异常）
+     * @author tjy
+     * @date 2026/10/18
+     **/
+    public CompletableFuture<SearchResponse> search(SearchRequest request) {
+        requests.incrementAndGet();
+        Race race = new Race();
+        race.primary = send(request, race, false);
+        if (request.preference() != null) {
+            return race.result;
+        }
+        long delay = delayMillis();
+        ScheduledFuture<?> timer = TIMER.schedule(() -> hedge(request, race), delay, TimeUnit.MILLISECONDS);
+        race.result.whenComplete((response, e) -> timer.cancel(false));
+        return race.result;
+    }
+
+    /**
+     * 当前的对冲延迟（毫秒）：最近查询耗时的第 N 百分位，样本不足时取上限
+     */
+    public long delayMillis() {
+        long delay = latencies.percentile(conf.getPercentile(), conf.getMaxDelayMillis());
+        return Math.max(conf.getMinDelayMillis(), Math.min(conf.getMaxDelayMillis(), delay));
+    }
+
+    private void hedge(SearchRequest request, Race race) {
+        if (race.result.isDone()) {
+            return;
+        }
+        if (hedged.get() + 1 > requests.get() * conf.getMaxHedgePercent() / 100.0) {
+            skipped.incrementAndGet();
+            return;
+        }
+        EsAdmissionControl.Permit permit;
+        try {
+            permit = admissionControl.tryAcquire(EsWorkload.INTERACTIVE);
+        } catch (RejectedExecutionException e) {
+            skipped.incrementAndGet();
+            return;
+        }
+        hedged.incrementAndGet();
+        SearchRequest copy = new SearchRequest(request);
+        // 随机 preference，让对冲请求尽量落到与第一次不同的分片副本上
+        copy.preference("hedge-" + Long.toHexString(ThreadLocalRandom.current().nextLong()));
+        race.result.whenComplete((response, e) -> permit.close());
+        race.hedge = send(copy, race, true);
+        if (race.result.isDone()) {
+            // 发送对冲请求的同时第一次请求已返回
+            race.cancelLoser();
+        }
+    }
+
+    private Cancellable send(SearchRequest request, Race race, boolean isHedge) {
+        long start = System.nanoTime();
+        if (!isHedge) {
+            race.primaryStart = start;
+        }
+        race.pending.incrementAndGet();
+        return client.searchAsync(request, RequestOptions.DEFAULT, new ActionListener<SearchResponse>() {
+            @Override
+            public void onResponse(SearchResponse searchResponse) {
+                if (!isHedge) {
+                    recordPrimary(race);
+                }
+                // 先确定胜者再结束 future：其他线程看到 future 已完成时，一定能读到胜者
+                if (race.hedgeWon.compareAndSet(null, isHedge)) {
+                    if (isHedge) {
+                        hedgeWins.incrementAndGet();
+                        // 第一次请求输给了对冲，按截至此刻的耗时计入
+                        recordPrimary(race);
+                    }
+                    race.result.complete(searchResponse);
+                    race.cancelLoser();
+                }
+            }
+
+            @Override
+            public void onFailure(Exception e) {
+                // 另一个请求还在途时等它的结果（被取消的一方在结果已确定后才失败，不影响结果）
+                if (race.pending.decrementAndGet() == 0) {
+                    race.result.completeExceptionally(e);
+                }
+            }
+        });
+    }
+
+    /**
+     * 记录第一次请求的耗时（每次查询只记录一次）
+     */
+    private void recordPrimary(Race race) {
+        if (race.primaryRecorded.compareAndSet(false, true)) {
+            latencies.add(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - race.primaryStart));
+        }
+    }
+
+    /**
+     * 一次对冲查询中两个请求的竞争状态
+     */
+    private static class Race {
+
+        private final CompletableFuture<SearchResponse> result = new CompletableFuture<>();
+
+        private final AtomicInteger pending = new AtomicInteger();
+
+        private final AtomicBoolean cancelled = new AtomicBoolean();
+
+        private final AtomicBoolean primaryRecorded = new AtomicBoolean();
+
+        private volatile long primaryStart;
+
+        private volatile Cancellable primary;
+
+        private volatile Cancellable hedge;
+
+        /**
+         * 先成功返回的一方（true 为对冲请求，还没有成功返回时为 null）
+         */
+        private final AtomicReference<Boolean> hedgeWon = new AtomicReference<>();
+
+        void cancelLoser() {
+            Boolean won = hedgeWon.get();
+            if (won == null) {
+                // 两个请求都失败，没有需要取消的
+                return;
+            }
+            Cancellable loser = won ? primary : hedge;
+            if (loser != null && cancelled.compareAndSet(false, true)) {
+                loser.cancel();
+            }
+        }
+    }
+
+    /**
+     * 最近 N 次查询耗时的滑动窗口
+     */
+    private static class LatencyWindow {
+
+        /**
+         * 样本数少于这个值时不计算百分位
+         */
+        private static final int MIN_SAMPLES = 20;
+
+        private final long[] samples;
+
+        private int next;
+
+        private int count;
+
+        private long cachedPercentile = -1;
+
+        private int sinceCached;
+
+        LatencyWindow(int size) {
+            this.samples = new long[Math.max(size, MIN_SAMPLES)];
+        }
+
+        synchronized void add(long millis) {
+            samples[next] = millis;
+            next = (next + 1) % samples.length;
+            count = Math.min(count + 1, samples.length);
+            sinceCached++;
+        }
+
+        /**
+         * 第 percentile 百分位（每新增窗口大小 1/10 的样本重新排序一次，避免每次查询都排序）
+         */
+        synchronized long percentile(double percentile, long defaultValue) {
+            if (count < MIN_SAMPLES) {
+                return defaultValue;
+            }
+            if (cachedPercentile < 0 || sinceCached >= samples.length / 10) {
+                long[] sorted = Arrays.copyOf(samples, count);
+                Arrays.sort(sorted);
+                int index = (int) Math.ceil(percentile / 100.0 * count) - 1;
+                cachedPercentile = sorted[Math.max(0, Math.min(count - 1, index))];
+                sinceCached = 0;
+            }
+            return cachedPercentile;
+        }
+    }
+
+    /**
+     * 查询总数
+     */
+    public long getRequests() {
+        return requests.get();
+    }
+
+    /**
+     * 发出对冲请求的次数
+     */
+    public long getHedged() {
+        return hedged.get();
+    }
+
+    /**
+     * 对冲请求先返回的次数
+     */
+    public long getHedgeWins() {
+        return hedgeWins.get();
+    }
+
+    /**
+     * 到达延迟阈值但因比例上限或没有空闲许可而没有发出对冲的次数
+     */
+    public long getSkipped() {
+        return skipped.get();
+    }
+
+    /**
+     * 对冲比例（对冲次数 / 查询总数）
+     */
+    public double getHedgeRate() {
+        long total = requests.get();
+        return total == 0 ? 0 : (double) hedged.get() / total;
+    }
+
+    /**
+     * 对冲胜率（对冲先返回次数 / 对冲次数），很低说明延迟阈值偏小，白白增加了集群负载
+     */
+    public double getWinRate() {
+        long total = hedged.get();
+        return total == 0 ? 0 : (double) hedgeWins.get() / total;
+    }
+
+    public void resetStats() {
+        requests.set(0);
+        hedged.set(0);
+        hedgeWins.set(0);
+        skipped.set(0);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("EsHedgedSearch[requests=%d, hedged=%d (%.2f%%), hedgeWins=%d (%.2f%%), skipped=%d, delay=%dms]",
+                getRequests(), getHedged(), getHedgeRate() * 100, getHedgeWins(), getWinRate() * 100, getSkipped(),
+                delayMillis());
+    }
+}
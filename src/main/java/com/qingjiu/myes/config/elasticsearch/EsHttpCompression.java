@@ -0,0 +1,325 @@
+package com.qingjiu.myes.config.elasticsearch;
+
+import com.qingjiu.myes.entity.es.ElasticSearchEntity;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.http.Header;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpEntityEnclosingRequest;
+import org.apache.http.HttpException;
+import org.apache.http.HttpHost;
+import org.apache.http.HttpRequest;
+import org.apache.http.HttpResponse;
+import org.apache.http.concurrent.FutureCallback;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.entity.ContentType;
+import org.apache.http.impl.nio.client.CloseableHttpAsyncClient;
+import org.apache.http.impl.nio.client.HttpAsyncClientBuilder;
+import org.apache.http.nio.ContentDecoder;
+import org.apache.http.nio.IOControl;
+import org.apache.http.nio.client.methods.HttpAsyncMethods;
+import org.apache.http.nio.protocol.HttpAsyncRequestProducer;
+import org.apache.http.nio.protocol.HttpAsyncResponseConsumer;
+import org.apache.http.protocol.HttpContext;
+import org.apache.http.util.EntityUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * http gzip 压缩
+ * <p>
+ * 低版本（7.6）的 RestClient 不支持压缩，这里包装底层的 HttpAsyncClient：
+ * 请求体超过阈值时 gzip 压缩后发送（Content-Encoding: gzip，es 会自动解压）；
+ * 请求带上 Accept-Encoding: gzip，es 返回压缩的响应后在这里解压，上层代码无感知。
+ * 同时统计压缩前后的字节数，便于评估压缩效果。
+ *
+ * @author tjy
+ * @date 2026/10/18
+ **/
+@Slf4j
+public class EsHttpCompression {
+
+    private static final String GZIP = "gzip";
+
+    private volatile boolean enabled;
+
+    private volatile int requestThresholdBytes;
+
+    private final AtomicLong requestBytes = new AtomicLong();
+    private final AtomicLong requestWireBytes = new AtomicLong();
+    private final AtomicLong responseBytes = new AtomicLong();
+    private final AtomicLong responseWireBytes = new AtomicLong();
+
+    public EsHttpCompression(ElasticSearchEntity.Compression conf) {
+        this.enabled = conf.isEnabled();
+        this.requestThresholdBytes = conf.getRequestThresholdBytes();
+    }
+
+    /**
+     * 包装 HttpAsyncClientBuilder，build 出的客户端带压缩
+     *
+     * @param builder 已配置好的 builder
+     * @return org.apache.http.impl.nio.client.HttpAsyncClientBuilder
+     */
+    HttpAsyncClientBuilder wrap(HttpAsyncClientBuilder builder) {
+        return new HttpAsyncClientBuilder() {
+            @Override
+            public CloseableHttpAsyncClient build() {
+                return new CompressingClient(builder.build());
+            }
+        };
+    }
+
+    /**
+     * 请求体超过阈值时压缩（重试时请求已压缩过，不会重复压缩）
+     */
+    private void compressRequest(HttpRequest request) throws IOException {
+        if (!(request instanceof HttpEntityEnclosingRequest)) {
+            return;
+        }
+        HttpEntity entity = ((HttpEntityEnclosingRequest) request).getEntity();
+        if (entity == null || entity.getContentEncoding() != null) {
+            return;
+        }
+        long length = entity.getContentLength();
+        requestBytes.addAndGet(Math.max(length, 0));
+        if (!enabled || length < requestThresholdBytes) {
+            requestWireBytes.addAndGet(Math.max(length, 0));
+            return;
+        }
+        byte[] compressed = gzip(EntityUtils.toByteArray(entity));
+        ByteArrayEntity gzipEntity = new ByteArrayEntity(compressed,
+                entity.getContentType() == null ? null : ContentType.parse(entity.getContentType().getValue()));
+        gzipEntity.setContentEncoding(GZIP);
+        ((HttpEntityEnclosingRequest) request).setEntity(gzipEntity);
+        requestWireBytes.addAndGet(compressed.length);
+    }
+
+    /**
+     * 解压 gzip 响应
+     */
+    private void decompressResponse(HttpResponse response) throws IOException {
+        HttpEntity entity = response.getEntity();
+        if (entity == null) {
+            return;
+        }
+        Header encoding = entity.getContentEncoding() != null ? entity.getContentEncoding()
+                : response.getFirstHeader("Content-Encoding");
+        if (encoding == null || !GZIP.equalsIgnoreCase(encoding.getValue())) {
+            long length = Math.max(entity.getContentLength(), 0);
+            responseWireBytes.addAndGet(length);
+            responseBytes.addAndGet(length);
+            return;
+        }
+        byte[] compressed = EntityUtils.toByteArray(entity);
+        byte[] content = gunzip(compressed);
+        response.setEntity(new ByteArrayEntity(content,
+                entity.getContentType() == null ? null : ContentType.parse(entity.getContentType().getValue())));
+        response.removeHeaders("Content-Encoding");
+        response.removeHeaders("Content-Length");
+        responseWireBytes.addAndGet(compressed.length);
+        responseBytes.addAndGet(content.length);
+    }
+
+    static byte[] gzip(byte[] bytes) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(bytes.length / 4, 64));
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(bytes);
+        }
+        return out.toByteArray();
+    }
+
+    static byte[] gunzip(byte[] bytes) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(bytes.length * 4);
+        try (GZIPInputStream gzip = new GZIPInputStream(new ByteArrayInputStream(bytes))) {
+            byte[] buffer = new byte[8192];
+            int n;
+            while ((n = gzip.read(buffer)) > 0) {
+                out.write(buffer, 0, n);
+            }
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * 带压缩的 HttpAsyncClient（只包装 RestClient 用到的方法）
+     */
+    private class CompressingClient extends CloseableHttpAsyncClient {
+
+        private final CloseableHttpAsyncClient delegate;
+
+        CompressingClient(CloseableHttpAsyncClient delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public <T> Future<T> execute(HttpAsyncRequestProducer requestProducer,
+                                     HttpAsyncResponseConsumer<T> responseConsumer,
+                                     HttpContext context, FutureCallback<T> callback) {
+            HttpAsyncRequestProducer producer = requestProducer;
+            try {
+                HttpHost target = requestProducer.getTarget();
+                HttpRequest request = requestProducer.generateRequest();
+                if (enabled) {
+                    request.setHeader("Accept-Encoding", GZIP);
+                } else {
+                    request.removeHeaders("Accept-Encoding");
+                }
+                compressRequest(request);
+                producer = HttpAsyncMethods.create(target, request);
+            } catch (IOException | HttpException e) {
+                log.warn("es 请求压缩失败，按原请求发送 ==> [{}]", e.getMessage());
+            }
+            return delegate.execute(producer, new DecompressingConsumer<>(responseConsumer), context, callback);
+        }
+
+        @Override
+        public void start() {
+            delegate.start();
+        }
+
+        @Override
+        public boolean isRunning() {
+            return delegate.isRunning();
+        }
+
+        @Override
+        public void close() throws IOException {
+            delegate.close();
+        }
+    }
+
+    /**
+     * 取结果时解压响应
+     */
+    private class DecompressingConsumer<T> implements HttpAsyncResponseConsumer<T> {
+
+        private final HttpAsyncResponseConsumer<T> delegate;
+
+        private volatile Exception exception;
+
+        private boolean decompressed;
+
+        DecompressingConsumer(HttpAsyncResponseConsumer<T> delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void responseReceived(HttpResponse response) throws IOException, HttpException {
+            delegate.responseReceived(response);
+        }
+
+        @Override
+        public void consumeContent(ContentDecoder decoder, IOControl ioControl) throws IOException {
+            delegate.consumeContent(decoder, ioControl);
+        }
+
+        @Override
+        public void responseCompleted(HttpContext context) {
+            delegate.responseCompleted(context);
+        }
+
+        @Override
+        public void failed(Exception ex) {
+            delegate.failed(ex);
+        }
+
+        @Override
+        public Exception getException() {
+            return exception != null ? exception : delegate.getException();
+        }
+
+        @Override
+        public synchronized T getResult() {
+            T result = delegate.getResult();
+            if (!decompressed && result instanceof HttpResponse) {
+                decompressed = true;
+                try {
+                    decompressResponse((HttpResponse) result);
+                } catch (IOException e) {
+                    exception = e;
+                    log.error("es 响应解压失败", e);
+                }
+            }
+            // 解压失败时不返回结果，请求按 getException 中的异常失败，不把压缩 / 损坏的内容交给解析
+            return exception != null ? null : result;
+        }
+
+        @Override
+        public boolean isDone() {
+            return delegate.isDone();
+        }
+
+        @Override
+        public void close() throws IOException {
+            delegate.close();
+        }
+
+        @Override
+        public boolean cancel() {
+            return delegate.cancel();
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public int getRequestThresholdBytes() {
+        return requestThresholdBytes;
+    }
+
+    public void setRequestThresholdBytes(int requestThresholdBytes) {
+        this.requestThresholdBytes = requestThresholdBytes;
+    }
+
+    /**
+     * 请求体原始字节数
+     */
+    public long getRequestBytes() {
+        return requestBytes.get();
+    }
+
+    /**
+     * 请求体实际发送字节数
+     */
+    public long getRequestWireBytes() {
+        return requestWireBytes.get();
+    }
+
+    /**
+     * 响应体解压后字节数
+     */
+    public long getResponseBytes() {
+        return responseBytes.get();
+    }
+
+    /**
+     * 响应体实际接收字节数
+     */
+    public long getResponseWireBytes() {
+        return responseWireBytes.get();
+    }
+
+    public void resetStats() {
+        requestBytes.set(0);
+        requestWireBytes.set(0);
+        responseBytes.set(0);
+        responseWireBytes.set(0);
+    }
+
+    @Override
+    public String toString() {
+        return "EsHttpCompression[enabled=" + enabled + ", request " + getRequestBytes() + " -> " + getRequestWireBytes()
+                + " bytes, response " + getResponseWireBytes() + " -> " + getResponseBytes() + " bytes]";
+    }
+}
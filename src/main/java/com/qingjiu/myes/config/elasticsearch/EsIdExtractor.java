@@ -0,0 +1,101 @@
+package com.qingjiu.myes.config.elasticsearch;
+
+import com.qingjiu.myes.entity.es.EsId;
+
+import java.lang.reflect.Field;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * 从文档对象中取文档 id（读取 {@link EsId} 标记的字段）
+ *
+ * @author tjy
+ * @date 2026/10/18
+ **/
+public final class EsIdExtractor {
+
+    /**
+     * 类 -> @EsId 字段（没有标记时为 empty），反射结果缓存
+     */
+    private static final Map<Class<?>, Optional<Field>> FIELDS = new ConcurrentHashMap<>();
+
+    private EsIdExtractor() {
+    }
+
+    /**
+     * 是否有 @EsId 标记的字段
+     *
+     * @param type 文档类型
+     * @return boolean
+     */
+    public static boolean hasId(Class<?> type) {
+        return field(type).isPresent();
+    }
+
+    /**
+     * 读取文档 id
+     *
+     * @param source 文档对象
+     * @return java.lang.String 没有 @EsId 字段或字段值为空时为 null
+     */
+    public static String idOrNull(Object source) {
+        if (source == null) {
+            return null;
+        }
+        Optional<Field> field = field(source.getClass());
+        if (!field.isPresent()) {
+            return null;
+        }
+        try {
+            Object value = field.get().get(source);
+            return value == null ? null : value.toString();
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException("读取 @EsId 字段失败 ==> " + field.get(), e);
+        }
+    }
+
+    /**
+     * 读取文档 id（必须有值）
+     *
+     * @param source 文档对象
+     * @return java.lang.String
+     * @throws IllegalArgumentException 没有 @EsId 字段或字段值为空
+     */
+    public static String id(Object source) {
+        String id = idOrNull(source);
+        if (id == null || id.isEmpty()) {
+            throw new IllegalArgumentException("文档没有 @EsId 字段或 id 为空 ==> " + source);
+        }
+        return id;
+    }
+
+    /**
+     * 按 @EsId 字段取 id 的函数（作为批量修改的 idExtractor）
+     */
+    public static Function<Object, String> annotated() {
+        return EsIdExtractor::id;
+    }
+
+    private static Optional<Field> field(Class<?> type) {
+        return FIELDS.computeIfAbsent(type, EsIdExtractor::find);
+    }
+
+    private static Optional<Field> find(Class<?> type) {
+        Field found = null;
+        for (Class<?> c = type; c != null && c != Object.class; c = c.getSuperclass()) {
+            for (Field field : c.getDeclaredFields()) {
+                if (!field.isAnnotationPresent(EsId.class)) {
+                    continue;
+                }
+                if (found != null) {
+                    throw new IllegalStateException(type.getName() + " 有多个 @EsId 字段");
+                }
+                field.setAccessible(true);
+                found = field;
+            }
+        }
+        return Optional.ofNullable(found);
+    }
+}
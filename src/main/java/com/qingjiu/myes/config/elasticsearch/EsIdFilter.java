@@ -0,0 +1,442 @@
+package com.qingjiu.myes.config.elasticsearch;
+
+import com.qingjiu.myes.entity.es.ElasticSearchEntity;
+import com.qingjiu.myes.entity.es.EsData;
+import lombok.extern.slf4j.Slf4j;
+import org.elasticsearch.action.DocWriteRequest;
+import org.elasticsearch.action.DocWriteResponse;
+import org.elasticsearch.action.admin.indices.refresh.RefreshRequest;
+import org.elasticsearch.action.bulk.BulkItemResponse;
+import org.elasticsearch.action.bulk.BulkRequest;
+import org.elasticsearch.action.bulk.BulkResponse;
+import org.elasticsearch.client.RequestOptions;
+import org.elasticsearch.client.RestHighLevelClient;
+import org.elasticsearch.client.core.CountRequest;
+import org.elasticsearch.common.hash.MurmurHash3;
+import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.index.query.QueryBuilders;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 文档 id 本地布隆过滤器（existsDocument 的快速否定路径）
+ * <p>
+ * 同步任务在每次写入前都会调用 existsDocument，而新 id 大多数都不存在。对配置的索引在本地维护一个布隆过滤器：
+ * 过滤器判定“一定不存在”时直接返回 false，不再请求 es；判定“可能存在”时照常请求 es。
+ * <ul>
+ *     <li>过滤器由 sliced scroll 扫描全部 _id 建立（不取 _source），并按配置周期重建（清除已删除的 id）；</li>
+ *     <li>经过 EsClientUtil / EsAsyncClient / EsBulkIndexer 的写入在发送前把 id 加入过滤器（自动生成的 id 在响应后加入）；</li>
+ *     <li>重建时先让新过滤器接收写入，等待在途写入结束（settleMillis）并 refresh 后再扫描，保证不漏掉 id；</li>
+ *     <li>过滤器建立完成之前、或索引是别名（扫描到的文档属于其他索引）时不生效，全部请求 es。</li>
+ * </ul>
+ * 注意：不经过本项目写入的数据过滤器无法感知（会被误判为不存在），只能对只由本项目写入的索引开启。
+ *
+ * @author tjy
+ * @date 2026/10/18
+ **/
+@Slf4j
+@Component
+public class EsIdFilter {
+
+    @Autowired
+    @Qualifier("bulkRestHighLevelClient")
+    private RestHighLevelClient bulkClient;
+
+    @Autowired
+    private ElasticSearchEntity elasticSearchEntity;
+
+    @Autowired
+    private EsAdmissionControl admissionControl;
+
+    private final Map<String, Slot> slots = new ConcurrentHashMap<>();
+
+    private ScheduledExecutorService scheduler;
+
+    private final AtomicLong checks = new AtomicLong();
+    private final AtomicLong skipped = new AtomicLong();
+    private final AtomicLong falsePositives = new AtomicLong();
+
+    public EsIdFilter() {
+    }
+
+    /**
+     * 不依赖 Spring 直接创建（不连接 es、不定时重建，过滤器由 clear 建立）
+     */
+    EsIdFilter(ElasticSearchEntity elasticSearchEntity, ScheduledExecutorService scheduler) {
+        this.elasticSearchEntity = elasticSearchEntity;
+        this.scheduler = scheduler;
+        for (String index : elasticSearchEntity.getIdFilter().getIndices()) {
+            slots.put(index, new Slot(index));
+        }
+    }
+
+    @PostConstruct
+    public void init() {
+        ElasticSearchEntity.IdFilter conf = elasticSearchEntity.getIdFilter();
+        if (!conf.isEnabled() || conf.getIndices().isEmpty()) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "es-id-filter");
+            thread.setDaemon(true);
+            return thread;
+        });
+        for (String index : conf.getIndices()) {
+            Slot slot = new Slot(index);
+            slots.put(index, slot);
+            scheduler.scheduleWithFixedDelay(() -> rebuild(slot), 0, conf.getRebuildIntervalMinutes(), TimeUnit.MINUTES);
+        }
+        log.info("es id 过滤器 ==> indices={}, falsePositiveRate={}, rebuildInterval={}min",
+                conf.getIndices(), conf.getFalsePositiveRate(), conf.getRebuildIntervalMinutes());
+    }
+
+    @PreDestroy
+    public void destroy() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    /**
+     * 判断文档是否存在：过滤器判定一定不存在时直接返回 false，否则请求 es
+     *
+     * @param index  索引名称
+     * @param id     文档id
+     * @param remote 请求 es
+     * @return boolean
+     * @author tjy
+     * @date 2026/10/18
+     **/
+    public boolean exists(String index, String id, EsAdmissionControl.Call<Boolean> remote) throws IOException {
+        Slot slot = slots.get(index);
+        BloomFilter filter = slot == null ? null : slot.current;
+        if (filter == null) {
+            return remote.call();
+        }
+        checks.incrementAndGet();
+        if (!filter.mightContain(id)) {
+            skipped.incrementAndGet();
+            return false;
+        }
+        boolean exists = remote.call();
+        if (!exists) {
+            falsePositives.incrementAndGet();
+        }
+        return exists;
+    }
+
+    /**
+     * 写入前记录 id（自动生成 id 的写入在响应后用 added 记录）
+     *
+     * @param request 写入请求
+     */
+    public void add(DocWriteRequest<?> request) {
+        if (request.opType() != DocWriteRequest.OpType.DELETE && request.id() != null) {
+            add(request.index(), request.id());
+        }
+    }
+
+    /**
+     * 写入前记录 bulk 中的 id
+     *
+     * @param request bulk 请求
+     */
+    public void add(BulkRequest request) {
+        if (slots.isEmpty()) {
+            return;
+        }
+        for (DocWriteRequest<?> item : request.requests()) {
+            add(item);
+        }
+    }
+
+    /**
+     * 写入后记录 id（自动生成的 id）
+     *
+     * @param response 写入响应
+     */
+    public void added(DocWriteResponse response) {
+        if (response.getResult() != DocWriteResponse.Result.DELETED
+                && response.getResult() != DocWriteResponse.Result.NOT_FOUND) {
+            add(response.getIndex(), response.getId());
+        }
+    }
+
+    /**
+     * 写入后记录 bulk 中成功写入的 id（自动生成的 id）
+     *
+     * @param response bulk 响应
+     */
+    public void added(BulkResponse response) {
+        if (slots.isEmpty()) {
+            return;
+        }
+        for (BulkItemResponse item : response) {
+            if (!item.isFailed() && item.getOpType() != DocWriteRequest.OpType.DELETE) {
+                add(item.getIndex(), item.getId());
+            }
+        }
+    }
+
+    public void add(String index, String id) {
+        Slot slot = index == null ? null : slots.get(index);
+        if (slot == null) {
+            return;
+        }
+        // 先写正在重建的过滤器，再写当前过滤器（与 rebuild 中的替换顺序相反，保证不会两边都漏掉）
+        BloomFilter building = slot.building;
+        if (building != null) {
+            building.put(id);
+        }
+        BloomFilter current = slot.current;
+        if (current != null && current.put(id) && current.isFull()) {
+            requestRebuild(slot);
+        }
+    }
+
+    /**
+     * 索引被删除 / 重新创建后清空过滤器
+     *
+     * @param indexName 索引名称
+     */
+    public void clear(String... indexName) {
+        for (String index : indexName) {
+            Slot slot = slots.get(index);
+            if (slot != null) {
+                slot.current = new BloomFilter(elasticSearchEntity.getIdFilter().getMinCapacity(),
+                        elasticSearchEntity.getIdFilter().getFalsePositiveRate());
+            }
+        }
+    }
+
+    /**
+     * 立即重建（异步）
+     *
+     * @param index 索引名称
+     */
+    public void rebuild(String index) {
+        Slot slot = slots.get(index);
+        if (slot != null) {
+            requestRebuild(slot);
+        }
+    }
+
+    private void requestRebuild(Slot slot) {
+        if (scheduler != null && slot.rebuildRequested.compareAndSet(false, true)) {
+            scheduler.execute(() -> rebuild(slot));
+        }
+    }
+
+    private void rebuild(Slot slot) {
+        slot.rebuildRequested.set(false);
+        ElasticSearchEntity.IdFilter conf = elasticSearchEntity.getIdFilter();
+        long start = System.currentTimeMillis();
+        try {
+            long count = bulkClient.count(new CountRequest(slot.index), RequestOptions.DEFAULT).getCount();
+            long capacity = capacity(count, conf);
+            BloomFilter filter = new BloomFilter(capacity, conf.getFalsePositiveRate());
+            // 1. 新过滤器开始接收写入
+            slot.building = filter;
+            // 2. 等待只记录到旧过滤器的在途写入结束，refresh 后这些写入都能被扫描到
+            Thread.sleep(conf.getSettleMillis());
+            bulkClient.indices().refresh(new RefreshRequest(slot.index), RequestOptions.DEFAULT);
+            // 3. 扫描全部 _id
+            ElasticSearchEntity.Export export = elasticSearchEntity.getExport();
+            int slices = export.getSlices() > 0 ? export.getSlices() : Runtime.getRuntime().availableProcessors();
+            try (EsExportIterator iterator = new EsExportIterator(bulkClient, admissionControl.acquire(EsWorkload.BATCH),
+                    QueryBuilders.matchAllQuery(), slices, export.getBatchSize(),
+                    TimeValue.timeValueSeconds(export.getKeepAliveSeconds()), export.getQueueCapacity(), false,
+                    slot.index)) {
+                while (iterator.hasNext()) {
+                    EsData data = iterator.next();
+                    if (!slot.index.equals(data.getIndex())) {
+                        log.warn("es id 过滤器 [{}] 是别名或通配符（包含索引 [{}]），不启用", slot.index, data.getIndex());
+                        slot.building = null;
+                        slot.current = null;
+                        return;
+                    }
+                    filter.put(data.getIndexId());
+                }
+            }
+            // 4. 替换
+            slot.current = filter;
+            slot.building = null;
+            log.info("es id 过滤器 [{}] 重建完成 ==> {} 个文档，容量 {}，{} 位，{} 个哈希，耗时 {}ms", slot.index, count,
+                    capacity, filter.bitSize, filter.hashes, System.currentTimeMillis() - start);
+        } catch (InterruptedException e) {
+            slot.building = null;
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            // 重建失败时保留旧过滤器（写入一直在记录，旧过滤器仍然正确）
+            slot.building = null;
+            log.error("es id 过滤器 [" + slot.index + "] 重建失败", e);
+        }
+    }
+
+    /**
+     * 过滤器容量（留出新增文档的空间）
+     */
+    static long capacity(long count, ElasticSearchEntity.IdFilter conf) {
+        return Math.max(conf.getMinCapacity(), (long) (count * conf.getCapacityFactor()));
+    }
+
+    /**
+     * 查询过滤器的次数（过滤器已建立的索引）
+     */
+    public long getChecks() {
+        return checks.get();
+    }
+
+    /**
+     * 判定一定不存在、省去请求的次数
+     */
+    public long getSkipped() {
+        return skipped.get();
+    }
+
+    /**
+     * 判定可能存在但实际不存在的次数（误判）
+     */
+    public long getFalsePositives() {
+        return falsePositives.get();
+    }
+
+    /**
+     * 过滤器是否已建立
+     */
+    public boolean isReady(String index) {
+        Slot slot = slots.get(index);
+        return slot != null && slot.current != null;
+    }
+
+    public void resetStats() {
+        checks.set(0);
+        skipped.set(0);
+        falsePositives.set(0);
+    }
+
+    @Override
+    public String toString() {
+        return "EsIdFilter[checks=" + getChecks() + ", skipped=" + getSkipped() + ", falsePositives="
+                + getFalsePositives() + ", indices=" + slots.values() + "]";
+    }
+
+    /**
+     * 单个索引的过滤器
+     */
+    private static class Slot {
+
+        private final String index;
+
+        private volatile BloomFilter current;
+
+        private volatile BloomFilter building;
+
+        private final AtomicBoolean rebuildRequested = new AtomicBoolean();
+
+        Slot(String index) {
+            this.index = index;
+        }
+
+        @Override
+        public String toString() {
+            BloomFilter filter = current;
+            return index + (filter == null ? "[not ready]" : "[" + filter.inserted.get() + "/" + filter.capacity + "]");
+        }
+    }
+
+    /**
+     * 布隆过滤器（位数组为 long 数组，并发写入用 CAS，不加锁）
+     */
+    static class BloomFilter {
+
+        private final long capacity;
+
+        private final long bitSize;
+
+        private final int hashes;
+
+        private final AtomicLongArray bits;
+
+        /**
+         * 插入的不同 id 数（估算：有新置位才计数，用于判断是否超过容量）
+         */
+        private final AtomicLong inserted = new AtomicLong();
+
+        BloomFilter(long capacity, double falsePositiveRate) {
+            this.capacity = capacity;
+            // m = -n * ln(p) / (ln2)^2，k = m / n * ln2
+            long m = (long) Math.ceil(-capacity * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+            int words = (int) Math.min(Integer.MAX_VALUE - 8, (m + 63) / 64);
+            this.bitSize = words * 64L;
+            this.hashes = Math.max(1, (int) Math.round((double) bitSize / capacity * Math.log(2)));
+            this.bits = new AtomicLongArray(words);
+        }
+
+        /**
+         * @return 是否有新置位的位（false 表示很可能已存在）
+         */
+        boolean put(String id) {
+            MurmurHash3.Hash128 hash = hash(id);
+            boolean changed = false;
+            long combined = hash.h1;
+            for (int i = 0; i < hashes; i++) {
+                long bit = (combined & Long.MAX_VALUE) % bitSize;
+                int word = (int) (bit >>> 6);
+                long mask = 1L << bit;
+                long old;
+                do {
+                    old = bits.get(word);
+                    if ((old & mask) != 0) {
+                        break;
+                    }
+                } while (!bits.compareAndSet(word, old, old | mask));
+                changed |= (old & mask) == 0;
+                combined += hash.h2;
+            }
+            if (changed) {
+                inserted.incrementAndGet();
+            }
+            return changed;
+        }
+
+        boolean mightContain(String id) {
+            MurmurHash3.Hash128 hash = hash(id);
+            long combined = hash.h1;
+            for (int i = 0; i < hashes; i++) {
+                long bit = (combined & Long.MAX_VALUE) % bitSize;
+                if ((bits.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                    return false;
+                }
+                combined += hash.h2;
+            }
+            return true;
+        }
+
+        /**
+         * 插入数超过容量（误判率开始上升），需要扩容重建
+         */
+        boolean isFull() {
+            return inserted.get() > capacity;
+        }
+
+        private static MurmurHash3.Hash128 hash(String id) {
+            byte[] bytes = id.getBytes(StandardCharsets.UTF_8);
+            return MurmurHash3.hash128(bytes, 0, bytes.length, 0, new MurmurHash3.Hash128());
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.qingjiu.myes.config.elasticsearch;
+
+import com.qingjiu.myes.entity.es.EsIdStrategy;
+import org.elasticsearch.common.bytes.BytesReference;
+
+/**
+ * 文档 id 生成接口
+ * <p>
+ * 所有新增文档的写入方法在没有指定 id 时通过它取得 id，默认实现由 id-generation.strategy 决定，
+ * 需要替换实现时自己声明一个该类型的 Bean 即可覆盖。
+ *
+ * @author tjy
+ * @date 2026/10/18
+ **/
+public interface EsIdGenerator {
+
+    /**
+     * 生成文档 id
+     *
+     * @param source 序列化后的文档
+     * @return java.lang.String 为 null 时由 es 生成
+     */
+    String generate(BytesReference source);
+
+    /**
+     * 取文档 id：实体有 @EsId 字段时用该字段的值，否则生成
+     *
+     * @param obj    文档对象
+     * @param source 序列化后的文档
+     * @return java.lang.String 为 null 时由 es 生成
+     */
+    default String idFor(Object obj, BytesReference source) {
+        String id = EsIdExtractor.idOrNull(obj);
+        return id != null ? id : generate(source);
+    }
+
+    /**
+     * 按策略创建 id 生成器
+     *
+     * @param strategy 策略
+     * @param nodeId   FLAKE 的节点号（0 ~ 1023，小于 0 时由主机名和进程号计算）
+     * @return com.qingjiu.myes.config.elasticsearch.EsIdGenerator
+     */
+    static EsIdGenerator of(EsIdStrategy strategy, int nodeId) {
+        switch (strategy) {
+            case FLAKE:
+                return new FlakeIdGenerator(nodeId);
+            case CONTENT_HASH:
+                return new ContentHashIdGenerator();
+            default:
+                return source -> null;
+        }
+    }
+}
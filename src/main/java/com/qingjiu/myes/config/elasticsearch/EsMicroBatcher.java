@@ -0,0 +1,174 @@
+package com.qingjiu.myes.config.elasticsearch;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 请求合并器
+ * <p>
+ * 收集一个很短时间窗口内（或累计到 maxBatch 个）提交的请求，一次性交给 dispatcher 合并发送，
+ * 每个调用方拿到自己请求对应的 CompletableFuture。发送线程在第一次提交时才启动，不使用时不占线程。
+ *
+ * @param <R> 单个请求类型
+ * @param <T> 单个结果类型
+ * @author tjy
+ * @date 2026/10/18
+ **/
+@Slf4j
+public class EsMicroBatcher<R, T> implements Closeable {
+
+    /**
+     * 合并发送逻辑：负责完成（complete / completeExceptionally）batch 中每个 future
+     */
+    @FunctionalInterface
+    public interface Dispatcher<R, T> {
+        void dispatch(List<Pending<R, T>> batch) throws Exception;
+    }
+
+    /**
+     * 等待合并发送的请求
+     */
+    public static class Pending<R, T> {
+        private final R request;
+        private final CompletableFuture<T> future = new CompletableFuture<>();
+
+        Pending(R request) {
+            this.request = request;
+        }
+
+        public R getRequest() {
+            return request;
+        }
+
+        public CompletableFuture<T> getFuture() {
+            return future;
+        }
+    }
+
+    private final BlockingQueue<Pending<R, T>> queue = new LinkedBlockingQueue<>();
+
+    private final long windowNanos;
+
+    private final int maxBatch;
+
+    private final Dispatcher<R, T> dispatcher;
+
+    private final Thread thread;
+
+    private final AtomicBoolean started = new AtomicBoolean();
+
+    private volatile boolean closed;
+
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong batches = new AtomicLong();
+
+    public EsMicroBatcher(String name, long windowMicros, int maxBatch, Dispatcher<R, T> dispatcher) {
+        this.windowNanos = TimeUnit.MICROSECONDS.toNanos(windowMicros);
+        this.maxBatch = maxBatch;
+        this.dispatcher = dispatcher;
+        this.thread = new Thread(this::run, name);
+        this.thread.setDaemon(true);
+    }
+
+    /**
+     * 提交一个请求
+     *
+     * @param request 请求
+     * @return java.util.concurrent.CompletableFuture 对应结果
+     */
+    public CompletableFuture<T> submit(R request) {
+        Pending<R, T> pending = new Pending<>(request);
+        if (closed) {
+            pending.future.completeExceptionally(new IllegalStateException("batcher 已关闭"));
+            return pending.future;
+        }
+        if (!started.get() && started.compareAndSet(false, true)) {
+            thread.start();
+        }
+        requests.incrementAndGet();
+        queue.add(pending);
+        if (closed && queue.remove(pending)) {
+            // 检查后、入队前被关闭，发送线程可能已退出
+            pending.future.completeExceptionally(new IllegalStateException("batcher 已关闭"));
+        }
+        return pending.future;
+    }
+
+    private void run() {
+        while (!closed || !queue.isEmpty()) {
+            List<Pending<R, T>> batch = new ArrayList<>();
+            try {
+                Pending<R, T> first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                // 第一个请求到达后最多再等一个时间窗口
+                long deadline = System.nanoTime() + windowNanos;
+                while (batch.size() < maxBatch) {
+                    long remain = deadline - System.nanoTime();
+                    Pending<R, T> pending = remain > 0 ? queue.poll(remain, TimeUnit.NANOSECONDS) : queue.poll();
+                    if (pending == null) {
+                        break;
+                    }
+                    batch.add(pending);
+                }
+                batches.incrementAndGet();
+                dispatcher.dispatch(batch);
+            } catch (InterruptedException e) {
+                failAll(batch, e);
+                failAll(drain(), e);
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Throwable e) {
+                log.error("合并请求发送失败", e);
+                failAll(batch, e);
+            }
+        }
+        // 退出后才入队的请求不会再被发送
+        failAll(drain(), new IllegalStateException("batcher 已关闭"));
+    }
+
+    private List<Pending<R, T>> drain() {
+        List<Pending<R, T>> rest = new ArrayList<>();
+        queue.drainTo(rest);
+        return rest;
+    }
+
+    private void failAll(List<Pending<R, T>> batch, Throwable e) {
+        for (Pending<R, T> pending : batch) {
+            pending.future.completeExceptionally(e);
+        }
+    }
+
+    /**
+     * 停止接收新请求，已提交的请求发送完后线程退出
+     */
+    @Override
+    public void close() {
+        closed = true;
+    }
+
+    /**
+     * 提交的请求数
+     */
+    public long getRequests() {
+        return requests.get();
+    }
+
+    /**
+     * 实际发送的批次数
+     */
+    public long getBatches() {
+        return batches.get();
+    }
+}
@@ -0,0 +1,73 @@
+package com.qingjiu.myes.config.elasticsearch;
+
+import org.elasticsearch.client.Node;
+import org.elasticsearch.client.NodeSelector;
+
+import java.util.Iterator;
+import java.util.function.Predicate;
+
+/**
+ * 按节点角色选择请求发往的节点
+ * <p>
+ * 只有嗅探（sniff）得到的节点才带有角色信息；静态配置的节点没有角色，不做过滤。
+ * 符合角色的节点都不可用时退回到全部节点，保证请求总能发出去。
+ *
+ * @author tjy
+ * @date 2026/10/18
+ **/
+public final class EsNodeSelectors {
+
+    /**
+     * 查询：优先协调节点（不是 master / data / ingest 的节点），没有协调节点时跳过专用 master 节点
+     */
+    public static final NodeSelector COORDINATING = new RoleNodeSelector("coordinating",
+            roles -> !roles.isMasterEligible() && !roles.isData() && !roles.isIngest());
+
+    /**
+     * 写入：优先 data / ingest 节点，省去协调节点的一次转发
+     */
+    public static final NodeSelector DATA_OR_INGEST = new RoleNodeSelector("data_or_ingest",
+            roles -> roles.isData() || roles.isIngest());
+
+    private EsNodeSelectors() {
+    }
+
+    private static class RoleNodeSelector implements NodeSelector {
+
+        private final String name;
+
+        private final Predicate<Node.Roles> preferred;
+
+        RoleNodeSelector(String name, Predicate<Node.Roles> preferred) {
+            this.name = name;
+            this.preferred = preferred;
+        }
+
+        @Override
+        public void select(Iterable<Node> nodes) {
+            boolean hasPreferred = false;
+            for (Node node : nodes) {
+                if (node.getRoles() != null && preferred.test(node.getRoles())) {
+                    hasPreferred = true;
+                    break;
+                }
+            }
+            if (!hasPreferred) {
+                // 没有符合角色的节点，退回到跳过专用 master 节点
+                NodeSelector.SKIP_DEDICATED_MASTERS.select(nodes);
+                return;
+            }
+            for (Iterator<Node> iterator = nodes.iterator(); iterator.hasNext(); ) {
+                Node node = iterator.next();
+                if (node.getRoles() != null && !preferred.test(node.getRoles())) {
+                    iterator.remove();
+                }
+            }
+        }
+
+        @Override
+        public String toString() {
+            return name;
+        }
+    }
+}
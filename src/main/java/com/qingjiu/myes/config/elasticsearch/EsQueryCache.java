@@ -0,0 +1,338 @@
+package com.qingjiu.myes.config.elasticsearch;
+
+import com.qingjiu.myes.entity.es.ElasticSearchEntity;
+import com.qingjiu.myes.entity.es.EsData;
+import com.qingjiu.myes.entity.es.EsReturnData;
+import com.alibaba.fastjson.JSON;
+import lombok.extern.slf4j.Slf4j;
+import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.regex.Regex;
+import org.elasticsearch.search.builder.SearchSourceBuilder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 本地查询结果缓存
+ * <p>
+ * key 为 排序去重后的索引名 + 序列化后的 SearchSourceBuilder，按 TTL 过期，超过条数或字节上限时按 LRU 淘汰。
+ * 过期的缓存不会立即删除（LRU 淘汰或索引写入时清除），熔断时可以通过 getStale 取出兜底。
+ * 通过 EsClientUtil 写入某个索引时，会清除查询过该索引的缓存；
+ * 刚写入过的索引在 writeQuietMillis 内不缓存（es 近实时，refresh 前查到的可能还是旧数据）。
+ * 注意：通过别名查询时只有写入同名别名才会清除，不经过 EsClientUtil 的写入也无法感知。
+ *
+ * @author tjy
+ * @date 2026/10/18
+ **/
+@Slf4j
+@Component
+public class EsQueryCache {
+
+    private static final String ALL = "_all";
+
+    /**
+     * 单条缓存的固定开销估算（字节）
+     */
+    private static final long ENTRY_OVERHEAD = 256;
+    private static final long HIT_OVERHEAD = 128;
+
+    @Autowired
+    private ElasticSearchEntity elasticSearchEntity;
+
+    private final LinkedHashMap<String, Entry> cache = new LinkedHashMap<>(16, 0.75f, true);
+
+    private long totalBytes;
+
+    /**
+     * 索引最后一次写入时间
+     */
+    private final Map<String, Long> lastWrite = new ConcurrentHashMap<>();
+
+    private volatile long lastAnyWrite;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong invalidations = new AtomicLong();
+
+    private static class Entry {
+        private final String[] indices;
+        private final EsReturnData data;
+        private final long bytes;
+        private final long expireAt;
+
+        Entry(String[] indices, EsReturnData data, long bytes, long expireAt) {
+            this.indices = indices;
+            this.data = data;
+            this.bytes = bytes;
+            this.expireAt = expireAt;
+        }
+    }
+
+    public EsQueryCache() {
+    }
+
+    /**
+     * 不依赖 Spring 直接创建
+     */
+    EsQueryCache(ElasticSearchEntity elasticSearchEntity) {
+        this.elasticSearchEntity = elasticSearchEntity;
+    }
+
+    public boolean isEnabled() {
+        return elasticSearchEntity.getCache().isEnabled();
+    }
+
+    /**
+     * 生成缓存 key
+     *
+     * @param source    查询条件
+     * @param indexName 索引名称
+     * @return java.lang.String
+     */
+    public String key(SearchSourceBuilder source, String... indexName) {
+        return String.join(",", normalize(indexName)) + "|" + source.toString();
+    }
+
+    /**
+     * 获取缓存（返回拷贝，每条结果都由原始 _source 字节重新创建，调用方修改结果不影响缓存和其他调用方）
+     *
+     * @param key 缓存 key
+     * @return com.qingjiu.myes.entity.es.EsReturnData 没有或已过期返回 null
+     */
+    public EsReturnData get(String key) {
+        Entry entry;
+        synchronized (this) {
+            entry = cache.get(key);
+        }
+        if (entry == null || entry.expireAt < System.currentTimeMillis()) {
+            misses.incrementAndGet();
+            return null;
+        }
+        hits.incrementAndGet();
+        return copy(entry.data);
+    }
+
+    /**
+     * 获取缓存，已过期也返回（熔断时兜底，结果标记为 stale）
+     *
+     * @param key 缓存 key
+     * @return com.qingjiu.myes.entity.es.EsReturnData 没有返回 null
+     */
+    public EsReturnData getStale(String key) {
+        Entry entry;
+        synchronized (this) {
+            entry = cache.get(key);
+        }
+        if (entry == null) {
+            return null;
+        }
+        EsReturnData data = copy(entry.data);
+        data.setStale(entry.expireAt < System.currentTimeMillis());
+        return data;
+    }
+
+    /**
+     * 放入缓存
+     *
+     * @param key       缓存 key
+     * @param data      查询结果
+     * @param indexName 查询的索引名称
+     */
+    public void put(String key, EsReturnData data, String... indexName) {
+        ElasticSearchEntity.Cache conf = elasticSearchEntity.getCache();
+        String[] indices = normalize(indexName);
+        long now = System.currentTimeMillis();
+        if (recentlyWritten(indices, now - conf.getWriteQuietMillis())) {
+            return;
+        }
+        long bytes = estimateBytes(key, data);
+        long maxBytes = conf.getMaxBytesMb() * 1024L * 1024L;
+        if (bytes > maxBytes) {
+            return;
+        }
+        EsReturnData cached = copy(data);
+        synchronized (this) {
+            remove(key);
+            cache.put(key, new Entry(indices, cached, bytes, now + conf.getTtlSeconds() * 1000L));
+            totalBytes += bytes;
+            // LRU 淘汰（LinkedHashMap 访问顺序，最久未使用的在最前）
+            Iterator<Map.Entry<String, Entry>> iterator = cache.entrySet().iterator();
+            while ((cache.size() > conf.getMaxEntries() || totalBytes > maxBytes) && iterator.hasNext()) {
+                totalBytes -= iterator.next().getValue().bytes;
+                iterator.remove();
+                evictions.incrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * 清除查询过这些索引的缓存（写入索引后调用）
+     *
+     * @param indexName 写入的索引名称
+     */
+    public void invalidate(String... indexName) {
+        long now = System.currentTimeMillis();
+        lastAnyWrite = now;
+        for (String index : indexName) {
+            lastWrite.put(index, now);
+        }
+        if (!isEnabled()) {
+            return;
+        }
+        synchronized (this) {
+            Iterator<Map.Entry<String, Entry>> iterator = cache.entrySet().iterator();
+            while (iterator.hasNext()) {
+                Entry entry = iterator.next().getValue();
+                if (matches(entry.indices, indexName)) {
+                    totalBytes -= entry.bytes;
+                    iterator.remove();
+                    invalidations.incrementAndGet();
+                }
+            }
+        }
+    }
+
+    /**
+     * 清空缓存
+     */
+    public synchronized void clear() {
+        cache.clear();
+        totalBytes = 0;
+    }
+
+    private void remove(String key) {
+        Entry old = cache.remove(key);
+        if (old != null) {
+            totalBytes -= old.bytes;
+        }
+    }
+
+    private boolean recentlyWritten(String[] indices, long since) {
+        if (lastAnyWrite < since) {
+            return false;
+        }
+        for (String index : indices) {
+            if (ALL.equals(index) || Regex.isSimpleMatchPattern(index)) {
+                return true;
+            }
+            Long time = lastWrite.get(index);
+            if (time != null && time >= since) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 缓存查询的索引（可能是通配符）是否包含写入的索引
+     */
+    private boolean matches(String[] cached, String[] written) {
+        for (String pattern : cached) {
+            if (ALL.equals(pattern)) {
+                return true;
+            }
+            for (String index : written) {
+                if (Regex.simpleMatch(pattern, index)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private String[] normalize(String... indexName) {
+        TreeSet<String> set = new TreeSet<>();
+        if (indexName != null) {
+            for (String index : indexName) {
+                if (index != null && !index.trim().isEmpty()) {
+                    set.add(index.trim().toLowerCase());
+                }
+            }
+        }
+        if (set.isEmpty() || set.contains(ALL) || set.contains("*")) {
+            return new String[]{ALL};
+        }
+        return set.toArray(new String[0]);
+    }
+
+    private long estimateBytes(String key, EsReturnData data) {
+        long bytes = ENTRY_OVERHEAD + key.length() * 2L;
+        for (EsData esData : data.getEsDataList()) {
+            bytes += HIT_OVERHEAD;
+            if (esData.getSource() != null) {
+                bytes += esData.getSource().length();
+            } else if (esData.getSourceAsString() != null) {
+                bytes += esData.getSourceAsString().length() * 2L;
+            }
+        }
+        return bytes;
+    }
+
+    private EsReturnData copy(EsReturnData data) {
+        EsReturnData copy = new EsReturnData();
+        copy.setNum(data.getNum());
+        copy.setNumRelation(data.getNumRelation());
+        copy.setMaxScore(data.getMaxScore());
+        copy.setCursor(data.getCursor());
+        List<EsData> list = new ArrayList<>(data.getEsDataList().size());
+        for (EsData esData : data.getEsDataList()) {
+            list.add(copy(esData));
+        }
+        copy.setEsDataList(list);
+        return copy;
+    }
+
+    /**
+     * 由 _source 字节创建新的 EsData（不带已解析的 map，读取时各自解析）
+     */
+    private static EsData copy(EsData data) {
+        BytesReference source = data.getSource();
+        if (source == null) {
+            String json = data.getSourceAsString() != null ? data.getSourceAsString()
+                    : data.getSourceAsMap() == null ? null : JSON.toJSONString(data.getSourceAsMap());
+            source = json == null ? null : new BytesArray(json);
+        }
+        return new EsData(source, data.getIndex(), data.getScore(), data.getIndexId());
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public long getEvictions() {
+        return evictions.get();
+    }
+
+    public long getInvalidations() {
+        return invalidations.get();
+    }
+
+    public synchronized int size() {
+        return cache.size();
+    }
+
+    public synchronized long bytes() {
+        return totalBytes;
+    }
+
+    @Override
+    public String toString() {
+        return "EsQueryCache" + Arrays.asList("hits=" + getHits(), "misses=" + getMisses(),
+                "evictions=" + getEvictions(), "invalidations=" + getInvalidations(), "size=" + size(), "bytes=" + bytes());
+    }
+}
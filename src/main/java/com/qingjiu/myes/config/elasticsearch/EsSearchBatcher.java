@@ -0,0 +1,121 @@
+package com.qingjiu.myes.config.elasticsearch;
+
+import com.qingjiu.myes.entity.es.ElasticSearchEntity;
+import lombok.extern.slf4j.Slf4j;
+import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.action.search.MultiSearchRequest;
+import org.elasticsearch.action.search.MultiSearchResponse;
+import org.elasticsearch.action.search.SearchRequest;
+import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.client.RequestOptions;
+import org.elasticsearch.client.RestHighLevelClient;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 查询请求合并（_msearch）
+ * <p>
+ * 短时间窗口内并发提交的查询合并成一个 _msearch 发送，减少 HTTP 往返；窗口内只有一个请求时直接走 _search。
+ *
+ * @author tjy
+ * @date 2026/10/18
+ **/
+@Slf4j
+@Component
+public class EsSearchBatcher {
+
+    @Autowired
+    @Qualifier("restHighLevelClient")
+    private RestHighLevelClient client;
+
+    @Autowired
+    private ElasticSearchEntity elasticSearchEntity;
+
+    private EsMicroBatcher<SearchRequest, SearchResponse> batcher;
+
+    @PostConstruct
+    public void init() {
+        ElasticSearchEntity.Msearch conf = elasticSearchEntity.getMsearch();
+        batcher = new EsMicroBatcher<>("es-msearch-batcher", conf.getWindowMicros(), conf.getMaxBatch(), this::dispatch);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        batcher.close();
+    }
+
+    /**
+     * 提交一个查询，与同一时间窗口内的其他查询合并发送
+     *
+     * @param request 查询请求
+     * @return java.util.concurrent.CompletableFuture 查询结果
+     * @author tjy
+     * @date 2026/10/18
+     **/
+    public CompletableFuture<SearchResponse> submit(SearchRequest request) {
+        return batcher.submit(request);
+    }
+
+    private void dispatch(List<EsMicroBatcher.Pending<SearchRequest, SearchResponse>> batch) {
+        if (batch.size() == 1) {
+            EsMicroBatcher.Pending<SearchRequest, SearchResponse> pending = batch.get(0);
+            client.searchAsync(pending.getRequest(), RequestOptions.DEFAULT, new ActionListener<SearchResponse>() {
+                @Override
+                public void onResponse(SearchResponse searchResponse) {
+                    pending.getFuture().complete(searchResponse);
+                }
+
+                @Override
+                public void onFailure(Exception e) {
+                    pending.getFuture().completeExceptionally(e);
+                }
+            });
+            return;
+        }
+
+        MultiSearchRequest request = new MultiSearchRequest();
+        for (EsMicroBatcher.Pending<SearchRequest, SearchResponse> pending : batch) {
+            request.add(pending.getRequest());
+        }
+        client.msearchAsync(request, RequestOptions.DEFAULT, new ActionListener<MultiSearchResponse>() {
+            @Override
+            public void onResponse(MultiSearchResponse response) {
+                MultiSearchResponse.Item[] items = response.getResponses();
+                for (int i = 0; i < batch.size(); i++) {
+                    if (items[i].isFailure()) {
+                        batch.get(i).getFuture().completeExceptionally(items[i].getFailure());
+                    } else {
+                        batch.get(i).getFuture().complete(items[i].getResponse());
+                    }
+                }
+            }
+
+            @Override
+            public void onFailure(Exception e) {
+                for (EsMicroBatcher.Pending<SearchRequest, SearchResponse> pending : batch) {
+                    pending.getFuture().completeExceptionally(e);
+                }
+            }
+        });
+    }
+
+    /**
+     * 提交的查询数
+     */
+    public long getRequests() {
+        return batcher.getRequests();
+    }
+
+    /**
+     * 实际发送的请求数（_search + _msearch）
+     */
+    public long getBatches() {
+        return batcher.getBatches();
+    }
+}
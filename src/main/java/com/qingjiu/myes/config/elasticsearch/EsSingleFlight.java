@@ -0,0 +1,181 @@
+package com.qingjiu.myes.config.elasticsearch;
+
+import com.qingjiu.myes.entity.es.ElasticSearchEntity;
+import lombok.extern.slf4j.Slf4j;
+import org.elasticsearch.action.get.GetRequest;
+import org.elasticsearch.action.get.GetResponse;
+import org.elasticsearch.action.search.SearchRequest;
+import org.elasticsearch.common.xcontent.XContentHelper;
+import org.elasticsearch.common.xcontent.XContentType;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * 相同读请求合并（single flight）
+ * <p>
+ * 缓存失效的瞬间，大量线程同时读同一个热点文档或执行同一个查询。相同 key（索引 + id，或索引 + 序列化后的查询）
+ * 的请求在途时，后到的调用不再发请求，等待第一个请求的结果；结果（或异常）分发给所有等待者。
+ * 只有第一个请求占用并发许可、计入熔断统计。
+ * <p>
+ * 等待者拿到的是同一个响应对象，调用方不能修改响应；GetResponse 的 _source 请用 {@link #sourceAsMap(GetResponse)}
+ * 各自解析（GetResponse.getSourceAsMap 返回的是同一个可变 map）。
+ *
+ * @author tjy
+ * @date 2026/10/18
+ **/
+@Slf4j
+@Component
+public class EsSingleFlight {
+
+    @Autowired
+    private ElasticSearchEntity elasticSearchEntity;
+
+    private final ConcurrentHashMap<String, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+
+    private final AtomicLong calls = new AtomicLong();
+    private final AtomicLong collapsed = new AtomicLong();
+
+    public boolean isEnabled() {
+        return elasticSearchEntity.getSingleFlight().isEnabled();
+    }
+
+    /**
+     * 同步执行，相同 key 的请求在途时等待它的结果
+     *
+     * @param key  请求 key（见 getKey / existsKey / searchKey）
+     * @param call es 调用
+     * @return T 调用结果
+     * @author tjy
+     * @date 2026/10/18
+     **/
+    @SuppressWarnings("unchecked")
+    public <T> T execute(String key, EsAdmissionControl.Call<T> call) throws IOException {
+        if (!isEnabled()) {
+            return call.call();
+        }
+        calls.incrementAndGet();
+        CompletableFuture<Object> future = new CompletableFuture<>();
+        CompletableFuture<Object> existing = inFlight.putIfAbsent(key, future);
+        if (existing != null) {
+            collapsed.incrementAndGet();
+            return (T) EsClientUtil.await(existing);
+        }
+        try {
+            T result = call.call();
+            inFlight.remove(key, future);
+            future.complete(result);
+            return result;
+        } catch (Throwable e) {
+            // 包括 Error：必须移除 key 并结束 future，否则等待者永远等不到结果，后续调用也一直被合并到这里
+            inFlight.remove(key, future);
+            future.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    /**
+     * 异步执行，相同 key 的请求在途时共用它的 future
+     *
+     * @param key  请求 key（见 getKey / existsKey / searchKey）
+     * @param call 提交 es 调用
+     * @return java.util.concurrent.CompletableFuture
+     * @author tjy
+     * @date 2026/10/18
+     **/
+    @SuppressWarnings("unchecked")
+    public <T> CompletableFuture<T> executeAsync(String key, Supplier<CompletableFuture<T>> call) {
+        if (!isEnabled()) {
+            return call.get();
+        }
+        calls.incrementAndGet();
+        CompletableFuture<Object> future = new CompletableFuture<>();
+        CompletableFuture<Object> existing = inFlight.putIfAbsent(key, future);
+        if (existing != null) {
+            collapsed.incrementAndGet();
+            return (CompletableFuture<T>) existing;
+        }
+        CompletableFuture<T> result;
+        try {
+            result = call.get();
+        } catch (Throwable e) {
+            inFlight.remove(key, future);
+            future.completeExceptionally(e);
+            throw e;
+        }
+        result.whenComplete((value, e) -> {
+            inFlight.remove(key, future);
+            if (e != null) {
+                future.completeExceptionally(e);
+            } else {
+                future.complete(value);
+            }
+        });
+        return (CompletableFuture<T>) future;
+    }
+
+    public static String getKey(GetRequest request) {
+        return "get|" + request.index() + "|" + request.id() + "|" + request.routing() + "|" + request.realtime();
+    }
+
+    public static String existsKey(GetRequest request) {
+        return "exists|" + request.index() + "|" + request.id() + "|" + request.routing();
+    }
+
+    public static String searchKey(SearchRequest request) {
+        return "search|" + Arrays.toString(request.indices()) + "|" + request.preference() + "|" + request.source();
+    }
+
+    /**
+     * 解析 GetResponse 的 _source（每次返回新的 map，共享响应时互不影响）
+     *
+     * @param response get 响应
+     * @return java.util.Map 文档不存在时为 null
+     */
+    public static Map<String, Object> sourceAsMap(GetResponse response) {
+        if (response.isSourceEmpty()) {
+            return response.getSourceAsMap();
+        }
+        return XContentHelper.convertToMap(response.getSourceAsBytesRef(), false, XContentType.JSON).v2();
+    }
+
+    /**
+     * 调用次数（开启后）
+     */
+    public long getCalls() {
+        return calls.get();
+    }
+
+    /**
+     * 被合并（没有发请求，等待其他调用结果）的次数
+     */
+    public long getCollapsed() {
+        return collapsed.get();
+    }
+
+    /**
+     * 合并比例
+     */
+    public double getCollapseRate() {
+        long total = calls.get();
+        return total == 0 ? 0 : (double) collapsed.get() / total;
+    }
+
+    public void resetStats() {
+        calls.set(0);
+        collapsed.set(0);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("EsSingleFlight[calls=%d, collapsed=%d (%.2f%%), inFlight=%d]",
+                getCalls(), getCollapsed(), getCollapseRate() * 100, inFlight.size());
+    }
+}
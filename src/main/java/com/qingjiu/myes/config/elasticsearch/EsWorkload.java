@@ -0,0 +1,20 @@
+package com.qingjiu.myes.config.elasticsearch;
+
+/**
+ * 请求负载类型，每种类型有独立的客户端连接池和并发上限
+ *
+ * @author tjy
+ * @date 2026/10/18
+ **/
+public enum EsWorkload {
+
+    /**
+     * 面向用户的查询、单文档读写（restHighLevelClient）
+     */
+    INTERACTIVE,
+
+    /**
+     * 批量写入、全量导出等后台任务（bulkRestHighLevelClient）
+     */
+    BATCH
+}
@@ -0,0 +1,321 @@
+package com.qingjiu.myes.config.elasticsearch;
+
+import com.qingjiu.myes.entity.es.ElasticSearchEntity;
+import com.qingjiu.myes.entity.es.EsBulkItem;
+import com.qingjiu.myes.entity.es.EsBulkResult;
+import lombok.extern.slf4j.Slf4j;
+import org.elasticsearch.action.bulk.BulkRequest;
+import org.elasticsearch.action.update.UpdateRequest;
+import org.elasticsearch.common.xcontent.XContentHelper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 延迟合并写入（write-behind）
+ * <p>
+ * 计数器、最后访问时间这类文档，同一个 id 每秒被修改成百上千次。开启后同一 (索引, id) 的部分修改先在内存中合并
+ * （后修改的字段覆盖先修改的，对象字段逐层合并，与 es 的部分修改语义一致），按时间间隔或待写入文档数达到阈值时
+ * 以 bulk update 一次写入合并后的结果，减少写入次数和 segment 合并。
+ * <p>
+ * 缓冲区中的修改在写入前读不到，进程异常退出时会丢失（正常关闭时会全部写入）；只适合能接受这两点的数据。
+ * 缓冲的文档数达到 max-keys 时，调用方线程同步写入，内存占用有上限。
+ * 整批写入失败（es 不可用等）时修改放回缓冲区，下次写入时重试；此时缓冲区已满，新文档的修改直接抛出异常，不再缓冲。
+ *
+ * @author tjy
+ * @date 2026/10/18
+ **/
+@Slf4j
+@Component
+public class EsWriteBehindBuffer {
+
+    @Autowired
+    private ElasticSearchEntity elasticSearchEntity;
+
+    @Autowired
+    private EsDocumentSerializer serializer;
+
+    @Autowired
+    private EsClientUtil esClientUtils;
+
+    private ElasticSearchEntity.WriteBehind conf;
+
+    /**
+     * (索引, id) -> 合并后的修改内容
+     */
+    private final ConcurrentHashMap<Key, Map<String, Object>> buffer = new ConcurrentHashMap<>();
+
+    /**
+     * 同一时间只有一个线程写入，保证同一文档的修改按顺序写入
+     */
+    private final Object flushLock = new Object();
+
+    private final AtomicBoolean flushScheduled = new AtomicBoolean();
+
+    private ScheduledExecutorService scheduler;
+
+    private final AtomicLong updates = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+
+    @PostConstruct
+    public void init() {
+        conf = elasticSearchEntity.getWriteBehind();
+        if (!conf.isEnabled()) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "es-write-behind");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::flushQuietly, conf.getFlushIntervalMillis(),
+                conf.getFlushIntervalMillis(), TimeUnit.MILLISECONDS);
+        log.info("es 延迟合并写入 ==> flushInterval={}ms, flushKeys={}, maxKeys={}, docAsUpsert={}",
+                conf.getFlushIntervalMillis(), conf.getFlushKeys(), conf.getMaxKeys(), conf.isDocAsUpsert());
+    }
+
+    @PreDestroy
+    public void destroy() throws IOException {
+        if (scheduler == null) {
+            return;
+        }
+        scheduler.shutdown();
+        flush();
+        log.info("es 延迟合并写入关闭 ==> {}", this);
+    }
+
+    /**
+     * 部分修改文档：开启时合并进缓冲区稍后写入，未开启时直接 updateDocument
+     *
+     * @param indexName 索引名称
+     * @param id        文档id
+     * @param obj       要修改的字段（对象或 Map）
+     * @author tjy
+     * @date 2026/10/18
+     **/
+    public void update(String indexName, String id, Object obj) throws IOException {
+        if (!conf.isEnabled()) {
+            esClientUtils.updateDocument(indexName, id, obj);
+            return;
+        }
+        Map<String, Object> doc = XContentHelper.convertToMap(serializer.serialize(obj), true,
+                serializer.contentType()).v2();
+        Key key = new Key(indexName, id);
+        if (isFull(key)) {
+            // 写入跟不上，由调用方线程同步写入
+            try {
+                flush();
+            } catch (IOException | RuntimeException e) {
+                // 其他文档的修改已放回缓冲区，稍后重试；只有本次修改放不下时才报错
+                log.error("延迟写入失败", e);
+                if (isFull(key)) {
+                    throw new IOException("延迟写入缓冲区已满，修改未写入 ==> [" + indexName + "/" + id + "]", e);
+                }
+            }
+        }
+        updates.incrementAndGet();
+        buffer.merge(key, doc, (older, newer) -> {
+            coalesced.incrementAndGet();
+            return deepMerge(older, newer);
+        });
+
+        if (buffer.size() >= conf.getFlushKeys() && flushScheduled.compareAndSet(false, true)) {
+            scheduler.execute(this::flushQuietly);
+        }
+    }
+
+    /**
+     * 缓冲区已满且 key 不在缓冲区中（合并到已有的 key 不增加内存占用）
+     */
+    private boolean isFull(Key key) {
+        return buffer.size() >= conf.getMaxKeys() && !buffer.containsKey(key);
+    }
+
+    /**
+     * 立即写入缓冲区内的全部修改
+     *
+     * @return com.qingjiu.myes.entity.es.EsBulkResult 逐条结果
+     * @author tjy
+     * @date 2026/10/18
+     **/
+    public EsBulkResult flush() throws IOException {
+        EsBulkResult result = new EsBulkResult();
+        synchronized (flushLock) {
+            flushScheduled.set(false);
+            Map<Key, Map<String, Object>> batch = new LinkedHashMap<>();
+            for (Key key : buffer.keySet()) {
+                Map<String, Object> doc = buffer.remove(key);
+                if (doc == null) {
+                    continue;
+                }
+                batch.put(key, doc);
+                if (batch.size() >= elasticSearchEntity.getBulk().getActions()) {
+                    send(batch, result);
+                    batch.clear();
+                }
+            }
+            if (!batch.isEmpty()) {
+                send(batch, result);
+            }
+        }
+        return result;
+    }
+
+    private void send(Map<Key, Map<String, Object>> batch, EsBulkResult result) throws IOException {
+        BulkRequest request = new BulkRequest();
+        for (Map.Entry<Key, Map<String, Object>> entry : batch.entrySet()) {
+            Key key = entry.getKey();
+            request.add(new UpdateRequest(key.index, key.id).doc(entry.getValue()).docAsUpsert(conf.isDocAsUpsert()));
+        }
+        EsBulkResult part;
+        try {
+            part = esClientUtils.bulkExecute(request);
+        } catch (IOException | RuntimeException e) {
+            // 整批没有写入：放回缓冲区，期间新到的修改覆盖在上面
+            for (Map.Entry<Key, Map<String, Object>> entry : batch.entrySet()) {
+                buffer.merge(entry.getKey(), entry.getValue(), (newer, unsent) -> deepMerge(unsent, newer));
+            }
+            throw e;
+        }
+        for (EsBulkItem item : part.getItems()) {
+            if (item.isFailed()) {
+                log.error("延迟写入失败 [{}/{}] ==> [{}]", item.getIndex(), item.getId(), item.getFailureMessage());
+            }
+        }
+        written.addAndGet(part.getSuccessNum());
+        failed.addAndGet(part.getFailedNum());
+        result.setTotal(result.getTotal() + part.getTotal());
+        result.setSuccessNum(result.getSuccessNum() + part.getSuccessNum());
+        result.setFailedNum(result.getFailedNum() + part.getFailedNum());
+        result.setRetryNum(result.getRetryNum() + part.getRetryNum());
+        result.getItems().addAll(part.getItems());
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (IOException | RuntimeException e) {
+            // 整批失败的修改已放回缓冲区，下次写入时重试（单条失败 bulkExecute 已做过重试，不再放回）
+            log.error("延迟写入失败", e);
+        }
+    }
+
+    /**
+     * 合并两次部分修改：newer 的字段覆盖 older，两边都是对象的字段逐层合并
+     */
+    @SuppressWarnings("unchecked")
+    static Map<String, Object> deepMerge(Map<String, Object> older, Map<String, Object> newer) {
+        Map<String, Object> merged = new LinkedHashMap<>(older);
+        for (Map.Entry<String, Object> entry : newer.entrySet()) {
+            Object old = merged.get(entry.getKey());
+            Object value = entry.getValue();
+            if (old instanceof Map && value instanceof Map) {
+                value = deepMerge((Map<String, Object>) old, (Map<String, Object>) value);
+            }
+            merged.put(entry.getKey(), value);
+        }
+        return merged;
+    }
+
+    /**
+     * 缓冲区中待写入的文档数
+     */
+    public int getPending() {
+        return buffer.size();
+    }
+
+    /**
+     * 修改次数（开启后）
+     */
+    public long getUpdates() {
+        return updates.get();
+    }
+
+    /**
+     * 被合并到同一文档已有修改中的次数（省掉的写入次数）
+     */
+    public long getCoalesced() {
+        return coalesced.get();
+    }
+
+    /**
+     * 写入成功的文档数
+     */
+    public long getWritten() {
+        return written.get();
+    }
+
+    /**
+     * 写入失败的文档数
+     */
+    public long getFailed() {
+        return failed.get();
+    }
+
+    /**
+     * 合并比例
+     */
+    public double getCoalesceRate() {
+        long total = updates.get();
+        return total == 0 ? 0 : (double) coalesced.get() / total;
+    }
+
+    public void resetStats() {
+        updates.set(0);
+        coalesced.set(0);
+        written.set(0);
+        failed.set(0);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("EsWriteBehindBuffer[updates=%d, coalesced=%d (%.2f%%), written=%d, failed=%d, pending=%d]",
+                getUpdates(), getCoalesced(), getCoalesceRate() * 100, getWritten(), getFailed(), getPending());
+    }
+
+    /**
+     * 缓冲区 key：(索引, id)
+     */
+    private static final class Key {
+
+        private final String index;
+
+        private final String id;
+
+        Key(String index, String id) {
+            this.index = index;
+            this.id = id;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key key = (Key) o;
+            return index.equals(key.index) && id.equals(key.id);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(index, id);
+        }
+    }
+}
@@ -0,0 +1,678 @@
+package com.qingjiu.myes.config.elasticsearch;
+
+import com.qingjiu.myes.entity.es.ElasticSearchEntity;
+import com.qingjiu.myes.entity.es.EsBulkItem;
+import com.qingjiu.myes.entity.es.EsBulkResult;
+import lombok.extern.slf4j.Slf4j;
+import org.elasticsearch.action.DocWriteRequest;
+import org.elasticsearch.action.bulk.BulkRequest;
+import org.elasticsearch.action.delete.DeleteRequest;
+import org.elasticsearch.action.index.IndexRequest;
+import org.elasticsearch.action.update.UpdateRequest;
+import org.elasticsearch.common.UUIDs;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.xcontent.XContentType;
+import org.elasticsearch.rest.RestStatus;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * 本地写入日志（集群不可用时暂存单文档写入）
+ * <p>
+ * 开启后，集群不可用（连接失败、超时、429 / 5xx、熔断打开）时 addDocument / updateDocument /
+ * deleteDocument 不再抛异常，而是把写入追加到本地日志并返回 202 ACCEPTED；后台线程在集群恢复后按写入顺序
+ * 以 bulk 重放，重放成功后记录检查点并删除已重放完的日志段。日志中还有未重放的写入时，新的写入也先进入日志，
+ * 保证同一文档的写入顺序；重放超过 max-spool-millis 没有进展时不再转入日志，新的写入直接发送（失败时仍暂存），
+ * 避免重放卡住后所有写入都悄悄留在本地。
+ * <p>
+ * 日志按固定大小分段，每段是一个内存映射文件；每条记录为 [长度][CRC32][内容]，启动时从最后一段找到
+ * 最后一条完整的记录继续写（进程崩溃时写了一半的记录 CRC 校验不通过，被丢弃）。
+ * 自动生成 id 的文档在写入前就分配 id，重放（至少一次）不会产生重复文档。
+ * 重放时不可重试的失败（如 mapping 错误）记录日志后跳过；校验失败或无法解析的记录原样移入 quarantine.log 后跳过。
+ * 日志目录加文件锁，同一目录只能被一个进程使用。
+ *
+ * @author tjy
+ * @date 2026/10/18
+ **/
+@Slf4j
+@Component
+public class EsWriteJournal {
+
+    /**
+     * 记录头：长度（int）+ CRC32（int）
+     */
+    static final int HEADER = 8;
+
+    private static final String SEGMENT_SUFFIX = ".seg";
+
+    private static final String CHECKPOINT = "checkpoint";
+
+    private static final String QUARANTINE = "quarantine.log";
+
+    private static final String LOCK = ".lock";
+
+    private static final byte OP_INDEX = 0;
+    private static final byte OP_UPDATE = 1;
+    private static final byte OP_UPSERT = 2;
+    private static final byte OP_DELETE = 3;
+
+    @Autowired
+    private ElasticSearchEntity elasticSearchEntity;
+
+    @Autowired
+    private EsClientUtil esClientUtils;
+
+    private ElasticSearchEntity.Journal conf;
+
+    private Path dir;
+
+    private int segmentSize;
+
+    private ScheduledExecutorService replayer;
+
+    /**
+     * 写入位置（段号 + 段内偏移），修改时持有 this 锁
+     */
+    private volatile long writeSegment;
+    private volatile int writeOffset;
+    private MappedByteBuffer writeMap;
+
+    /**
+     * 已重放的位置（检查点）
+     */
+    private volatile long readSegment;
+    private volatile int readOffset;
+
+    /**
+     * 最早一个未删除的段
+     */
+    private long firstSegment;
+
+    /**
+     * 重放线程当前读取的段（同一段只映射一次）
+     */
+    private MappedByteBuffer readMap;
+    private long readMapSegment = -1;
+
+    /**
+     * 最近一次重放有进展（或日志从空变为非空）的时间
+     */
+    private volatile long lastProgress;
+
+    private final AtomicBoolean stallWarned = new AtomicBoolean();
+
+    private FileChannel lockChannel;
+
+    private FileLock lock;
+
+    private final AtomicLong appended = new AtomicLong();
+    private final AtomicLong replayed = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+
+    public EsWriteJournal() {
+    }
+
+    /**
+     * 不依赖 Spring 直接打开日志（不启动重放线程）
+     */
+    EsWriteJournal(ElasticSearchEntity.Journal conf) throws IOException {
+        this.conf = conf;
+        open();
+    }
+
+    @PostConstruct
+    public void init() throws IOException {
+        conf = elasticSearchEntity.getJournal();
+        if (!conf.isEnabled()) {
+            return;
+        }
+        open();
+        replayer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "es-journal-replayer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        replayer.scheduleWithFixedDelay(this::replay, 0, conf.getReplayIntervalMillis(), TimeUnit.MILLISECONDS);
+        log.info("es 本地写入日志 ==> dir={}, segment={}MB, spoolAll={}, 未重放位置 [{}:{}] -> [{}:{}]",
+                dir.toAbsolutePath(), conf.getSegmentSizeMb(), conf.isSpoolAll(),
+                readSegment, readOffset, writeSegment, writeOffset);
+    }
+
+    /**
+     * 锁定日志目录，恢复写入位置和检查点
+     */
+    private void open() throws IOException {
+        dir = Paths.get(conf.getDir());
+        Files.createDirectories(dir);
+        segmentSize = conf.getSegmentSizeMb() * 1024 * 1024;
+        lockChannel = FileChannel.open(dir.resolve(LOCK), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        try {
+            lock = lockChannel.tryLock();
+        } catch (OverlappingFileLockException e) {
+            // 同一进程内已打开
+            lock = null;
+        }
+        if (lock == null) {
+            lockChannel.close();
+            throw new IOException("日志目录已被其他实例使用 ==> " + dir.toAbsolutePath());
+        }
+        recover();
+        lastProgress = System.currentTimeMillis();
+    }
+
+    @PreDestroy
+    public synchronized void destroy() throws IOException {
+        if (lock == null) {
+            return;
+        }
+        if (replayer != null) {
+            replayer.shutdownNow();
+        }
+        writeMap.force();
+        lock.release();
+        lockChannel.close();
+        lock = null;
+        log.info("es 本地写入日志关闭 ==> {}", this);
+    }
+
+    public boolean isEnabled() {
+        return conf.isEnabled();
+    }
+
+    /**
+     * 写入是否应直接进入日志（全部暂存，或日志中还有未重放的写入）
+     */
+    public boolean isSpooling() {
+        if (!conf.isEnabled() || !(conf.isSpoolAll() || isPending())) {
+            return false;
+        }
+        if (isPending() && System.currentTimeMillis() - lastProgress > conf.getMaxSpoolMillis()) {
+            // 重放长时间没有进展：不再把写入转入日志，直接发送（失败时仍可暂存）
+            if (stallWarned.compareAndSet(false, true)) {
+                log.error("日志重放超过 [{}ms] 没有进展，新的写入直接发送 ==> {}", conf.getMaxSpoolMillis(), this);
+            }
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * 异常是否为集群不可用（可以暂存到日志稍后重放）：熔断打开、连接失败 / 超时、429 / 5xx；
+     * 本地并发许可排队超时不算，由调用方处理
+     */
+    public boolean canSpool(Throwable e) {
+        return conf.isEnabled() && (e instanceof EsCircuitOpenException || EsCircuitBreaker.isFailure(e));
+    }
+
+    /**
+     * 日志中是否有未重放的写入
+     */
+    public boolean isPending() {
+        return readSegment != writeSegment || readOffset != writeOffset;
+    }
+
+    /**
+     * 为自动生成 id 的写入分配 id（开启时在发送前调用，超时后暂存重放不会产生重复文档）
+     *
+     * @param request 写入请求
+     */
+    public void assignId(DocWriteRequest<?> request) {
+        if (conf.isEnabled() && request instanceof IndexRequest && request.id() == null) {
+            ((IndexRequest) request).id(UUIDs.base64UUID());
+        }
+    }
+
+    /**
+     * 追加一条写入（index / 按 doc 的 update / delete）
+     *
+     * @param request 写入请求
+     * @author tjy
+     * @date 2026/10/18
+     **/
+    public void append(DocWriteRequest<?> request) throws IOException {
+        assignId(request);
+        byte[] payload = encode(request);
+        if (HEADER + payload.length > segmentSize) {
+            throw new IOException("文档超过日志段大小 ==> " + payload.length + " bytes");
+        }
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        synchronized (this) {
+            if (!isPending()) {
+                lastProgress = System.currentTimeMillis();
+            }
+            if (writeOffset + HEADER + payload.length > segmentSize) {
+                // 当前段剩余空间保持为 0，读到长度 0 即转到下一段
+                writeMap.force();
+                MappedByteBuffer previous = writeMap;
+                writeMap = map(writeSegment + 1, FileChannel.MapMode.READ_WRITE);
+                writeSegment++;
+                writeOffset = 0;
+                unmap(previous);
+            }
+            int offset = writeOffset;
+            ByteBuffer buffer = writeMap.duplicate();
+            buffer.position(offset + HEADER);
+            buffer.put(payload);
+            writeMap.putInt(offset + 4, (int) crc.getValue());
+            // 长度最后写，读到非 0 长度时内容已完整
+            writeMap.putInt(offset, payload.length);
+            if (conf.isFsync()) {
+                writeMap.force();
+            }
+            writeOffset = offset + HEADER + payload.length;
+        }
+        appended.incrementAndGet();
+    }
+
+    /**
+     * 重放：从检查点开始按顺序读取，组成 bulk 发送，成功后推进检查点
+     */
+    private void replay() {
+        try {
+            while (isPending()) {
+                Batch batch = read(conf.getReplayBatch());
+                if (!batch.requests.isEmpty() && !send(batch.requests)) {
+                    // 有可重试的失败，整批稍后重发（写入都带 id，重复发送是幂等的）
+                    return;
+                }
+                commit(batch.segment, batch.offset);
+                replayed.addAndGet(batch.requests.size());
+            }
+        } catch (IOException | RuntimeException e) {
+            log.warn("日志重放失败，{}ms 后重试 ==> {}", conf.getReplayIntervalMillis(), e.toString());
+        }
+    }
+
+    /**
+     * 从检查点开始读取最多 max 条记录
+     * <p>
+     * 遇到校验失败或无法解析的记录时，先返回它前面已读到的记录；它排在最前面时原样移入隔离文件，
+     * 推进检查点跳过它后继续读取，坏记录不会让重放一直停在这里。
+     */
+    Batch read(int max) throws IOException {
+        long segment = readSegment;
+        int offset = readOffset;
+        List<DocWriteRequest<?>> requests = new ArrayList<>();
+        while (requests.size() < max) {
+            long endSegment;
+            int endOffset;
+            synchronized (this) {
+                endSegment = writeSegment;
+                endOffset = writeOffset;
+            }
+            if (segment == endSegment && offset >= endOffset) {
+                break;
+            }
+            MappedByteBuffer map = readMap(segment);
+            int length = offset + HEADER <= segmentSize ? map.getInt(offset) : 0;
+            if (length == 0 && segment != endSegment) {
+                // 本段结束
+                segment++;
+                offset = 0;
+                continue;
+            }
+            int next = offset + HEADER + length;
+            if (length <= 0 || next > segmentSize || (segment == endSegment && next > endOffset)) {
+                // 长度损坏，找不到下一条记录的位置：本段剩余的部分整体隔离
+                if (!requests.isEmpty()) {
+                    break;
+                }
+                int end = segment == endSegment ? endOffset : segmentSize;
+                quarantine(map, segment, offset, end, "记录长度错误 [" + length + "]");
+                if (segment == endSegment) {
+                    offset = end;
+                } else {
+                    segment++;
+                    offset = 0;
+                }
+                commit(segment, offset);
+                continue;
+            }
+            byte[] payload = new byte[length];
+            ByteBuffer buffer = map.duplicate();
+            buffer.position(offset + HEADER);
+            buffer.get(payload);
+            CRC32 crc = new CRC32();
+            crc.update(payload);
+            DocWriteRequest<?> request = null;
+            String error;
+            if ((int) crc.getValue() != map.getInt(offset + 4)) {
+                error = "CRC 校验失败";
+            } else {
+                try {
+                    request = decode(payload);
+                    error = null;
+                } catch (IOException | RuntimeException e) {
+                    error = "无法解析 " + e;
+                }
+            }
+            if (request == null) {
+                if (!requests.isEmpty()) {
+                    break;
+                }
+                quarantine(map, segment, offset, next, error);
+                offset = next;
+                commit(segment, offset);
+                continue;
+            }
+            requests.add(request);
+            offset = next;
+        }
+        return new Batch(requests, segment, offset);
+    }
+
+    /**
+     * 一次读取的记录和读到的位置
+     */
+    static final class Batch {
+
+        final List<DocWriteRequest<?>> requests;
+
+        final long segment;
+
+        final int offset;
+
+        Batch(List<DocWriteRequest<?>> requests, long segment, int offset) {
+            this.requests = requests;
+            this.segment = segment;
+            this.offset = offset;
+        }
+    }
+
+    /**
+     * 把 [from, to) 的原始字节追加到隔离文件，计入 dropped
+     */
+    private void quarantine(MappedByteBuffer map, long segment, int from, int to, String reason) throws IOException {
+        byte[] bytes = new byte[to - from];
+        ByteBuffer buffer = map.duplicate();
+        buffer.position(from);
+        buffer.get(bytes);
+        Files.write(dir.resolve(QUARANTINE), bytes, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        dropped.incrementAndGet();
+        log.error("日志记录 [{}:{}] {}，{} 字节移入 {} 后跳过", segment, from, reason, bytes.length, QUARANTINE);
+    }
+
+    /**
+     * 重放线程读取用的映射，换段时才重新映射
+     */
+    private MappedByteBuffer readMap(long segment) throws IOException {
+        if (readMapSegment != segment) {
+            MappedByteBuffer previous = readMap;
+            readMap = map(segment, FileChannel.MapMode.READ_ONLY);
+            readMapSegment = segment;
+            if (previous != null) {
+                unmap(previous);
+            }
+        }
+        return readMap;
+    }
+
+    /**
+     * @return 是否可以推进检查点（没有可重试的失败）
+     */
+    private boolean send(List<DocWriteRequest<?>> requests) throws IOException {
+        BulkRequest request = new BulkRequest();
+        requests.forEach(request::add);
+        EsBulkResult result = esClientUtils.bulkExecute(request);
+        List<EsBulkItem> failures = new ArrayList<>();
+        for (EsBulkItem item : result.getItems()) {
+            if (!item.isFailed()) {
+                continue;
+            }
+            if (isRetryable(item.getStatus())) {
+                log.warn("日志重放 [{}] 条被拒绝，稍后重试", result.getFailedNum());
+                return false;
+            }
+            failures.add(item);
+        }
+        for (EsBulkItem item : failures) {
+            dropped.incrementAndGet();
+            log.error("日志重放失败，跳过 [{}/{}] ==> [{}]", item.getIndex(), item.getId(), item.getFailureMessage());
+        }
+        return true;
+    }
+
+    private static boolean isRetryable(Integer status) {
+        RestStatus rest = status == null ? null : RestStatus.fromCode(status);
+        return rest == RestStatus.TOO_MANY_REQUESTS || rest == RestStatus.SERVICE_UNAVAILABLE
+                || rest == RestStatus.BAD_GATEWAY || rest == RestStatus.GATEWAY_TIMEOUT;
+    }
+
+    /**
+     * 推进检查点，删除已重放完的段
+     */
+    void commit(long segment, int offset) throws IOException {
+        Path tmp = dir.resolve(CHECKPOINT + ".tmp");
+        Files.write(tmp, (segment + " " + offset).getBytes(StandardCharsets.UTF_8));
+        Files.move(tmp, dir.resolve(CHECKPOINT), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        readSegment = segment;
+        readOffset = offset;
+        lastProgress = System.currentTimeMillis();
+        stallWarned.set(false);
+        if (readMap != null && readMapSegment < segment) {
+            unmap(readMap);
+            readMap = null;
+            readMapSegment = -1;
+        }
+        for (; firstSegment < segment; firstSegment++) {
+            Files.deleteIfExists(segmentPath(firstSegment));
+        }
+    }
+
+    /**
+     * 启动时恢复写入位置和检查点
+     */
+    private void recover() throws IOException {
+        List<Long> segments = new ArrayList<>();
+        try (Stream<Path> files = Files.list(dir)) {
+            files.map(path -> path.getFileName().toString())
+                    .filter(name -> name.endsWith(SEGMENT_SUFFIX))
+                    .map(name -> Long.parseLong(name.substring(0, name.length() - SEGMENT_SUFFIX.length())))
+                    .sorted()
+                    .forEach(segments::add);
+        }
+        firstSegment = segments.isEmpty() ? 0 : segments.get(0);
+        writeSegment = segments.isEmpty() ? 0 : segments.get(segments.size() - 1);
+        writeMap = map(writeSegment, FileChannel.MapMode.READ_WRITE);
+
+        // 找到最后一条完整的记录
+        int offset = 0;
+        while (offset + HEADER <= segmentSize) {
+            int length = writeMap.getInt(offset);
+            if (length <= 0 || offset + HEADER + length > segmentSize) {
+                break;
+            }
+            byte[] payload = new byte[length];
+            ByteBuffer buffer = writeMap.duplicate();
+            buffer.position(offset + HEADER);
+            buffer.get(payload);
+            CRC32 crc = new CRC32();
+            crc.update(payload);
+            if ((int) crc.getValue() != writeMap.getInt(offset + 4)) {
+                break;
+            }
+            offset += HEADER + length;
+        }
+        if (offset + HEADER <= segmentSize && writeMap.getInt(offset) != 0) {
+            log.warn("日志段 [{}] 末尾有不完整的记录，从 [{}] 处截断", writeSegment, offset);
+            for (int i = offset; i < segmentSize; i++) {
+                writeMap.put(i, (byte) 0);
+            }
+        }
+        writeOffset = offset;
+
+        readSegment = firstSegment;
+        readOffset = 0;
+        Path checkpoint = dir.resolve(CHECKPOINT);
+        if (Files.exists(checkpoint)) {
+            String[] parts = new String(Files.readAllBytes(checkpoint), StandardCharsets.UTF_8).trim().split(" ");
+            long segment = Long.parseLong(parts[0]);
+            if (segment >= firstSegment) {
+                readSegment = segment;
+                readOffset = Integer.parseInt(parts[1]);
+            }
+        }
+    }
+
+    private MappedByteBuffer map(long segment, FileChannel.MapMode mode) throws IOException {
+        StandardOpenOption[] options = mode == FileChannel.MapMode.READ_WRITE
+                ? new StandardOpenOption[]{StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE}
+                : new StandardOpenOption[]{StandardOpenOption.READ};
+        try (FileChannel channel = FileChannel.open(segmentPath(segment), options)) {
+            // 映射后即使关闭 channel 依然有效
+            return channel.map(mode, 0, segmentSize);
+        }
+    }
+
+    /**
+     * 立即释放映射（不等 GC），删除段文件后不再占用地址空间和磁盘；不支持时交给 GC 回收
+     */
+    private static void unmap(MappedByteBuffer buffer) {
+        try {
+            Method cleanerMethod = buffer.getClass().getMethod("cleaner");
+            cleanerMethod.setAccessible(true);
+            Object cleaner = cleanerMethod.invoke(buffer);
+            if (cleaner != null) {
+                cleaner.getClass().getMethod("clean").invoke(cleaner);
+            }
+        } catch (Exception e) {
+            log.debug("释放日志段映射失败，等待 GC 回收 ==> {}", e.toString());
+        }
+    }
+
+    Path segmentPath(long segment) {
+        return dir.resolve(String.format("%020d%s", segment, SEGMENT_SUFFIX));
+    }
+
+    static byte[] encode(DocWriteRequest<?> request) throws IOException {
+        byte op;
+        BytesReference source;
+        XContentType contentType;
+        if (request instanceof IndexRequest) {
+            op = OP_INDEX;
+            source = ((IndexRequest) request).source();
+            contentType = ((IndexRequest) request).getContentType();
+        } else if (request instanceof UpdateRequest) {
+            UpdateRequest update = (UpdateRequest) request;
+            if (update.script() != null || update.doc() == null) {
+                throw new IllegalArgumentException("日志只支持按 doc 修改 ==> " + request);
+            }
+            op = update.docAsUpsert() ? OP_UPSERT : OP_UPDATE;
+            source = update.doc().source();
+            contentType = update.doc().getContentType();
+        } else if (request instanceof DeleteRequest) {
+            op = OP_DELETE;
+            source = null;
+            contentType = XContentType.JSON;
+        } else {
+            throw new IllegalArgumentException("不支持的写入类型 ==> " + request);
+        }
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(source == null ? 64 : source.length() + 64);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeByte(op);
+        out.writeUTF(request.index());
+        out.writeUTF(request.id());
+        out.writeUTF(request.routing() == null ? "" : request.routing());
+        out.writeByte(contentType.ordinal());
+        byte[] data = source == null ? new byte[0] : BytesReference.toBytes(source);
+        out.writeInt(data.length);
+        out.write(data);
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    static DocWriteRequest<?> decode(byte[] payload) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+        byte op = in.readByte();
+        String index = in.readUTF();
+        String id = in.readUTF();
+        String routing = in.readUTF();
+        XContentType contentType = XContentType.values()[in.readByte()];
+        byte[] data = new byte[in.readInt()];
+        in.readFully(data);
+
+        DocWriteRequest<?> request;
+        switch (op) {
+            case OP_INDEX:
+                request = new IndexRequest(index).id(id).source(data, contentType);
+                break;
+            case OP_UPDATE:
+            case OP_UPSERT:
+                request = new UpdateRequest(index, id).doc(data, contentType).docAsUpsert(op == OP_UPSERT);
+                break;
+            case OP_DELETE:
+                request = new DeleteRequest(index, id);
+                break;
+            default:
+                throw new IOException("未知的日志记录类型 ==> " + op);
+        }
+        if (!routing.isEmpty()) {
+            request.routing(routing);
+        }
+        return request;
+    }
+
+    /**
+     * 写入日志的条数
+     */
+    public long getAppended() {
+        return appended.get();
+    }
+
+    /**
+     * 重放成功的条数
+     */
+    public long getReplayed() {
+        return replayed.get();
+    }
+
+    /**
+     * 重放时不可重试而跳过的条数（含移入隔离文件的记录）
+     */
+    public long getDropped() {
+        return dropped.get();
+    }
+
+    public void resetStats() {
+        appended.set(0);
+        replayed.set(0);
+        dropped.set(0);
+    }
+
+    @Override
+    public String toString() {
+        return "EsWriteJournal[appended=" + getAppended() + ", replayed=" + getReplayed() + ", dropped=" + getDropped()
+                + ", replay=" + readSegment + ":" + readOffset + ", write=" + writeSegment + ":" + writeOffset + "]";
+    }
+}
@@ -0,0 +1,44 @@
+package com.qingjiu.myes.config.elasticsearch;
+
+import com.alibaba.fastjson.JSON;
+import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.xcontent.XContentType;
+
+/**
+ * 默认文档序列化实现（fastjson）
+ * <p>
+ * 使用 JSON.toJSONBytes 直接编码为 UTF-8 字节，fastjson 内部的 char/byte 缓冲区按线程复用，
+ * 不再先生成一个 UTF-16 的 String 再由 ES 重新编码成 UTF-8。
+ * 已经是 json 的 String / byte[] / BytesReference 原样作为请求体。
+ *
+ * @author tjy
+ * @date 2026/10/18
+ **/
+public class FastJsonDocumentSerializer implements EsDocumentSerializer {
+
+    @Override
+    public XContentType contentType() {
+        return XContentType.JSON;
+    }
+
+    @Override
+    public BytesReference serialize(Object source) {
+        if (source instanceof BytesReference) {
+            return (BytesReference) source;
+        }
+        if (source instanceof byte[]) {
+            return new BytesArray((byte[]) source);
+        }
+        if (source instanceof String) {
+            return new BytesArray((String) source);
+        }
+        return new BytesArray(JSON.toJSONBytes(source));
+    }
+
+    @Override
+    public <T> T deserialize(BytesReference source, Class<T> type) {
+        // BytesArray 整段时直接返回内部数组，不复制
+        return JSON.parseObject(BytesReference.toBytes(source), type);
+    }
+}
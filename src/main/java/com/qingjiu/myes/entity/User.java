@@ -1,6 +1,7 @@
 package com.qingjiu.myes.entity;
 
 import com.fasterxml.jackson.annotation.JsonFormat;
+import com.qingjiu.myes.entity.es.EsId;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -14,6 +15,7 @@ import java.util.Date;
 public class User {
     private String userName;
 
+    @EsId
     private String userNo;
 
     private Integer userId;
@@ -1,9 +1,14 @@
 package com.qingjiu.myes.entity.es;
 
 import io.swagger.annotations.ApiModelProperty;
+import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.NoArgsConstructor;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 
+import java.util.ArrayList;
+import java.util.List;
+
 /**
  * es配置实体
  * @author tjy
@@ -24,4 +29,492 @@ public class ElasticSearchEntity {
 
     @ApiModelProperty(value = "端口")
     private Integer port;
+
+    @ApiModelProperty(value = "多个节点（host:port，配置后忽略 host / port）")
+    private List<String> hosts = new ArrayList<>();
+
+    @ApiModelProperty(value = "节点发现与选择配置")
+    private Nodes nodes = new Nodes();
+
+    @ApiModelProperty(value = "http 连接池配置")
+    private Http http = new Http();
+
+    @ApiModelProperty(value = "http gzip 压缩配置")
+    private Compression compression = new Compression();
+
+    @ApiModelProperty(value = "按负载类型的并发限制")
+    private Workloads workloads = new Workloads();
+
+    @ApiModelProperty(value = "客户端熔断配置")
+    private Breaker breaker = new Breaker();
+
+    @ApiModelProperty(value = "批量写入配置")
+    private Bulk bulk = new Bulk();
+
+    @ApiModelProperty(value = "全索引导出配置")
+    private Export export = new Export();
+
+    @ApiModelProperty(value = "查询合并（_msearch）配置")
+    private Msearch msearch = new Msearch();
+
+    @ApiModelProperty(value = "文档 id 布隆过滤器配置")
+    private IdFilter idFilter = new IdFilter();
+
+    @ApiModelProperty(value = "单文档读取合并（_mget）配置")
+    private Mget mget = new Mget();
+
+    @ApiModelProperty(value = "文档 id 生成配置")
+    private IdGeneration idGeneration = new IdGeneration();
+
+    @ApiModelProperty(value = "本地写入日志配置")
+    private Journal journal = new Journal();
+
+    @ApiModelProperty(value = "延迟合并写入配置")
+    private WriteBehind writeBehind = new WriteBehind();
+
+    @ApiModelProperty(value = "条件修改（乐观锁）配置")
+    private OptimisticUpdate optimisticUpdate = new OptimisticUpdate();
+
+    @ApiModelProperty(value = "相同读请求合并配置")
+    private SingleFlight singleFlight = new SingleFlight();
+
+    @ApiModelProperty(value = "对冲查询配置")
+    private Hedge hedge = new Hedge();
+
+    @ApiModelProperty(value = "本地查询结果缓存配置")
+    private Cache cache = new Cache();
+
+    @ApiModelProperty(value = "异步调用（EsAsyncClient）配置")
+    private Async async = new Async();
+
+    /**
+     * 节点发现与选择配置
+     * @author tjy
+     * @date 2026/10/18
+     **/
+    @Data
+    public static class Nodes {
+
+        @ApiModelProperty(value = "协议（http / https）")
+        private String scheme = "http";
+
+        @ApiModelProperty(value = "是否定时嗅探集群节点")
+        private boolean sniff = false;
+
+        @ApiModelProperty(value = "嗅探间隔（秒）")
+        private Integer sniffIntervalSeconds = 300;
+
+        @ApiModelProperty(value = "节点请求失败后多久再嗅探一次（秒）")
+        private Integer sniffAfterFailureDelaySeconds = 30;
+
+        @ApiModelProperty(value = "是否按节点角色选择节点（查询发往协调节点，写入发往 data / ingest 节点，需开启嗅探）")
+        private boolean roleAware = true;
+    }
+
+    /**
+     * http 连接池配置（每个客户端单独一个连接池）
+     * @author tjy
+     * @date 2026/10/18
+     **/
+    @Data
+    public static class Http {
+
+        @ApiModelProperty(value = "最大连接数")
+        private Integer maxConnTotal = 200;
+
+        @ApiModelProperty(value = "每个节点的最大连接数")
+        private Integer maxConnPerRoute = 100;
+
+        @ApiModelProperty(value = "io 线程数（0 为 cpu 核数）")
+        private Integer ioThreads = 0;
+
+        @ApiModelProperty(value = "建立连接超时（毫秒）")
+        private Integer connectTimeoutMillis = 1000;
+
+        @ApiModelProperty(value = "读取超时（毫秒）")
+        private Integer socketTimeoutMillis = 30000;
+
+        @ApiModelProperty(value = "从连接池获取连接超时（毫秒，-1 为不限制）")
+        private Integer connectionRequestTimeoutMillis = -1;
+
+        @ApiModelProperty(value = "空闲连接保持时间（秒，服务端返回的 Keep-Alive 更短时以服务端为准）")
+        private Long keepAliveSeconds = 60L;
+
+        @ApiModelProperty(value = "连接最长存活时间（秒，0 为不限制；到期后不再复用，便于负载均衡后新节点分到流量）")
+        private Long connectionTtlSeconds = 0L;
+
+        @ApiModelProperty(value = "同步方法等待合并 / 异步请求结果的最长时间（毫秒，应大于读取超时加排队时间）")
+        private Long awaitTimeoutMillis = 120000L;
+    }
+
+    /**
+     * http gzip 压缩配置（es 集群需开启 http.compression，7.x 默认开启）
+     * @author tjy
+     * @date 2026/10/18
+     **/
+    @Data
+    public static class Compression {
+
+        @ApiModelProperty(value = "是否开启（请求体压缩 + 接收压缩响应）")
+        private boolean enabled = false;
+
+        @ApiModelProperty(value = "请求体超过多少字节才压缩")
+        private Integer requestThresholdBytes = 1024;
+    }
+
+    /**
+     * 按负载类型的并发限制
+     * @author tjy
+     * @date 2026/10/18
+     **/
+    @Data
+    public static class Workloads {
+
+        @ApiModelProperty(value = "交互请求（查询、单文档读写）")
+        private Workload interactive = new Workload(64, 256, 200L);
+
+        @ApiModelProperty(value = "批量任务（bulk、导出）")
+        private Workload batch = new Workload(4, 64, 60000L);
+    }
+
+    /**
+     * 单个负载类型的并发限制
+     * @author tjy
+     * @date 2026/10/18
+     **/
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Workload {
+
+        @ApiModelProperty(value = "同时在途的最大请求数")
+        private Integer maxConcurrent;
+
+        @ApiModelProperty(value = "最多排队等待的请求数（超过直接拒绝）")
+        private Integer maxQueue;
+
+        @ApiModelProperty(value = "排队等待超时（毫秒）")
+        private Long queueTimeoutMillis;
+    }
+
+    /**
+     * 客户端熔断配置（按请求类型分别统计）
+     * @author tjy
+     * @date 2026/10/18
+     **/
+    @Data
+    public static class Breaker {
+
+        @ApiModelProperty(value = "是否开启")
+        private boolean enabled = false;
+
+        @ApiModelProperty(value = "统计失败率的最近请求数")
+        private Integer windowSize = 50;
+
+        @ApiModelProperty(value = "最近请求数达到多少后才计算失败率")
+        private Integer minimumCalls = 20;
+
+        @ApiModelProperty(value = "失败率达到多少（百分比）时熔断")
+        private Double failureRatePercent = 50.0;
+
+        @ApiModelProperty(value = "熔断打开多长时间后半开探测（毫秒）")
+        private Long openMillis = 10000L;
+
+        @ApiModelProperty(value = "半开时放行的探测请求数（全部成功才关闭熔断）")
+        private Integer halfOpenProbes = 3;
+
+        @ApiModelProperty(value = "查询熔断时是否返回过期的本地缓存（缓存开启时生效）")
+        private boolean staleCacheFallback = true;
+    }
+
+    /**
+     * 批量写入（BulkProcessor）配置
+     * @author tjy
+     * @date 2026/10/18
+     **/
+    @Data
+    public static class Bulk {
+
+        @ApiModelProperty(value = "累计多少条文档提交一次bulk")
+        private Integer actions = 1000;
+
+        @ApiModelProperty(value = "累计多少MB提交一次bulk")
+        private Integer sizeMb = 5;
+
+        @ApiModelProperty(value = "定时提交间隔（秒）")
+        private Long flushIntervalSeconds = 5L;
+
+        @ApiModelProperty(value = "同时在途的bulk请求数（0为同步提交）")
+        private Integer concurrentRequests = 1;
+
+        @ApiModelProperty(value = "关闭时等待在途请求完成的时间（秒）")
+        private Long closeTimeoutSeconds = 30L;
+
+        @ApiModelProperty(value = "被拒绝(429)等可重试条目的最大重试次数")
+        private Integer maxRetries = 3;
+
+        @ApiModelProperty(value = "重试初始退避时间（毫秒），之后按指数增长")
+        private Long initialBackoffMillis = 100L;
+
+        @ApiModelProperty(value = "重试最大退避时间（毫秒）")
+        private Long maxBackoffMillis = 5000L;
+
+        @ApiModelProperty(value = "批量导入结束后等待索引green的时间（秒）")
+        private Long loadHealthTimeoutSeconds = 60L;
+    }
+
+    /**
+     * 全索引导出（sliced scroll）配置
+     * @author tjy
+     * @date 2026/10/18
+     **/
+    @Data
+    public static class Export {
+
+        @ApiModelProperty(value = "默认并行 slice 数（0 为 CPU 核数，建议不超过索引主分片数）")
+        private Integer slices = 0;
+
+        @ApiModelProperty(value = "每次 scroll 拉取的文档数")
+        private Integer batchSize = 1000;
+
+        @ApiModelProperty(value = "scroll 上下文保持时间（秒）")
+        private Long keepAliveSeconds = 60L;
+
+        @ApiModelProperty(value = "scroll 线程与调用方之间的缓冲队列长度")
+        private Integer queueCapacity = 10000;
+    }
+
+    /**
+     * 查询合并（_msearch）配置
+     * @author tjy
+     * @date 2026/10/18
+     **/
+    @Data
+    public static class Msearch {
+
+        @ApiModelProperty(value = "同步查询方法是否也走合并（searchBatched 不受此开关影响）")
+        private boolean enabled = false;
+
+        @ApiModelProperty(value = "合并时间窗口（微秒）")
+        private Long windowMicros = 2000L;
+
+        @ApiModelProperty(value = "单次合并的最大请求数")
+        private Integer maxBatch = 32;
+    }
+
+    /**
+     * 文档 id 布隆过滤器配置（existsDocument 判定一定不存在时不请求 es）
+     * @author tjy
+     * @date 2026/10/18
+     **/
+    @Data
+    public static class IdFilter {
+
+        @ApiModelProperty(value = "是否开启")
+        private boolean enabled = false;
+
+        @ApiModelProperty(value = "开启过滤器的索引（只能是只由本项目写入的索引，不能是别名）")
+        private List<String> indices = new ArrayList<>();
+
+        @ApiModelProperty(value = "误判率（判定可能存在但实际不存在的比例）")
+        private Double falsePositiveRate = 0.01;
+
+        @ApiModelProperty(value = "最小容量（文档数）")
+        private Long minCapacity = 100000L;
+
+        @ApiModelProperty(value = "容量 = 重建时文档数 * 该倍数（留出新增文档的空间，超过容量时提前重建）")
+        private Double capacityFactor = 2.0;
+
+        @ApiModelProperty(value = "定时重建间隔（分钟，清除已删除的 id）")
+        private Long rebuildIntervalMinutes = 360L;
+
+        @ApiModelProperty(value = "重建时等待在途写入结束的时间（毫秒，不小于 http.socket-timeout-millis）")
+        private Long settleMillis = 30000L;
+    }
+
+    /**
+     * 单文档读取合并（_mget）配置
+     * @author tjy
+     * @date 2026/10/18
+     **/
+    @Data
+    public static class Mget {
+
+        @ApiModelProperty(value = "按 id 读取单个文档的同步方法是否走合并")
+        private boolean enabled = false;
+
+        @ApiModelProperty(value = "合并时间窗口（微秒）")
+        private Long windowMicros = 1000L;
+
+        @ApiModelProperty(value = "单次合并的最大请求数")
+        private Integer maxBatch = 100;
+    }
+
+    /**
+     * 文档 id 生成配置（新增文档没有指定 id、实体也没有 @EsId 字段时使用）
+     * @author tjy
+     * @date 2026/10/18
+     **/
+    @Data
+    public static class IdGeneration {
+
+        @ApiModelProperty(value = "生成策略 AUTO（es 生成）/ FLAKE（按时间递增）/ CONTENT_HASH（内容哈希）")
+        private EsIdStrategy strategy = EsIdStrategy.AUTO;
+
+        @ApiModelProperty(value = "FLAKE 的节点号（0 ~ 1023，多实例部署时各不相同；小于 0 时由主机名和进程号计算）")
+        private Integer nodeId = -1;
+    }
+
+    /**
+     * 本地写入日志（集群不可用时暂存单文档写入）配置
+     * @author tjy
+     * @date 2026/10/18
+     **/
+    @Data
+    public static class Journal {
+
+        @ApiModelProperty(value = "是否开启")
+        private boolean enabled = false;
+
+        @ApiModelProperty(value = "日志目录")
+        private String dir = "es-journal";
+
+        @ApiModelProperty(value = "日志段大小（MB，单条文档不能超过）")
+        private Integer segmentSizeMb = 64;
+
+        @ApiModelProperty(value = "是否所有单文档写入都先写日志（写入延迟与集群完全解耦，写入后不能立即读到）")
+        private boolean spoolAll = false;
+
+        @ApiModelProperty(value = "每条记录是否立即刷盘（关闭时由操作系统刷盘，机器断电可能丢失最近的记录）")
+        private boolean fsync = false;
+
+        @ApiModelProperty(value = "重放检查间隔 / 集群不可用时的重试间隔（毫秒）")
+        private Long replayIntervalMillis = 1000L;
+
+        @ApiModelProperty(value = "每个重放 bulk 的条数")
+        private Integer replayBatch = 1000;
+
+        @ApiModelProperty(value = "重放多久没有进展后，新的写入不再转入日志而是直接发送（毫秒）")
+        private Long maxSpoolMillis = 300000L;
+    }
+
+    /**
+     * 延迟合并写入（write-behind）配置
+     * @author tjy
+     * @date 2026/10/18
+     **/
+    @Data
+    public static class WriteBehind {
+
+        @ApiModelProperty(value = "是否开启（未开启时 EsWriteBehindBuffer.update 直接修改）")
+        private boolean enabled = false;
+
+        @ApiModelProperty(value = "定时写入间隔（毫秒）")
+        private Long flushIntervalMillis = 1000L;
+
+        @ApiModelProperty(value = "待写入文档数达到多少时提前写入")
+        private Integer flushKeys = 5000;
+
+        @ApiModelProperty(value = "待写入文档数上限，达到后调用方线程同步写入")
+        private Integer maxKeys = 50000;
+
+        @ApiModelProperty(value = "文档不存在时是否按修改内容新增")
+        private boolean docAsUpsert = false;
+    }
+
+    /**
+     * 条件修改（乐观锁，if_seq_no / if_primary_term）配置
+     * @author tjy
+     * @date 2026/10/18
+     **/
+    @Data
+    public static class OptimisticUpdate {
+
+        @ApiModelProperty(value = "版本冲突时的最大重试次数（脚本修改时为 retry_on_conflict）")
+        private Integer maxRetries = 10;
+
+        @ApiModelProperty(value = "重试初始退避时间（毫秒），之后按指数增长")
+        private Long initialBackoffMillis = 10L;
+
+        @ApiModelProperty(value = "重试最大退避时间（毫秒）")
+        private Long maxBackoffMillis = 500L;
+    }
+
+    /**
+     * 相同读请求合并（single flight）配置
+     * @author tjy
+     * @date 2026/10/18
+     **/
+    @Data
+    public static class SingleFlight {
+
+        @ApiModelProperty(value = "是否开启（相同的 get / 查询在途时不再重复发送，共用结果）")
+        private boolean enabled = false;
+    }
+
+    /**
+     * 对冲查询配置（超过延迟阈值未返回时向其他副本再发一次，取先返回的结果）
+     * @author tjy
+     * @date 2026/10/18
+     **/
+    @Data
+    public static class Hedge {
+
+        @ApiModelProperty(value = "是否开启（只对同步查询方法生效）")
+        private boolean enabled = false;
+
+        @ApiModelProperty(value = "延迟阈值取最近查询耗时的第几百分位")
+        private Double percentile = 95.0;
+
+        @ApiModelProperty(value = "延迟阈值下限（毫秒）")
+        private Long minDelayMillis = 10L;
+
+        @ApiModelProperty(value = "延迟阈值上限（毫秒，样本不足时使用）")
+        private Long maxDelayMillis = 500L;
+
+        @ApiModelProperty(value = "统计耗时的最近查询数")
+        private Integer windowSize = 1000;
+
+        @ApiModelProperty(value = "对冲请求最多占查询总数的百分比")
+        private Double maxHedgePercent = 10.0;
+    }
+
+    /**
+     * 本地查询结果缓存配置
+     * @author tjy
+     * @date 2026/10/18
+     **/
+    @Data
+    public static class Cache {
+
+        @ApiModelProperty(value = "是否开启")
+        private boolean enabled = false;
+
+        @ApiModelProperty(value = "最大缓存条数")
+        private Integer maxEntries = 1000;
+
+        @ApiModelProperty(value = "最大缓存大小（MB，按 _source 字节估算）")
+        private Long maxBytesMb = 64L;
+
+        @ApiModelProperty(value = "缓存过期时间（秒）")
+        private Long ttlSeconds = 60L;
+
+        @ApiModelProperty(value = "索引写入后多长时间内不缓存其查询结果（毫秒，一般与 refresh_interval 一致）")
+        private Long writeQuietMillis = 1000L;
+    }
+
+    /**
+     * 异步调用配置
+     * @author tjy
+     * @date 2026/10/18
+     **/
+    @Data
+    public static class Async {
+
+        @ApiModelProperty(value = "回调线程数（0 为 cpu 核数）")
+        private Integer callbackThreads = 0;
+
+        @ApiModelProperty(value = "回调队列长度（队列满时在 es 的 io 线程上直接执行回调）")
+        private Integer callbackQueueCapacity = 10000;
+    }
 }
@@ -0,0 +1,39 @@
+package com.qingjiu.myes.entity.es;
+
+import io.swagger.annotations.ApiModelProperty;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * bulk 单条操作结果
+ * @author tjy
+ * @date 2026/10/18
+ **/
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class EsBulkItem {
+
+    @ApiModelProperty("所在索引")
+    private String index;
+
+    @ApiModelProperty("文档id")
+    private String id;
+
+    @ApiModelProperty("操作类型 index/create/update/delete")
+    private String opType;
+
+    @ApiModelProperty("返回状态码")
+    private Integer status;
+
+    @ApiModelProperty("是否失败")
+    private boolean failed;
+
+    @ApiModelProperty("失败原因")
+    private String failureMessage;
+
+    @ApiModelProperty("发送次数（含重试）")
+    private Integer attempts;
+
+}
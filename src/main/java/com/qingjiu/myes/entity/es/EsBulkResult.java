@@ -0,0 +1,43 @@
+package com.qingjiu.myes.entity.es;
+
+import io.swagger.annotations.ApiModelProperty;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * bulk 返回封装实体（逐条结果）
+ * @author tjy
+ * @date 2026/10/18
+ **/
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class EsBulkResult {
+
+    @ApiModelProperty("提交条数")
+    private int total;
+
+    @ApiModelProperty("成功条数")
+    private int successNum;
+
+    @ApiModelProperty("失败条数")
+    private int failedNum;
+
+    @ApiModelProperty("重试发送的条数")
+    private int retryNum;
+
+    @ApiModelProperty("逐条结果（与提交顺序一致）")
+    private List<EsBulkItem> items = new ArrayList<>();
+
+    /**
+     * 是否全部成功
+     */
+    public boolean isAllSuccess() {
+        return failedNum == 0;
+    }
+
+}
@@ -1,15 +1,26 @@
 package com.qingjiu.myes.entity.es;
 
+import com.alibaba.fastjson.annotation.JSONField;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import io.swagger.annotations.ApiModelProperty;
-import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.xcontent.XContentHelper;
+import org.elasticsearch.common.xcontent.XContentType;
 
 import java.util.Map;
 
+/**
+ * 单条查询结果
+ * <p>
+ * 由查询结果创建时只保存原始 _source 字节，sourceAsMap / sourceAsString 在第一次读取时才解析，
+ * 只读其中一种形式就不会再多解析/拷贝另一种。
+ *
+ * @author tjy
+ **/
 @Data
 @NoArgsConstructor
-@AllArgsConstructor
 public class EsData {
 
     @ApiModelProperty("返回数据集合 map类型")
@@ -27,4 +38,38 @@ public class EsData {
     @ApiModelProperty("索引id")
     private String indexId;
 
+    @JsonIgnore
+    @JSONField(serialize = false)
+    @ApiModelProperty(hidden = true)
+    private transient BytesReference source;
+
+    public EsData(Map<String, Object> sourceAsMap, String sourceAsString, String index, Float score, String indexId) {
+        this.sourceAsMap = sourceAsMap;
+        this.sourceAsString = sourceAsString;
+        this.index = index;
+        this.score = score;
+        this.indexId = indexId;
+    }
+
+    public EsData(BytesReference source, String index, Float score, String indexId) {
+        this.source = source;
+        this.index = index;
+        this.score = score;
+        this.indexId = indexId;
+    }
+
+    public Map<String, Object> getSourceAsMap() {
+        if (sourceAsMap == null && source != null) {
+            sourceAsMap = XContentHelper.convertToMap(source, false, XContentType.JSON).v2();
+        }
+        return sourceAsMap;
+    }
+
+    public String getSourceAsString() {
+        if (sourceAsString == null && source != null) {
+            sourceAsString = source.utf8ToString();
+        }
+        return sourceAsString;
+    }
+
 }
@@ -0,0 +1,21 @@
+package com.qingjiu.myes.entity.es;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 标记实体中作为 es 文档 id 的字段
+ * <p>
+ * 批量写入 / 修改时用该字段的值（toString）作为文档 id，一个类只能标记一个字段（可以在父类中）。
+ *
+ * @author tjy
+ * @date 2026/10/18
+ **/
+@Documented
+@Target(ElementType.FIELD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface EsId {
+}
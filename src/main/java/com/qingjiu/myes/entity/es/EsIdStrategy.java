@@ -0,0 +1,25 @@
+package com.qingjiu.myes.entity.es;
+
+/**
+ * 文档 id 生成策略（实体有 @EsId 字段或调用时指定 id 时不生成）
+ *
+ * @author tjy
+ * @date 2026/10/18
+ **/
+public enum EsIdStrategy {
+
+    /**
+     * 由 es 生成（不带 id 发送，写入失败重发时可能产生重复文档）
+     */
+    AUTO,
+
+    /**
+     * 按时间递增的 11 位短 id（毫秒时间戳 + 节点号 + 序号），相邻写入的 id 前缀相同，倒排词典局部性好
+     */
+    FLAKE,
+
+    /**
+     * 文档内容的哈希（SHA-256 前 128 位），内容相同的文档 id 相同，重复写入自动去重
+     */
+    CONTENT_HASH
+}
@@ -18,13 +18,22 @@ import java.util.List;
 @NoArgsConstructor
 public class EsReturnData {
 
-    @ApiModelProperty("返回数据数量")
+    @ApiModelProperty("返回数据数量（不统计总数时为空）")
     private Long num;
 
+    @ApiModelProperty("num 的含义：eq 精确值，gte 下限（超过统计上限）")
+    private String numRelation;
+
     @ApiModelProperty("当前数据最大分数")
     private Float maxScore;
 
     @ApiModelProperty("当前数据最大分数")
     private List<EsData> esDataList = new ArrayList<>();
 
+    @ApiModelProperty("下一页游标（游标分页时返回，为空表示没有更多数据）")
+    private String cursor;
+
+    @ApiModelProperty("是否为熔断时返回的过期缓存")
+    private boolean stale;
+
 }
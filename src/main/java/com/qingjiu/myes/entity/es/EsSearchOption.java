@@ -0,0 +1,144 @@
+package com.qingjiu.myes.entity.es;
+
+import io.swagger.annotations.ApiModelProperty;
+import lombok.Data;
+
+/**
+ * 查询选项（分页 / 游标分页 / 排序 / _source / 总数统计）
+ * @author tjy
+ * @date 2026/10/18
+ **/
+@Data
+public class EsSearchOption {
+
+    /**
+     * 精确统计总数
+     */
+    public static final int TOTAL_HITS_EXACT = Integer.MAX_VALUE;
+
+    /**
+     * 不统计总数（EsReturnData.num 返回 null）
+     */
+    public static final int TOTAL_HITS_OFF = -1;
+
+    @ApiModelProperty("从第几个数据开始分页")
+    private Integer form;
+
+    @ApiModelProperty("每页数据数量")
+    private Integer size;
+
+    @ApiModelProperty("排序（字段,asc/desc 例如 date,desc）")
+    private String sort;
+
+    @ApiModelProperty("是否返回 _source")
+    private boolean fetchSource = true;
+
+    @ApiModelProperty("_source 只返回的字段（支持通配符，例如 user.*）")
+    private String[] includes;
+
+    @ApiModelProperty("_source 不返回的字段（支持通配符，例如大字段 image）")
+    private String[] excludes;
+
+    @ApiModelProperty("总数统计：为空时 es 默认精确统计到 10000；TOTAL_HITS_EXACT 精确统计；N 最多精确统计到 N（超过时 num 为下限）；TOTAL_HITS_OFF 不统计")
+    private Integer trackTotalHits;
+
+    @ApiModelProperty("是否使用游标分页（search_after），开启后忽略 form，深度翻页代价与第一页相同")
+    private boolean useCursor;
+
+    @ApiModelProperty("游标（上一页返回的 EsReturnData.cursor，第一页不填）")
+    private String cursor;
+
+    @ApiModelProperty("游标分页的唯一排序字段，保证排序值相同的文档有固定顺序")
+    private String tiebreaker = "_id";
+
+    @ApiModelProperty("是否使用本地查询缓存（缓存开启时生效）")
+    private boolean useCache = true;
+
+    @ApiModelProperty("是否允许对冲查询（对冲开启时生效）")
+    private boolean hedge = true;
+
+    /**
+     * 只设置分页的查询选项
+     *
+     * @param form 从第几个数据开始分页
+     * @param size 每页数据数量
+     * @return com.qingjiu.myes.entity.es.EsSearchOption
+     */
+    public static EsSearchOption page(Integer form, Integer size) {
+        EsSearchOption option = new EsSearchOption();
+        option.setForm(form);
+        option.setSize(size);
+        return option;
+    }
+
+    /**
+     * 游标分页的查询选项
+     *
+     * @param size   每页数据数量
+     * @param sort   排序（字段,asc/desc 例如 date,desc）
+     * @param cursor 上一页返回的游标（第一页不填）
+     * @return com.qingjiu.myes.entity.es.EsSearchOption
+     */
+    public static EsSearchOption cursor(Integer size, String sort, String cursor) {
+        EsSearchOption option = new EsSearchOption();
+        option.setUseCursor(true);
+        option.setSize(size);
+        option.setSort(sort);
+        option.setCursor(cursor);
+        return option;
+    }
+
+    /**
+     * 设置 _source 只返回的字段
+     *
+     * @param includes 字段名称（支持通配符）
+     * @return com.qingjiu.myes.entity.es.EsSearchOption
+     */
+    public EsSearchOption includes(String... includes) {
+        this.includes = includes;
+        return this;
+    }
+
+    /**
+     * 设置 _source 不返回的字段
+     *
+     * @param excludes 字段名称（支持通配符）
+     * @return com.qingjiu.myes.entity.es.EsSearchOption
+     */
+    public EsSearchOption excludes(String... excludes) {
+        this.excludes = excludes;
+        return this;
+    }
+
+    /**
+     * 总数最多精确统计到 upTo（列表页一般只需要知道“超过 N 条”）
+     *
+     * @param upTo 精确统计上限
+     * @return com.qingjiu.myes.entity.es.EsSearchOption
+     */
+    public EsSearchOption totalHitsUpTo(int upTo) {
+        this.trackTotalHits = upTo;
+        return this;
+    }
+
+    /**
+     * 精确统计总数（命中数很大时代价较高）
+     *
+     * @return com.qingjiu.myes.entity.es.EsSearchOption
+     */
+    public EsSearchOption exactTotalHits() {
+        this.trackTotalHits = TOTAL_HITS_EXACT;
+        return this;
+    }
+
+    /**
+     * 不统计总数
+     *
+     * @return com.qingjiu.myes.entity.es.EsSearchOption
+     */
+    public EsSearchOption withoutTotalHits() {
+        this.trackTotalHits = TOTAL_HITS_OFF;
+        return this;
+    }
+
+}
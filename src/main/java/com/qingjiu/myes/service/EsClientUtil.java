@@ -3,12 +3,22 @@ package com.qingjiu.myes.service;
 import com.alibaba.fastjson.JSON;
 import com.alibaba.fastjson.JSONArray;
 import com.alibaba.fastjson.JSONObject;
+import com.qingjiu.myes.config.elasticsearch.EsDocumentSerializer;
+import com.qingjiu.myes.config.elasticsearch.EsAdmissionControl;
+import com.qingjiu.myes.config.elasticsearch.EsCircuitBreaker;
+import com.qingjiu.myes.config.elasticsearch.EsEndpoint;
+import com.qingjiu.myes.config.elasticsearch.EsGetBatcher;
+import com.qingjiu.myes.config.elasticsearch.EsIdExtractor;
+import com.qingjiu.myes.config.elasticsearch.EsIdGenerator;
+import com.qingjiu.myes.config.elasticsearch.EsIdFilter;
+import com.qingjiu.myes.config.elasticsearch.EsQueryCache;
+import com.qingjiu.myes.config.elasticsearch.EsSingleFlight;
+import com.qingjiu.myes.config.elasticsearch.EsWorkload;
 import com.qingjiu.myes.util.DateUtil;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.io.FileUtils;
 import org.apache.lucene.search.TotalHits;
 import org.elasticsearch.ElasticsearchException;
-import org.elasticsearch.action.ActionListener;
 import org.elasticsearch.action.DocWriteResponse;
 import org.elasticsearch.action.admin.indices.delete.DeleteIndexRequest;
 import org.elasticsearch.action.admin.indices.open.OpenIndexRequest;
@@ -30,6 +40,7 @@ import org.elasticsearch.action.update.UpdateResponse;
 import org.elasticsearch.client.RequestOptions;
 import org.elasticsearch.client.RestHighLevelClient;
 import org.elasticsearch.client.indices.*;
+import org.elasticsearch.common.bytes.BytesReference;
 import org.elasticsearch.common.unit.TimeValue;
 import org.elasticsearch.common.xcontent.XContentType;
 import org.elasticsearch.index.query.*;
@@ -56,6 +67,8 @@ import java.util.concurrent.TimeUnit;
 
 /**
  * ElasticSearch [Java-Rest-Client-High-Level] Util
+ * 所有方法都是同步执行，isAsync 参数已不再使用（以前会把同一个请求再异步提交一次，导致重复写入），
+ * 异步调用请使用 {@link com.qingjiu.myes.config.elasticsearch.EsAsyncClient}
  *
  * @author tjy
  * @date 2020/7/1
@@ -68,6 +81,37 @@ public class EsClientUtil {
     @Qualifier("restHighLevelClient")
     private RestHighLevelClient client;
 
+    /**
+     * bulk 专用客户端（优先发往 data / ingest 节点）
+     */
+    @Autowired
+    @Qualifier("bulkRestHighLevelClient")
+    private RestHighLevelClient bulkClient;
+
+    @Autowired
+    private EsDocumentSerializer serializer;
+
+    @Autowired
+    private EsIdGenerator idGenerator;
+
+    @Autowired
+    private EsQueryCache queryCache;
+
+    @Autowired
+    private EsAdmissionControl admissionControl;
+
+    @Autowired
+    private EsCircuitBreaker circuitBreaker;
+
+    @Autowired
+    private EsSingleFlight singleFlight;
+
+    @Autowired
+    private EsGetBatcher getBatcher;
+
+    @Autowired
+    private EsIdFilter idFilter;
+
     private long timeOut = 1;
     private long masterTimeOut = 2;
 
@@ -90,7 +134,7 @@ public class EsClientUtil {
      * @param indexName     索引名称
      * @param timeOut       超时时间
      * @param masterTimeOut 主节点超时时间
-     * @param isAsync       是否异步执行
+     * @param isAsync       已废弃（不再额外提交异步请求），异步请使用 EsAsyncClient
      * @return boolean 是否成功
      * @author tjy
      * @date 2020/7/1
@@ -111,21 +155,8 @@ public class EsClientUtil {
         request.mapping(json, XContentType.JSON);
 
         CreateIndexResponse response = client.indices().create(request, RequestOptions.DEFAULT);
-
-        // 异步添加索引 todo 这里异步会抛异常，但是可以成功添加
-        if (isAsync) {
-            client.indices().createAsync(request, RequestOptions.DEFAULT, new ActionListener<CreateIndexResponse>() {
-                @Override
-                public void onResponse(CreateIndexResponse createIndexResponse) {
-                    log.info("createIndexResponse ==> [{}]", createIndexResponse.isAcknowledged());
-                }
-
-                @Override
-                public void onFailure(Exception e) {
-                    log.error(e.getMessage(), e);
-                }
-            });
-        }
+        // 新建的索引为空，清除同名旧索引留下的 id
+        idFilter.clear(indexName);
 
         // 已确认请求。
         boolean acknowledged = response.isAcknowledged();
@@ -139,40 +170,15 @@ public class EsClientUtil {
     public boolean closeIndex(String index, boolean isAsync) throws IOException {
         CloseIndexRequest request = new CloseIndexRequest(index);
         AcknowledgedResponse closeIndexResponse = client.indices().close(request, RequestOptions.DEFAULT);
-        if (isAsync) {
-            client.indices().closeAsync(request, RequestOptions.DEFAULT, new ActionListener<CloseIndexResponse>() {
-                @Override
-                public void onResponse(CloseIndexResponse closeIndexResponse) {
-                    log.info("关闭索引 ==> [{}]", closeIndexResponse.isAcknowledged());
-                }
-
-                @Override
-                public void onFailure(Exception e) {
-                    log.error(e.getMessage(), e);
-                }
-            });
-        }
+        queryCache.invalidate(index);
         return closeIndexResponse.isAcknowledged();
     }
 
     public boolean openIndex(String index, boolean isAsync) throws IOException {
         OpenIndexRequest request = new OpenIndexRequest(index);
         OpenIndexResponse response = client.indices().open(request, RequestOptions.DEFAULT);
-        if(isAsync){
-            client.indices().openAsync(request, RequestOptions.DEFAULT, new ActionListener<OpenIndexResponse>() {
-                @Override
-                public void onResponse(OpenIndexResponse openIndexResponse) {
-                    log.info("开启索引 ==> [{}]", openIndexResponse.isAcknowledged());
-
-                }
-
-                @Override
-                public void onFailure(Exception e) {
-                    log.error(e.getMessage(), e);
-
-                }
-            });
-        }
+        // 关闭期间缓存的结果（包括失败兜底）不再有效
+        queryCache.invalidate(index);
         return response.isAcknowledged();
     }
 
@@ -196,19 +202,6 @@ public class EsClientUtil {
         request.settings(map);
         AcknowledgedResponse updateSettingsResponse =
                 client.indices().putSettings(request, RequestOptions.DEFAULT);
-        if (isAsync) {
-            client.indices().putSettingsAsync(request, RequestOptions.DEFAULT, new ActionListener<AcknowledgedResponse>() {
-                @Override
-                public void onResponse(AcknowledgedResponse acknowledgedResponse) {
-                    log.info("异步修改配置 ==> [{}]", acknowledgedResponse.isAcknowledged());
-                }
-
-                @Override
-                public void onFailure(Exception e) {
-                    log.error(e.getMessage(), e);
-                }
-            });
-        }
         return updateSettingsResponse.isAcknowledged();
     }
 
@@ -218,7 +211,7 @@ public class EsClientUtil {
      * @param indexName     索引名称
      * @param timeOut       超时时间
      * @param masterTimeOut 主节点超时时间
-     * @param isAsync       是否异步执行
+     * @param isAsync       已废弃（不再额外提交异步请求），异步请使用 EsAsyncClient
      * @return boolean 是否成功
      * @author tjy
      * @date 2020/7/1
@@ -233,21 +226,8 @@ public class EsClientUtil {
             // 主节点超时时间
             request.masterNodeTimeout(TimeValue.timeValueMinutes(masterTimeOut == null ? this.masterTimeOut : masterTimeOut));
             AcknowledgedResponse deleteIndexResponse = client.indices().delete(request, RequestOptions.DEFAULT);
-
-            if (isAsync) {
-
-                client.indices().deleteAsync(request, RequestOptions.DEFAULT, new ActionListener<AcknowledgedResponse>() {
-                    @Override
-                    public void onResponse(AcknowledgedResponse acknowledgedResponse) {
-                        log.info("AcknowledgedResponse ==> [{}]", acknowledgedResponse.isAcknowledged());
-                    }
-
-                    @Override
-                    public void onFailure(Exception e) {
-                        log.error(e.getMessage(), e);
-                    }
-                });
-            }
+            queryCache.invalidate(indexName);
+            idFilter.clear(indexName);
 
             return deleteIndexResponse.isAcknowledged();
 
@@ -265,7 +245,7 @@ public class EsClientUtil {
     /**
      * 判断索引是否存在，多个索引逗号分隔
      *
-     * @param isAsync   是否异步
+     * @param isAsync   已废弃（不再额外提交异步请求），异步请使用 EsAsyncClient
      * @param indexName 索引名称（多个逗号分隔）
      * @return boolean  返回一个/多个索引是否存在（都存在返回true否则false）
      * @author tjy
@@ -274,19 +254,6 @@ public class EsClientUtil {
     public boolean existsIndex(boolean isAsync, String... indexName) throws IOException {
         GetIndexRequest request = new GetIndexRequest(indexName);
         boolean exists = client.indices().exists(request, RequestOptions.DEFAULT);
-        if (isAsync) {
-            client.indices().existsAsync(request, RequestOptions.DEFAULT, new ActionListener<Boolean>() {
-                @Override
-                public void onResponse(Boolean exists) {
-                    log.info("索引 [{}]  是否存在 ==> [{}]", indexName, exists);
-                }
-
-                @Override
-                public void onFailure(Exception e) {
-                    log.error(e.getMessage(), e);
-                }
-            });
-        }
         return exists;
     }
 
@@ -309,7 +276,7 @@ public class EsClientUtil {
      * @param indexName 索引名称
      * @param timeOut   超时时间
      * @param sourceObj 要存储的文档资源对象
-     * @param isAsync   是否异步
+     * @param isAsync   已废弃（不再额外提交异步请求），异步请使用 EsAsyncClient
      * @param id        文档id
      * @return org.elasticsearch.rest.RestStatus 操作结果
      * @author tjy
@@ -319,16 +286,19 @@ public class EsClientUtil {
                                   String id) throws IOException {
 
         IndexRequest request = new IndexRequest(indexName);
-        if (!StringUtils.isEmpty(id)) {
-            request.id(id);
-        }
         // request.opType(DocWriteRequest.OpType.INDEX);
         // request.version(2);
         request.timeout(TimeValue.timeValueSeconds(timeOut == null ? this.timeOut : timeOut));
 
         try {
-            request.source(JSON.toJSONString(sourceObj), XContentType.JSON);
-            IndexResponse indexResponse = client.index(request, RequestOptions.DEFAULT);
+            BytesReference source = serializer.serialize(sourceObj);
+            request.id(StringUtils.isEmpty(id) ? idGenerator.idFor(sourceObj, source) : id);
+            request.source(source, serializer.contentType());
+            idFilter.add(request);
+            IndexResponse indexResponse = execute(EsEndpoint.BULK, EsWorkload.INTERACTIVE,
+                    () -> client.index(request, RequestOptions.DEFAULT));
+            queryCache.invalidate(indexName);
+            idFilter.added(indexResponse);
             if (indexResponse.getResult() == DocWriteResponse.Result.CREATED) {
                 log.info("[{}] ==> 添加成功 ", indexResponse);
             } else if (indexResponse.getResult() == DocWriteResponse.Result.UPDATED) {
@@ -342,20 +312,6 @@ public class EsClientUtil {
             }
         }
 
-        if (isAsync) {
-            // 异步
-            client.indexAsync(request, RequestOptions.DEFAULT, new ActionListener<IndexResponse>() {
-                @Override
-                public void onResponse(IndexResponse indexResponse) {
-                    log.info("indexResponse.status() ==> [{}]", indexResponse.status());
-                }
-
-                @Override
-                public void onFailure(Exception e) {
-                    log.error(e.getMessage(), e);
-                }
-            });
-        }
         return null;
     }
 
@@ -364,32 +320,18 @@ public class EsClientUtil {
      *
      * @param indexName 索引id
      * @param id        doc id
-     * @param isAsync   是否异步
+     * @param isAsync   已废弃（不再额外提交异步请求），异步请使用 EsAsyncClient
      * @author tjy
      * @date 2020/7/2
      **/
     public Map<String, Object> getDocumentToMap(String indexName, String id, boolean isAsync) throws IOException {
         try {
             GetRequest request = new GetRequest(indexName, id);
-            GetResponse response = client.get(request, RequestOptions.DEFAULT);
+            GetResponse response = singleFlight.execute(EsSingleFlight.getKey(request),
+                    () -> execute(EsEndpoint.GET, EsWorkload.INTERACTIVE, () -> getBatcher.get(request)));
 
             // 多种形式返回（map）
-            Map<String, Object> sourceAsMap = response.getSourceAsMap();
-            // 异步方法
-            if (isAsync) {
-                client.getAsync(request, RequestOptions.DEFAULT, new ActionListener<GetResponse>() {
-                    @Override
-                    public void onResponse(GetResponse getResponse) {
-                        // 异步方法无返回值，在这处理逻辑
-                        log.info("返回数据 ==> [{}]", getResponse.getSourceAsMap());
-                    }
-
-                    @Override
-                    public void onFailure(Exception e) {
-                        log.error(e.getMessage(), e);
-                    }
-                });
-            }
+            Map<String, Object> sourceAsMap = EsSingleFlight.sourceAsMap(response);
             return sourceAsMap;
 
         } catch (ElasticsearchException e) {
@@ -410,7 +352,7 @@ public class EsClientUtil {
      *
      * @param indexName 索引名称
      * @param id        doc id
-     * @param isAsync   是否异步
+     * @param isAsync   已废弃（不再额外提交异步请求），异步请使用 EsAsyncClient
      * @return java.lang.String
      * @author tjy
      * @date 2020/7/2
@@ -418,24 +360,10 @@ public class EsClientUtil {
     public String getDocumentToString(String indexName, String id, boolean isAsync) throws IOException {
         try {
             GetRequest request = new GetRequest(indexName, id);
-            GetResponse response = client.get(request, RequestOptions.DEFAULT);
+            GetResponse response = singleFlight.execute(EsSingleFlight.getKey(request),
+                    () -> execute(EsEndpoint.GET, EsWorkload.INTERACTIVE, () -> getBatcher.get(request)));
             // 多种形式返回（String）
             String sourceAsMap = response.getSourceAsString();
-            // 异步方法
-            if (isAsync) {
-                client.getAsync(request, RequestOptions.DEFAULT, new ActionListener<GetResponse>() {
-                    @Override
-                    public void onResponse(GetResponse getResponse) {
-                        // 异步方法无返回值，在这处理逻辑
-                        log.info("返回数据 ==> [{}]", getResponse.getSourceAsMap());
-                    }
-
-                    @Override
-                    public void onFailure(Exception e) {
-                        log.error(e.getMessage(), e);
-                    }
-                });
-            }
             return sourceAsMap;
 
         } catch (ElasticsearchException e) {
@@ -456,27 +384,15 @@ public class EsClientUtil {
      *
      * @param indexName 索引名称
      * @param id        文档id
-     * @param isAsync   是否异步
+     * @param isAsync   已废弃（不再额外提交异步请求），异步请使用 EsAsyncClient
      * @return boolean
      * @author tjy
      * @date 2020/7/2
      **/
     public boolean existsDocument(String indexName, String id, boolean isAsync) throws IOException {
         GetRequest request = new GetRequest(indexName, id);
-        boolean exists = client.exists(request, RequestOptions.DEFAULT);
-        if (isAsync) {
-            client.existsAsync(request, RequestOptions.DEFAULT, new ActionListener<Boolean>() {
-                @Override
-                public void onResponse(Boolean aBoolean) {
-                    log.info("对应文档是否存在 ==> [{}]", aBoolean);
-                }
-
-                @Override
-                public void onFailure(Exception e) {
-                    log.error(e.getMessage(), e);
-                }
-            });
-        }
+        boolean exists = idFilter.exists(indexName, id, () -> singleFlight.execute(EsSingleFlight.existsKey(request),
+                () -> execute(EsEndpoint.GET, EsWorkload.INTERACTIVE, () -> client.exists(request, RequestOptions.DEFAULT))));
         return exists;
     }
 
@@ -486,7 +402,7 @@ public class EsClientUtil {
      * @param indexName 索引名称
      * @param id        doc id
      * @param timeOut   超时时间
-     * @param isAsync   是否异步
+     * @param isAsync   已废弃（不再额外提交异步请求），异步请使用 EsAsyncClient
      * @return java.lang.String
      * @author tjy
      * @date 2020/7/2
@@ -496,25 +412,14 @@ public class EsClientUtil {
         try {
             DeleteRequest request = new DeleteRequest(indexName, id);
             request.timeout(TimeValue.timeValueMinutes(timeOut == null ? this.timeOut : timeOut));
-            DeleteResponse response = client.delete(request, RequestOptions.DEFAULT);
+            DeleteResponse response = execute(EsEndpoint.BULK, EsWorkload.INTERACTIVE,
+                    () -> client.delete(request, RequestOptions.DEFAULT));
+            queryCache.invalidate(indexName);
             // 找不到该文件
             if (response.getResult() == DocWriteResponse.Result.NOT_FOUND) {
                 log.info("=== * 找不到该文档 * ===");
                 return response.getResult().toString();
             }
-            if (isAsync) {
-                client.deleteAsync(request, RequestOptions.DEFAULT, new ActionListener<DeleteResponse>() {
-                    @Override
-                    public void onResponse(DeleteResponse deleteResponse) {
-                        log.info("删除doc [{}] ==> [{}]", deleteResponse.getIndex(), deleteResponse.status());
-                    }
-
-                    @Override
-                    public void onFailure(Exception e) {
-                        log.error(e.getMessage(), e);
-                    }
-                });
-            }
             return response.status().toString();
         } catch (ElasticsearchException e) {
             // 版本冲突
@@ -531,7 +436,7 @@ public class EsClientUtil {
      * @param id 索引id
      * @param obj 要改变的对象
      * @param timeOut 超时时间
-     * @param isAsync 是否异步
+     * @param isAsync 已废弃（不再额外提交异步请求），异步请使用 EsAsyncClient
      * @author tjy
      * @date 2020/7/10
      * @return void
@@ -541,8 +446,11 @@ public class EsClientUtil {
         try {
             UpdateRequest request = new UpdateRequest(indexName, id);
             request.timeout(TimeValue.timeValueSeconds(timeOut == null ? this.timeOut : timeOut));
-            request.doc(JSON.toJSONString(obj), XContentType.JSON);
-            UpdateResponse response = client.update(request, RequestOptions.DEFAULT);
+            request.doc(BytesReference.toBytes(serializer.serialize(obj)), serializer.contentType());
+            idFilter.add(request);
+            UpdateResponse response = execute(EsEndpoint.BULK, EsWorkload.INTERACTIVE,
+                    () -> client.update(request, RequestOptions.DEFAULT));
+            queryCache.invalidate(indexName);
 
             // 处理第一次创建文档的情况(向上插入)
             if (response.getResult() == DocWriteResponse.Result.CREATED) {
@@ -558,19 +466,6 @@ public class EsClientUtil {
                 log.info("处理文档未受更新影响的情况(未对文档执行任何操作(Noop)) ==> [{}]", response.status());
             }
 
-            if (isAsync) {
-                client.updateAsync(request, RequestOptions.DEFAULT, new ActionListener<UpdateResponse>() {
-                    @Override
-                    public void onResponse(UpdateResponse updateResponse) {
-                        log.info("修改文档 ==> [{}]", updateResponse.status());
-                    }
-
-                    @Override
-                    public void onFailure(Exception e) {
-                        log.error(e.getMessage(), e);
-                    }
-                });
-            }
 
             log.info("[{}]", response.status());
         } catch (ElasticsearchException e) {
@@ -600,88 +495,95 @@ public class EsClientUtil {
      * - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - - */
 
 
+    /**
+     * 批量添加文档（一次性提交，大批量导入请使用 EsBulkIndexer）
+     *
+     * @param indexName 索引名称
+     * @param list      要添加的内容集合
+     * @param timeOut   超时时间
+     * @param isAsync   已废弃（不再额外提交异步请求），异步请使用 EsAsyncClient
+     * @return boolean
+     * @author tjy
+     * @date 2020/7/3
+     **/
     public boolean bulkAddDocument(String indexName, List<?> list, Long timeOut, boolean isAsync) throws IOException {
 
         BulkRequest request = new BulkRequest();
         request.timeout(TimeValue.timeValueMinutes(timeOut == null ? this.timeOut : timeOut));
-        for (int i = 0; i < list.size(); i++) {
-            request.add(new IndexRequest(indexName).id("" + (i + 1))
-                    .source(JSON.toJSONString(list.get(i)), XContentType.JSON));
+        for (Object obj : list) {
+            // 实体有 @EsId 字段时用它作为 id，否则按 id-generation 策略生成
+            BytesReference source = serializer.serialize(obj);
+            request.add(new IndexRequest(indexName).id(idGenerator.idFor(obj, source))
+                    .source(source, serializer.contentType()));
         }
 
-        BulkResponse bulkResponse = client.bulk(request, RequestOptions.DEFAULT);
-
-        if (isAsync) {
-            client.bulkAsync(request, RequestOptions.DEFAULT, new ActionListener<BulkResponse>() {
-                @Override
-                public void onResponse(BulkResponse bulkItemResponses) {
-                    log.info("bulkItemResponses ==> [{}]", bulkItemResponses.status());
-                }
+        idFilter.add(request);
+        BulkResponse bulkResponse = execute(EsEndpoint.BULK, EsWorkload.BATCH,
+                () -> bulkClient.bulk(request, RequestOptions.DEFAULT));
+        queryCache.invalidate(indexName);
+        // 没有 @EsId 字段时 id 由 es 生成，写入前记录不到
+        idFilter.added(bulkResponse);
 
-                @Override
-                public void onFailure(Exception e) {
-                    log.error(e.getMessage(), e);
-                }
-            });
-        }
         // 是否失败返回false 代表成功
         return bulkResponse.hasFailures();
     }
 
 
-    //TODO 批量修改;
+    /**
+     * 批量修改（文档 id 取实体中 @EsId 标记的字段，需要 upsert / 部分字段修改请使用 config 包下 EsClientUtil 的 bulkUpdateDocument）
+     *
+     * @param indexName 索引名称
+     * @param list      要修改的内容集合
+     * @param timeOut   超时时间
+     * @param isAsync   已废弃（不再额外提交异步请求），异步请使用 EsAsyncClient
+     * @return boolean
+     * @author tjy
+     * @date 2020/7/3
+     **/
     public boolean bulkUpdateDocument(String indexName, List<?> list, Long timeOut, boolean isAsync) throws IOException {
 
         BulkRequest request = new BulkRequest();
         request.timeout(TimeValue.timeValueMinutes(timeOut == null ? this.timeOut : timeOut));
-        for (int i = 0; i < list.size(); i++) {
-            request.add(new UpdateRequest(indexName, ("" + (i + 1))).doc(JSON.toJSONString(list.get(i)), XContentType.JSON));
+        for (Object obj : list) {
+            request.add(new UpdateRequest(indexName, EsIdExtractor.id(obj))
+                    .doc(BytesReference.toBytes(serializer.serialize(obj)), serializer.contentType()));
         }
 
-        BulkResponse bulkResponse = client.bulk(request, RequestOptions.DEFAULT);
+        idFilter.add(request);
+        BulkResponse bulkResponse = execute(EsEndpoint.BULK, EsWorkload.BATCH,
+                () -> bulkClient.bulk(request, RequestOptions.DEFAULT));
+        queryCache.invalidate(indexName);
 
-        if (isAsync) {
-            client.bulkAsync(request, RequestOptions.DEFAULT, new ActionListener<BulkResponse>() {
-                @Override
-                public void onResponse(BulkResponse bulkItemResponses) {
-                    log.info("bulkItemResponses ==> [{}]", bulkItemResponses.status());
-                }
-
-                @Override
-                public void onFailure(Exception e) {
-                    log.error(e.getMessage(), e);
-                }
-            });
-        }
         // 是否失败返回false 代表成功
         return bulkResponse.hasFailures();
 
     }
 
-    //TODO 批量删除;
+    /**
+     * 批量删除
+     *
+     * @param indexName 索引名称
+     * @param list      id 集合（或带 @EsId 字段的实体集合）
+     * @param timeOut   超时时间
+     * @param isAsync   已废弃（不再额外提交异步请求），异步请使用 EsAsyncClient
+     * @return boolean
+     * @author tjy
+     * @date 2020/7/3
+     **/
     public boolean bulkDelDocument(String indexName, List<?> list, Long timeOut, boolean isAsync) throws IOException {
         BulkRequest request = new BulkRequest();
         request.timeout(TimeValue.timeValueMinutes(timeOut == null ? this.timeOut : timeOut));
 
         for (int i = 0; i < list.size(); i++) {
-            request.add(new DeleteRequest(indexName, ("" + (i + 1))));
+            Object obj = list.get(i);
+            request.add(new DeleteRequest(indexName, obj instanceof String ? (String) obj : EsIdExtractor.id(obj)));
         }
 
-        BulkResponse bulkResponse = client.bulk(request, RequestOptions.DEFAULT);
-
-        if (isAsync) {
-            client.bulkAsync(request, RequestOptions.DEFAULT, new ActionListener<BulkResponse>() {
-                @Override
-                public void onResponse(BulkResponse bulkItemResponses) {
-                    log.info("bulkItemResponses ==> [{}]", bulkItemResponses.status());
-                }
+        idFilter.add(request);
+        BulkResponse bulkResponse = execute(EsEndpoint.BULK, EsWorkload.BATCH,
+                () -> bulkClient.bulk(request, RequestOptions.DEFAULT));
+        queryCache.invalidate(indexName);
 
-                @Override
-                public void onFailure(Exception e) {
-                    log.error(e.getMessage(), e);
-                }
-            });
-        }
         // 是否失败返回false 代表成功
         return bulkResponse.hasFailures();
     }
@@ -884,4 +786,11 @@ public class EsClientUtil {
         }
 
     }
+
+    /**
+     * 熔断保护 + 并发限制下执行 es 调用
+     */
+    private <T> T execute(EsEndpoint endpoint, EsWorkload workload, EsAdmissionControl.Call<T> call) throws IOException {
+        return circuitBreaker.call(endpoint, () -> admissionControl.call(workload, call));
+    }
 }
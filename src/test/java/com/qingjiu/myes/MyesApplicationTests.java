@@ -1,8 +1,15 @@
 package com.qingjiu.myes;
 
 import com.alibaba.fastjson.JSON;
+import com.qingjiu.myes.config.elasticsearch.EsBulkLoadSession;
+import com.qingjiu.myes.config.elasticsearch.EsDocumentSerializer;
+import com.qingjiu.myes.config.elasticsearch.EsHttpCompression;
+import com.qingjiu.myes.config.elasticsearch.EsIdGenerator;
 import com.qingjiu.myes.entity.User;
 import com.qingjiu.myes.entity.es.ElasticSearchEntity;
+import com.qingjiu.myes.entity.es.EsIdStrategy;
+import com.qingjiu.myes.entity.es.EsReturnData;
+import com.qingjiu.myes.entity.es.EsSearchOption;
 import com.qingjiu.myes.service.EsClientUtil;
 import com.qingjiu.myes.util.Base64Utils;
 import com.qingjiu.myes.util.DateUtil;
@@ -10,6 +17,7 @@ import org.apache.commons.io.FileUtils;
 import org.elasticsearch.ElasticsearchException;
 import org.elasticsearch.action.DocWriteResponse;
 import org.elasticsearch.action.admin.indices.delete.DeleteIndexRequest;
+import org.elasticsearch.action.bulk.BulkRequest;
 import org.elasticsearch.action.delete.DeleteRequest;
 import org.elasticsearch.action.delete.DeleteResponse;
 import org.elasticsearch.action.get.GetRequest;
@@ -25,8 +33,10 @@ import org.elasticsearch.client.RestHighLevelClient;
 import org.elasticsearch.client.indices.CreateIndexRequest;
 import org.elasticsearch.client.indices.CreateIndexResponse;
 import org.elasticsearch.client.indices.GetIndexRequest;
+import org.elasticsearch.common.bytes.BytesReference;
 import org.elasticsearch.common.unit.TimeValue;
 import org.elasticsearch.common.xcontent.XContentType;
+import org.elasticsearch.index.query.QueryBuilders;
 import org.elasticsearch.rest.RestStatus;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -388,6 +398,142 @@ public class MyesApplicationTests {
         System.out.println(name32 + "开启索引");
     }
 
+    @Autowired
+    private com.qingjiu.myes.config.elasticsearch.EsClientUtil esClientUtils;
+
+    @Test
+    public void bulkLoadSession() throws IOException {
+        List<User> list = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            User user = new User();
+            user.setUserNo("load" + i);
+            user.setUserName("批量导入" + i);
+            user.setSex(1);
+            user.setDate(DateUtil.timestampToStr(DateUtil.nowTimestamp(), null));
+            list.add(user);
+        }
+        // 导入期间关闭刷新和副本，结束后自动恢复
+        try (EsBulkLoadSession session = esClientUtils.beginBulkLoad("name3")) {
+            System.out.println("原配置" + session.getOriginalSettings());
+            System.out.println(esClientUtils.bulkAddDocumentWithRetry("name3", list).isAllSuccess());
+        }
+    }
+
+    @Test
+    public void cursorQuery() throws IOException {
+        // 按时间倒序游标翻页，直到没有更多数据
+        String cursor = null;
+        do {
+            EsReturnData page = esClientUtils.search(QueryBuilders.matchAllQuery(),
+                    EsSearchOption.cursor(2, "date,desc", cursor), "name3");
+            page.getEsDataList().forEach(data -> System.out.println(data.getIndexId() + " " + data.getSourceAsString()));
+            cursor = page.getCursor();
+        } while (cursor != null);
+    }
+
+    @Autowired
+    private EsHttpCompression esHttpCompression;
+
+    /**
+     * gzip 压缩对比：同样的 bulk 写入 + 查询，分别统计不压缩 / 压缩时的传输字节数和耗时
+     */
+    @Test
+    public void compressionBenchmark() throws IOException {
+        List<User> list = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            User user = new User();
+            user.setUserNo("gzip" + i);
+            user.setUserName("压缩测试用户" + i + " 这是一段用来占位的比较长的描述文字，模拟文档里的大字段");
+            user.setSex(i % 2);
+            user.setDate(DateUtil.timestampToStr(DateUtil.nowTimestamp(), null));
+            list.add(user);
+        }
+        for (boolean enabled : new boolean[]{false, true, false, true}) {
+            esHttpCompression.setEnabled(enabled);
+            esHttpCompression.resetStats();
+            long begin = System.nanoTime();
+            esClientUtils.bulkAddDocument("name3", list);
+            long bulkNanos = System.nanoTime() - begin;
+            begin = System.nanoTime();
+            for (int i = 0; i < 20; i++) {
+                esClientUtils.search(QueryBuilders.matchAllQuery(), EsSearchOption.page(0, 500), "name3");
+            }
+            long searchNanos = System.nanoTime() - begin;
+            System.out.println("gzip=" + enabled
+                    + " bulk " + bulkNanos / 1000000 + "ms, search x20 " + searchNanos / 1000000 + "ms, "
+                    + esHttpCompression);
+        }
+    }
+
+    @Autowired
+    private EsDocumentSerializer serializer;
+
+    /**
+     * id 生成策略对比：同样的文档分别按 AUTO / FLAKE / CONTENT_HASH 生成 id 写入新索引，统计写入速度
+     */
+    @Test
+    public void idStrategyBenchmark() throws IOException {
+        int total = 20000;
+        int batch = 1000;
+        int rounds = 5;
+        List<EsIdStrategy> strategies = new ArrayList<>(Arrays.asList(EsIdStrategy.values()));
+        // 预热一轮（JIT、连接池、索引创建），结果不计入
+        for (EsIdStrategy strategy : strategies) {
+            benchmarkIdStrategy(strategy, total, batch);
+        }
+        Map<EsIdStrategy, long[]> sums = new EnumMap<>(EsIdStrategy.class);
+        for (int round = 0; round < rounds; round++) {
+            // 每轮打乱顺序，避免后执行的策略总是受益于前面的 merge / 缓存
+            Collections.shuffle(strategies);
+            for (EsIdStrategy strategy : strategies) {
+                long[] cost = benchmarkIdStrategy(strategy, total, batch);
+                long[] sum = sums.computeIfAbsent(strategy, k -> new long[2]);
+                sum[0] += cost[0];
+                sum[1] += cost[1];
+            }
+        }
+        for (Map.Entry<EsIdStrategy, long[]> entry : sums.entrySet()) {
+            long nanos = entry.getValue()[0] / rounds;
+            long generateNanos = entry.getValue()[1] / rounds;
+            System.out.println(entry.getKey() + " 写入 " + total + " 条（" + rounds + " 轮平均） " + nanos / 1000000 + "ms, "
+                    + total * 1000000000L / nanos + " docs/s, 生成 id 耗时 " + generateNanos / 1000000 + "ms");
+        }
+    }
+
+    /**
+     * 用一种 id 策略写入 total 条文档到新索引
+     *
+     * @return long[] {总耗时, 生成 id 耗时}（纳秒）
+     */
+    private long[] benchmarkIdStrategy(EsIdStrategy strategy, int total, int batch) throws IOException {
+        EsIdGenerator generator = EsIdGenerator.of(strategy, 1);
+        String index = "id_benchmark_" + strategy.name().toLowerCase();
+        esClientUtils.deleteIndex(index);
+        esClientUtils.createIndex(index);
+        long generateNanos = 0;
+        long begin = System.nanoTime();
+        for (int from = 0; from < total; from += batch) {
+            BulkRequest request = new BulkRequest();
+            for (int i = from; i < from + batch; i++) {
+                User user = new User();
+                user.setUserName("id策略测试" + i);
+                user.setUserId(i);
+                user.setAge(i % 100);
+                user.setSex(i % 2);
+                user.setDate(DateUtil.timestampToStr(DateUtil.nowTimestamp(), null));
+                BytesReference source = serializer.serialize(user);
+                long start = System.nanoTime();
+                String id = generator.generate(source);
+                generateNanos += System.nanoTime() - start;
+                request.add(new IndexRequest(index).id(id).source(source, serializer.contentType()));
+            }
+            esClientUtils.bulkExecute(request);
+        }
+        long nanos = System.nanoTime() - begin;
+        esClientUtils.deleteIndex(index);
+        return new long[]{nanos, generateNanos};
+    }
+
     @Test
     public void  getTermsQuery() throws IOException {
         esClientUtil.termsQuery("name3","userName","大罗金身1","最强法海");
@@ -0,0 +1,188 @@
+package com.qingjiu.myes.config.elasticsearch;
+
+import com.qingjiu.myes.entity.es.ElasticSearchEntity;
+import org.elasticsearch.ElasticsearchStatusException;
+import org.elasticsearch.rest.RestStatus;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.net.SocketTimeoutException;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * 熔断状态切换测试（不需要 es）
+ *
+ * @author tjy
+ * @date 2026/10/18
+ **/
+public class EsCircuitBreakerTest {
+
+    private static final long OPEN_MILLIS = 100;
+
+    private static EsCircuitBreaker breaker(boolean enabled) {
+        ElasticSearchEntity entity = new ElasticSearchEntity();
+        ElasticSearchEntity.Breaker conf = entity.getBreaker();
+        conf.setEnabled(enabled);
+        conf.setWindowSize(4);
+        conf.setMinimumCalls(4);
+        conf.setFailureRatePercent(50.0);
+        conf.setOpenMillis(OPEN_MILLIS);
+        conf.setHalfOpenProbes(2);
+        return new EsCircuitBreaker(entity);
+    }
+
+    private static void succeed(EsCircuitBreaker breaker) throws IOException {
+        assertEquals("ok", breaker.call(EsEndpoint.SEARCH, () -> "ok"));
+    }
+
+    private static void failWith(EsCircuitBreaker breaker, Exception error) {
+        try {
+            breaker.call(EsEndpoint.SEARCH, () -> {
+                if (error instanceof IOException) {
+                    throw (IOException) error;
+                }
+                throw (RuntimeException) error;
+            });
+            fail("应抛出异常");
+        } catch (Exception e) {
+            assertEquals(error, e);
+        }
+    }
+
+    private static void assertRejected(EsCircuitBreaker breaker) throws IOException {
+        try {
+            succeed(breaker);
+            fail("熔断时不应发送请求");
+        } catch (EsCircuitOpenException expected) {
+            assertEquals(EsEndpoint.SEARCH, expected.getEndpoint());
+        }
+    }
+
+    /**
+     * 打开后等到半开
+     */
+    private static void open(EsCircuitBreaker breaker) throws Exception {
+        for (int i = 0; i < 4; i++) {
+            failWith(breaker, new SocketTimeoutException("timeout"));
+        }
+        assertEquals(EsCircuitBreaker.State.OPEN, breaker.getState(EsEndpoint.SEARCH));
+        Thread.sleep(OPEN_MILLIS + 50);
+    }
+
+    @Test
+    public void openOnFailureRate() throws IOException {
+        EsCircuitBreaker breaker = breaker(true);
+        succeed(breaker);
+        succeed(breaker);
+        failWith(breaker, new SocketTimeoutException("timeout"));
+        // 未达到 minimumCalls，不计算失败率
+        assertEquals(EsCircuitBreaker.State.CLOSED, breaker.getState(EsEndpoint.SEARCH));
+        // 404 说明集群能正常响应，不算失败
+        failWith(breaker, new ElasticsearchStatusException("not found", RestStatus.NOT_FOUND));
+        assertEquals(EsCircuitBreaker.State.CLOSED, breaker.getState(EsEndpoint.SEARCH));
+        // 窗口滑动：最近 4 次为 成功、失败、成功、失败
+        failWith(breaker, new ElasticsearchStatusException("rejected", RestStatus.TOO_MANY_REQUESTS));
+        assertEquals(EsCircuitBreaker.State.OPEN, breaker.getState(EsEndpoint.SEARCH));
+        assertEquals(1, breaker.getOpened(EsEndpoint.SEARCH));
+
+        assertRejected(breaker);
+        assertEquals(1, breaker.getRejected(EsEndpoint.SEARCH));
+        // 其它请求类型不受影响
+        assertEquals(EsCircuitBreaker.State.CLOSED, breaker.getState(EsEndpoint.GET));
+        assertEquals("ok", breaker.call(EsEndpoint.GET, () -> "ok"));
+    }
+
+    @Test
+    public void halfOpenProbesClose() throws Exception {
+        EsCircuitBreaker breaker = breaker(true);
+        open(breaker);
+        EsCircuitBreaker.Attempt first = breaker.acquire(EsEndpoint.SEARCH);
+        assertEquals(EsCircuitBreaker.State.HALF_OPEN, breaker.getState(EsEndpoint.SEARCH));
+        EsCircuitBreaker.Attempt second = breaker.acquire(EsEndpoint.SEARCH);
+        // 探测名额已用完
+        assertRejected(breaker);
+        first.complete("ok", null);
+        // 重复调用只记录一次
+        first.complete("ok", null);
+        assertEquals(EsCircuitBreaker.State.HALF_OPEN, breaker.getState(EsEndpoint.SEARCH));
+        second.complete("ok", null);
+        assertEquals(EsCircuitBreaker.State.CLOSED, breaker.getState(EsEndpoint.SEARCH));
+
+        // 关闭后失败窗口清空，重新统计
+        failWith(breaker, new SocketTimeoutException("timeout"));
+        succeed(breaker);
+        assertEquals(EsCircuitBreaker.State.CLOSED, breaker.getState(EsEndpoint.SEARCH));
+    }
+
+    @Test
+    public void halfOpenProbeFailureReopens() throws Exception {
+        EsCircuitBreaker breaker = breaker(true);
+        open(breaker);
+        succeed(breaker);
+        failWith(breaker, new SocketTimeoutException("timeout"));
+        assertEquals(EsCircuitBreaker.State.OPEN, breaker.getState(EsEndpoint.SEARCH));
+        assertEquals(2, breaker.getOpened(EsEndpoint.SEARCH));
+        assertRejected(breaker);
+    }
+
+    @Test
+    public void releaseProbeOnErrorAndLocalRejection() throws Exception {
+        EsCircuitBreaker breaker = breaker(true);
+        open(breaker);
+        try {
+            breaker.call(EsEndpoint.SEARCH, () -> {
+                throw new StackOverflowError();
+            });
+            fail("应抛出 Error");
+        } catch (StackOverflowError expected) {
+            // Error 不统计，归还探测名额
+        }
+        EsCircuitBreaker.Attempt attempt = breaker.acquire(EsEndpoint.SEARCH);
+        attempt.complete(null, new RejectedExecutionException("本地并发限制"));
+        assertEquals(EsCircuitBreaker.State.HALF_OPEN, breaker.getState(EsEndpoint.SEARCH));
+
+        // 名额都已归还，两个探测都能发出
+        succeed(breaker);
+        succeed(breaker);
+        assertEquals(EsCircuitBreaker.State.CLOSED, breaker.getState(EsEndpoint.SEARCH));
+    }
+
+    @Test
+    public void reset() throws Exception {
+        EsCircuitBreaker breaker = breaker(true);
+        for (int i = 0; i < 4; i++) {
+            failWith(breaker, new SocketTimeoutException("timeout"));
+        }
+        assertRejected(breaker);
+        breaker.reset(EsEndpoint.SEARCH);
+        assertEquals(EsCircuitBreaker.State.CLOSED, breaker.getState(EsEndpoint.SEARCH));
+        succeed(breaker);
+    }
+
+    @Test
+    public void disabled() throws IOException {
+        EsCircuitBreaker breaker = breaker(false);
+        for (int i = 0; i < 8; i++) {
+            failWith(breaker, new SocketTimeoutException("timeout"));
+        }
+        assertEquals(EsCircuitBreaker.State.CLOSED, breaker.getState(EsEndpoint.SEARCH));
+        assertEquals(0, breaker.getOpened(EsEndpoint.SEARCH));
+        succeed(breaker);
+    }
+
+    @Test
+    public void isFailure() {
+        assertTrue(EsCircuitBreaker.isFailure(new SocketTimeoutException("timeout")));
+        assertTrue(EsCircuitBreaker.isFailure(new RuntimeException(new IOException("connection reset"))));
+        assertTrue(EsCircuitBreaker.isFailure(
+                new ElasticsearchStatusException("unavailable", RestStatus.SERVICE_UNAVAILABLE)));
+        assertFalse(EsCircuitBreaker.isFailure(new ElasticsearchStatusException("bad", RestStatus.BAD_REQUEST)));
+        assertFalse(EsCircuitBreaker.isFailure(new EsCircuitOpenException(EsEndpoint.SEARCH, 0)));
+        assertFalse(EsCircuitBreaker.isFailure(new IllegalStateException()));
+    }
+}
@@ -0,0 +1,179 @@
+package com.qingjiu.myes.config.elasticsearch;
+
+import com.qingjiu.myes.entity.es.ElasticSearchEntity;
+import org.elasticsearch.action.delete.DeleteRequest;
+import org.elasticsearch.action.index.IndexRequest;
+import org.elasticsearch.common.xcontent.XContentType;
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 文档 id 布隆过滤器测试（不需要 es）
+ *
+ * @author tjy
+ * @date 2026/10/18
+ **/
+public class EsIdFilterTest {
+
+    private static final String INDEX = "id_filter_test";
+
+    private final ScheduledThreadPoolExecutor scheduler = new ScheduledThreadPoolExecutor(1);
+
+    @After
+    public void shutdown() {
+        scheduler.shutdownNow();
+    }
+
+    private EsIdFilter filter() {
+        ElasticSearchEntity entity = new ElasticSearchEntity();
+        ElasticSearchEntity.IdFilter conf = entity.getIdFilter();
+        conf.setEnabled(true);
+        conf.setIndices(Collections.singletonList(INDEX));
+        conf.setMinCapacity(100L);
+        return new EsIdFilter(entity, scheduler);
+    }
+
+    /**
+     * 按过滤器判断是否存在，remote 返回 actual，并记录请求 es 的次数
+     */
+    private static boolean exists(EsIdFilter filter, String id, boolean actual, AtomicInteger remoteCalls)
+            throws IOException {
+        return filter.exists(INDEX, id, () -> {
+            remoteCalls.incrementAndGet();
+            return actual;
+        });
+    }
+
+    @Test
+    public void bloomFilterMembership() {
+        EsIdFilter.BloomFilter filter = new EsIdFilter.BloomFilter(10000, 0.01);
+        for (int i = 0; i < 10000; i++) {
+            filter.put("id-" + i);
+        }
+        // 不会漏判
+        for (int i = 0; i < 10000; i++) {
+            assertTrue(filter.mightContain("id-" + i));
+        }
+        // 已存在的 id 不会有新置位
+        assertFalse(filter.put("id-0"));
+        assertFalse(filter.isFull());
+
+        int falsePositives = 0;
+        int probes = 100000;
+        for (int i = 0; i < probes; i++) {
+            if (filter.mightContain("other-" + i)) {
+                falsePositives++;
+            }
+        }
+        double rate = (double) falsePositives / probes;
+        assertTrue("误判率 " + rate, rate < 0.02);
+    }
+
+    @Test
+    public void bloomFilterFull() {
+        EsIdFilter.BloomFilter filter = new EsIdFilter.BloomFilter(100, 0.01);
+        for (int i = 0; i < 100; i++) {
+            filter.put("id-" + i);
+        }
+        assertFalse(filter.isFull());
+        for (int i = 100; i < 200; i++) {
+            filter.put("id-" + i);
+        }
+        assertTrue(filter.isFull());
+    }
+
+    @Test
+    public void capacity() {
+        ElasticSearchEntity.IdFilter conf = new ElasticSearchEntity.IdFilter();
+        conf.setMinCapacity(1000L);
+        conf.setCapacityFactor(2.0);
+        assertEquals(1000, EsIdFilter.capacity(10, conf));
+        assertEquals(20000, EsIdFilter.capacity(10000, conf));
+    }
+
+    @Test
+    public void notReadyAsksEs() throws IOException {
+        EsIdFilter filter = filter();
+        AtomicInteger remoteCalls = new AtomicInteger();
+        assertFalse(filter.isReady(INDEX));
+        filter.add(INDEX, "1");
+        assertTrue(exists(filter, "1", true, remoteCalls));
+        assertFalse(exists(filter, "2", false, remoteCalls));
+        assertEquals(2, remoteCalls.get());
+        assertEquals(0, filter.getChecks());
+    }
+
+    @Test
+    public void skipUnknownIds() throws IOException {
+        EsIdFilter filter = filter();
+        filter.clear(INDEX);
+        assertTrue(filter.isReady(INDEX));
+        filter.add(new IndexRequest(INDEX).id("1").source("{}", XContentType.JSON));
+        // 删除不记录 id；其他索引不记录
+        filter.add(new DeleteRequest(INDEX, "2"));
+        filter.add("other_index", "3");
+
+        AtomicInteger remoteCalls = new AtomicInteger();
+        assertTrue(exists(filter, "1", true, remoteCalls));
+        assertFalse(exists(filter, "2", true, remoteCalls));
+        assertFalse(exists(filter, "3", true, remoteCalls));
+        assertEquals(1, remoteCalls.get());
+        assertEquals(3, filter.getChecks());
+        assertEquals(2, filter.getSkipped());
+
+        // 判定可能存在但 es 返回不存在（如已删除）记为误判
+        assertFalse(exists(filter, "1", false, remoteCalls));
+        assertEquals(1, filter.getFalsePositives());
+
+        // 清空后之前的 id 都被判定不存在
+        filter.clear(INDEX);
+        assertFalse(exists(filter, "1", true, remoteCalls));
+        assertEquals(2, remoteCalls.get());
+    }
+
+    @Test
+    public void fullFilterRequestsRebuildOnce() throws Exception {
+        EsIdFilter filter = filter();
+        filter.clear(INDEX);
+        // 占住重建线程，保证重建请求在队列中排队
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch blocked = new CountDownLatch(1);
+        scheduler.execute(() -> {
+            started.countDown();
+            try {
+                blocked.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        assertTrue(started.await(10, TimeUnit.SECONDS));
+        for (int i = 0; i < 300; i++) {
+            filter.add(INDEX, "id-" + i);
+        }
+        filter.rebuild(INDEX);
+        // 超过容量后只排队一次重建
+        assertEquals(1, scheduler.getQueue().size());
+
+        // 重建失败（没有 es）时保留旧过滤器
+        blocked.countDown();
+        scheduler.shutdown();
+        assertTrue(scheduler.awaitTermination(10, TimeUnit.SECONDS));
+        assertTrue(filter.isReady(INDEX));
+        AtomicInteger remoteCalls = new AtomicInteger();
+        for (int i = 0; i < 300; i++) {
+            assertTrue(exists(filter, "id-" + i, true, remoteCalls));
+        }
+        assertEquals(300, remoteCalls.get());
+    }
+}
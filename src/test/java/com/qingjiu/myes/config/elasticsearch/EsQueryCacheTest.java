@@ -0,0 +1,188 @@
+package com.qingjiu.myes.config.elasticsearch;
+
+import com.qingjiu.myes.entity.es.ElasticSearchEntity;
+import com.qingjiu.myes.entity.es.EsData;
+import com.qingjiu.myes.entity.es.EsReturnData;
+import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.index.query.QueryBuilders;
+import org.elasticsearch.search.builder.SearchSourceBuilder;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 本地查询缓存测试（不需要 es）
+ *
+ * @author tjy
+ * @date 2026/10/18
+ **/
+public class EsQueryCacheTest {
+
+    private static EsQueryCache cache(int maxEntries, long ttlSeconds, long writeQuietMillis) {
+        ElasticSearchEntity entity = new ElasticSearchEntity();
+        ElasticSearchEntity.Cache conf = entity.getCache();
+        conf.setEnabled(true);
+        conf.setMaxEntries(maxEntries);
+        conf.setMaxBytesMb(1L);
+        conf.setTtlSeconds(ttlSeconds);
+        conf.setWriteQuietMillis(writeQuietMillis);
+        return new EsQueryCache(entity);
+    }
+
+    private static EsQueryCache cache() {
+        return cache(100, 60, 0);
+    }
+
+    private static EsReturnData data(String... sources) {
+        EsReturnData data = new EsReturnData();
+        data.setNum((long) sources.length);
+        for (int i = 0; i < sources.length; i++) {
+            data.getEsDataList().add(new EsData(new BytesArray(sources[i]), "cache_test", 1.0f, String.valueOf(i)));
+        }
+        return data;
+    }
+
+    /**
+     * _source 约 kb KB 的结果
+     */
+    private static EsReturnData bigData(int kb) {
+        char[] filler = new char[kb * 1024];
+        Arrays.fill(filler, 'x');
+        return data("{\"name\":\"" + new String(filler) + "\"}");
+    }
+
+    @Test
+    public void key() {
+        EsQueryCache cache = cache();
+        SearchSourceBuilder source = new SearchSourceBuilder().query(QueryBuilders.termQuery("name", "a"));
+        // 索引名排序去重、忽略大小写
+        assertEquals(cache.key(source, "b", "a"), cache.key(source, "A", "b", "a"));
+        assertEquals(cache.key(source), cache.key(source, "*"));
+        assertNotEquals(cache.key(source, "a"), cache.key(source, "b"));
+        assertNotEquals(cache.key(source, "a"),
+                cache.key(new SearchSourceBuilder().query(QueryBuilders.termQuery("name", "b")), "a"));
+    }
+
+    @Test
+    public void lruByEntries() {
+        EsQueryCache cache = cache(2, 60, 0);
+        cache.put("k1", data("{\"v\":1}"), "a");
+        cache.put("k2", data("{\"v\":2}"), "a");
+        // 访问 k1 后 k2 成为最久未使用
+        assertNotNull(cache.get("k1"));
+        cache.put("k3", data("{\"v\":3}"), "a");
+        assertEquals(2, cache.size());
+        assertEquals(1, cache.getEvictions());
+        assertNull(cache.get("k2"));
+        assertNotNull(cache.get("k1"));
+        assertNotNull(cache.get("k3"));
+        assertEquals(3, cache.getHits());
+        assertEquals(1, cache.getMisses());
+    }
+
+    @Test
+    public void lruByBytes() {
+        EsQueryCache cache = cache();
+        cache.put("k1", bigData(400), "a");
+        cache.put("k2", bigData(400), "a");
+        long twoEntries = cache.bytes();
+        assertTrue(twoEntries > 800 * 1024 && twoEntries <= 1024 * 1024);
+        // 超过 1MB，淘汰最久未使用的 k1
+        cache.put("k3", bigData(400), "a");
+        assertEquals(2, cache.size());
+        assertNull(cache.get("k1"));
+        assertEquals(twoEntries, cache.bytes());
+
+        // 单条超过上限不缓存，也不淘汰其他缓存
+        cache.put("k4", bigData(1100), "a");
+        assertNull(cache.get("k4"));
+        assertEquals(2, cache.size());
+
+        // 覆盖同一个 key 不重复计算大小
+        cache.put("k3", bigData(400), "a");
+        assertEquals(twoEntries, cache.bytes());
+    }
+
+    @Test
+    public void ttl() throws InterruptedException {
+        EsQueryCache cache = cache(100, 1, 0);
+        cache.put("k1", data("{\"v\":1}"), "a");
+        EsReturnData fresh = cache.getStale("k1");
+        assertFalse(fresh.isStale());
+        Thread.sleep(1100);
+        assertNull(cache.get("k1"));
+        // 过期的缓存仍保留，熔断时兜底
+        EsReturnData stale = cache.getStale("k1");
+        assertTrue(stale.isStale());
+        assertEquals(1, stale.getEsDataList().get(0).getSourceAsMap().get("v"));
+        assertNull(cache.getStale("k2"));
+    }
+
+    @Test
+    public void copyIsolation() {
+        EsQueryCache cache = cache();
+        EsReturnData data = data("{\"v\":1}");
+        cache.put("k1", data, "a");
+        // 修改放入的结果不影响缓存
+        data.getEsDataList().get(0).getSourceAsMap().put("v", 2);
+        data.getEsDataList().clear();
+
+        EsReturnData first = cache.get("k1");
+        assertEquals(1, first.getEsDataList().size());
+        assertEquals(1, first.getEsDataList().get(0).getSourceAsMap().get("v"));
+        // 修改取出的结果不影响其他调用方
+        first.getEsDataList().get(0).getSourceAsMap().put("v", 3);
+        first.getEsDataList().add(new EsData(new BytesArray("{}"), "cache_test", 1.0f, "x"));
+
+        EsReturnData second = cache.get("k1");
+        assertEquals(1, second.getEsDataList().size());
+        assertEquals(1, second.getEsDataList().get(0).getSourceAsMap().get("v"));
+        assertEquals(Long.valueOf(1), second.getNum());
+    }
+
+    @Test
+    public void invalidate() {
+        EsQueryCache cache = cache();
+        cache.put("a", data("{}"), "a");
+        cache.put("b", data("{}"), "b");
+        cache.put("log", data("{}"), "log-*");
+        cache.put("all", data("{}"));
+
+        cache.invalidate("log-2026");
+        assertNull(cache.get("log"));
+        assertNull(cache.get("all"));
+        assertNotNull(cache.get("a"));
+        assertNotNull(cache.get("b"));
+
+        cache.invalidate("a");
+        assertNull(cache.get("a"));
+        assertNotNull(cache.get("b"));
+        assertEquals(1, cache.size());
+        assertEquals(3, cache.getInvalidations());
+        EsQueryCache expected = cache();
+        expected.put("b", data("{}"), "b");
+        assertEquals(expected.bytes(), cache.bytes());
+    }
+
+    @Test
+    public void skipRecentlyWritten() {
+        EsQueryCache cache = cache(100, 60, 60000);
+        cache.invalidate("a");
+        // 刚写入的索引（以及通配符 / 全部索引）不缓存
+        cache.put("a", data("{}"), "a");
+        cache.put("a-all", data("{}"), "a*");
+        cache.put("all", data("{}"));
+        cache.put("b", data("{}"), "b");
+        assertNull(cache.get("a"));
+        assertNull(cache.get("a-all"));
+        assertNull(cache.get("all"));
+        assertNotNull(cache.get("b"));
+    }
+}
@@ -0,0 +1,218 @@
+package com.qingjiu.myes.config.elasticsearch;
+
+import com.qingjiu.myes.entity.es.ElasticSearchEntity;
+import org.elasticsearch.action.DocWriteRequest;
+import org.elasticsearch.action.delete.DeleteRequest;
+import org.elasticsearch.action.index.IndexRequest;
+import org.elasticsearch.action.update.UpdateRequest;
+import org.elasticsearch.common.xcontent.XContentType;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.zip.CRC32;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * 本地写入日志测试（临时目录，不需要 es）
+ *
+ * @author tjy
+ * @date 2026/10/18
+ **/
+public class EsWriteJournalTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private ElasticSearchEntity.Journal conf() {
+        ElasticSearchEntity.Journal conf = new ElasticSearchEntity.Journal();
+        conf.setEnabled(true);
+        conf.setDir(folder.getRoot().getAbsolutePath());
+        conf.setSegmentSizeMb(1);
+        return conf;
+    }
+
+    private static IndexRequest index(String id) {
+        return new IndexRequest("journal_test").id(id).source("{\"name\":\"" + id + "\"}", XContentType.JSON);
+    }
+
+    private static List<String> ids(EsWriteJournal.Batch batch) {
+        return batch.requests.stream().map(DocWriteRequest::id).collect(Collectors.toList());
+    }
+
+    /**
+     * 记录在段内占用的字节数
+     */
+    private static int recordSize(DocWriteRequest<?> request) throws IOException {
+        return EsWriteJournal.HEADER + EsWriteJournal.encode(request).length;
+    }
+
+    /**
+     * 在段文件的 offset 处直接写入一条记录（crc 为空时按内容计算）
+     */
+    private static void writeRecord(EsWriteJournal journal, long segment, int offset, byte[] payload, Integer crc)
+            throws IOException {
+        CRC32 checksum = new CRC32();
+        checksum.update(payload);
+        ByteBuffer buffer = ByteBuffer.allocate(EsWriteJournal.HEADER + payload.length);
+        buffer.putInt(payload.length).putInt(crc == null ? (int) checksum.getValue() : crc).put(payload).flip();
+        try (FileChannel channel = FileChannel.open(journal.segmentPath(segment), StandardOpenOption.WRITE)) {
+            channel.write(buffer, offset);
+        }
+    }
+
+    @Test
+    public void encodeDecode() throws IOException {
+        IndexRequest index = index("1").routing("r1");
+        IndexRequest decodedIndex = (IndexRequest) EsWriteJournal.decode(EsWriteJournal.encode(index));
+        assertEquals("journal_test", decodedIndex.index());
+        assertEquals("1", decodedIndex.id());
+        assertEquals("r1", decodedIndex.routing());
+        assertEquals(XContentType.JSON, decodedIndex.getContentType());
+        assertEquals(index.source().utf8ToString(), decodedIndex.source().utf8ToString());
+
+        UpdateRequest update = new UpdateRequest("journal_test", "2").doc("{\"age\":3}", XContentType.JSON)
+                .docAsUpsert(true);
+        UpdateRequest decodedUpdate = (UpdateRequest) EsWriteJournal.decode(EsWriteJournal.encode(update));
+        assertEquals("2", decodedUpdate.id());
+        assertTrue(decodedUpdate.docAsUpsert());
+        assertNull(decodedUpdate.routing());
+        assertEquals("{\"age\":3}", decodedUpdate.doc().source().utf8ToString());
+
+        DeleteRequest delete = new DeleteRequest("journal_test", "3");
+        DocWriteRequest<?> decodedDelete = EsWriteJournal.decode(EsWriteJournal.encode(delete));
+        assertTrue(decodedDelete instanceof DeleteRequest);
+        assertEquals("3", decodedDelete.id());
+    }
+
+    @Test
+    public void recoverFromCheckpoint() throws IOException {
+        EsWriteJournal journal = new EsWriteJournal(conf());
+        for (int i = 1; i <= 3; i++) {
+            journal.append(index(String.valueOf(i)));
+        }
+        journal.destroy();
+
+        journal = new EsWriteJournal(conf());
+        assertTrue(journal.isPending());
+        EsWriteJournal.Batch batch = journal.read(2);
+        assertEquals(Arrays.asList("1", "2"), ids(batch));
+        journal.commit(batch.segment, batch.offset);
+        journal.destroy();
+
+        // 从检查点继续，已重放的记录不再读到
+        journal = new EsWriteJournal(conf());
+        assertTrue(journal.isPending());
+        batch = journal.read(10);
+        assertEquals(Arrays.asList("3"), ids(batch));
+        journal.commit(batch.segment, batch.offset);
+        assertFalse(journal.isPending());
+        journal.append(index("4"));
+        assertEquals(Arrays.asList("4"), ids(journal.read(10)));
+        journal.destroy();
+    }
+
+    @Test
+    public void truncateTornTail() throws IOException {
+        EsWriteJournal journal = new EsWriteJournal(conf());
+        journal.append(index("1"));
+        journal.append(index("2"));
+        journal.destroy();
+
+        // 模拟进程崩溃时写了一半的记录：长度已写入，内容与 CRC 不匹配
+        int tail = recordSize(index("1")) + recordSize(index("2"));
+        writeRecord(journal, 0, tail, new byte[]{1, 2, 3}, 0);
+
+        journal = new EsWriteJournal(conf());
+        byte[] zeros = new byte[EsWriteJournal.HEADER + 3];
+        byte[] actual = Arrays.copyOfRange(Files.readAllBytes(journal.segmentPath(0)), tail, tail + zeros.length);
+        assertArrayEquals(zeros, actual);
+        journal.append(index("3"));
+        assertEquals(Arrays.asList("1", "2", "3"), ids(journal.read(10)));
+        journal.destroy();
+    }
+
+    @Test
+    public void quarantineUndecodableRecord() throws IOException {
+        EsWriteJournal journal = new EsWriteJournal(conf());
+        journal.append(index("1"));
+        journal.destroy();
+
+        // CRC 正确但无法解析（未知的记录类型）
+        byte[] payload = EsWriteJournal.encode(index("bad"));
+        payload[0] = 9;
+        writeRecord(journal, 0, recordSize(index("1")), payload, null);
+
+        journal = new EsWriteJournal(conf());
+        journal.append(index("3"));
+        EsWriteJournal.Batch batch = journal.read(10);
+        // 先返回坏记录前面的记录
+        assertEquals(Arrays.asList("1"), ids(batch));
+        journal.commit(batch.segment, batch.offset);
+        batch = journal.read(10);
+        assertEquals(Arrays.asList("3"), ids(batch));
+        journal.commit(batch.segment, batch.offset);
+        assertFalse(journal.isPending());
+        assertEquals(1, journal.getDropped());
+        assertEquals(EsWriteJournal.HEADER + payload.length,
+                Files.size(folder.getRoot().toPath().resolve("quarantine.log")));
+        journal.destroy();
+    }
+
+    @Test
+    public void quarantineCorruptRecordInOlderSegment() throws IOException {
+        // 每段 1MB，每条约 400KB：1、2 在第 0 段，3 在第 1 段
+        char[] filler = new char[400 * 1024];
+        Arrays.fill(filler, 'x');
+        String big = new String(filler);
+        EsWriteJournal journal = new EsWriteJournal(conf());
+        for (int i = 1; i <= 3; i++) {
+            journal.append(new IndexRequest("journal_test").id(String.valueOf(i))
+                    .source("{\"name\":\"" + big + "\"}", XContentType.JSON));
+        }
+        journal.destroy();
+
+        // 第 0 段的第一条内容损坏（启动时只检查最后一段，不会被截断）
+        try (FileChannel channel = FileChannel.open(journal.segmentPath(0), StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[]{'#'}), EsWriteJournal.HEADER + 100);
+        }
+
+        journal = new EsWriteJournal(conf());
+        EsWriteJournal.Batch batch = journal.read(10);
+        assertEquals(Arrays.asList("2", "3"), ids(batch));
+        assertEquals(1, journal.getDropped());
+        journal.commit(batch.segment, batch.offset);
+        assertFalse(journal.isPending());
+        assertFalse(Files.exists(journal.segmentPath(0)));
+        journal.destroy();
+    }
+
+    @Test
+    public void lockDirectory() throws IOException {
+        EsWriteJournal journal = new EsWriteJournal(conf());
+        try {
+            new EsWriteJournal(conf());
+            fail("同一目录不能被打开两次");
+        } catch (IOException expected) {
+            // 已被锁定
+        } finally {
+            journal.destroy();
+        }
+        // 关闭后可以再次打开
+        new EsWriteJournal(conf()).destroy();
+    }
+}